@@ -96,6 +96,20 @@ public class LocalFile extends FileStore {
 		}
 	}
 
+	/**
+	 * Reads the names and attributes of all children of the directory together,
+	 * rather than creating a store and fetching the info of each child separately.
+	 */
+	@Override
+	public IFileInfo[] childInfos(int options, IProgressMonitor monitor) {
+		try {
+			return LocalFileNativesManager.fetchChildInfos(file.toPath());
+		} catch (IOException | InvalidPathException e) {
+			//like childNames, an unreadable directory has no children
+			return EMPTY_FILE_INFO_ARRAY;
+		}
+	}
+
 	@Override
 	public String[] childNames(int options, IProgressMonitor monitor) {
 		String[] names = file.list();
@@ -11,7 +11,9 @@
  *******************************************************************************/
 package org.eclipse.core.internal.filesystem.local;
 
+import java.io.IOException;
 import java.nio.file.FileSystems;
+import java.nio.file.Path;
 import java.util.Set;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.provider.FileInfo;
@@ -62,6 +64,14 @@ public class LocalFileNativesManager {
 		return HANDLER.fetchFileInfo(fileName);
 	}
 
+	/**
+	 * Returns the infos of all children of the given directory, read together with
+	 * the directory listing where the platform allows it.
+	 */
+	public static FileInfo[] fetchChildInfos(Path directory) throws IOException {
+		return HANDLER.fetchChildInfos(directory);
+	}
+
 	public static boolean putFileInfo(String fileName, IFileInfo info, int options) {
 		return HANDLER.putFileInfo(fileName, info, options);
 	}
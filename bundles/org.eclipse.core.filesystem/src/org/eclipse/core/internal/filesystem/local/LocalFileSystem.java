@@ -19,6 +19,7 @@ import java.net.URI;
 import org.eclipse.core.filesystem.*;
 import org.eclipse.core.filesystem.provider.FileSystem;
 import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.IProgressMonitor;
 import org.eclipse.osgi.service.environment.Constants;
 
 /**
@@ -110,6 +111,18 @@ public class LocalFileSystem extends FileSystem {
 		return true;
 	}
 
+	/**
+	 * Reads the whole tree below a local store in a single pass.
+	 *
+	 * @see LocalFileTree
+	 */
+	@Override
+	public IFileTree fetchFileTree(IFileStore root, IProgressMonitor monitor) {
+		if (!(root instanceof LocalFile))
+			return null;
+		return LocalFileTree.fetch((LocalFile) root, monitor);
+	}
+
 	@Override
 	public IFileStore fromLocalFile(File file) {
 		return new LocalFile(file);
@@ -0,0 +1,137 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.filesystem.local;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.*;
+import org.eclipse.core.filesystem.*;
+import org.eclipse.core.filesystem.provider.FileInfo;
+import org.eclipse.core.filesystem.provider.FileTree;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.SubMonitor;
+
+/**
+ * A file tree of the local file system, read in a single pass over the
+ * directories below the tree root. Names and attributes of all children
+ * of a directory are obtained together, through
+ * {@link NativeHandler#fetchChildInfos(Path)}.
+ * <p>
+ * Symbolic links to directories are not followed, and directories that
+ * could not be read are left out. The children of such directories are
+ * read from the file system on demand.
+ * </p>
+ */
+public class LocalFileTree extends FileTree {
+	private static final IFileInfo[] NO_CHILDREN = {};
+
+	/**
+	 * The infos of all files and directories in the tree, by absolute path.
+	 */
+	private final Map<String, IFileInfo> infos = new HashMap<>();
+
+	/**
+	 * The child infos of all directories that have been read, by absolute path.
+	 */
+	private final Map<String, IFileInfo[]> children = new HashMap<>();
+
+	/**
+	 * Reads the tree rooted at the given store.
+	 *
+	 * @param root the root of the tree
+	 * @param monitor a progress monitor, or <code>null</code>
+	 * @return the tree
+	 */
+	public static LocalFileTree fetch(LocalFile root, IProgressMonitor monitor) {
+		LocalFileTree tree = new LocalFileTree(root);
+		IFileInfo rootInfo = root.fetchInfo();
+		tree.infos.put(root.filePath, rootInfo);
+		if (!rootInfo.isDirectory() || rootInfo.getAttribute(EFS.ATTRIBUTE_SYMLINK))
+			return tree;
+		SubMonitor subMonitor = SubMonitor.convert(monitor);
+		ArrayDeque<Path> pending = new ArrayDeque<>();
+		pending.push(Paths.get(root.filePath));
+		while (!pending.isEmpty()) {
+			subMonitor.checkCanceled();
+			Path directory = pending.pop();
+			FileInfo[] childInfos;
+			try {
+				childInfos = LocalFileNativesManager.fetchChildInfos(directory);
+			} catch (IOException e) {
+				// leave the directory out, its children will be read on demand
+				continue;
+			}
+			for (FileInfo info : childInfos) {
+				Path child = directory.resolve(info.getName());
+				tree.infos.put(child.toString(), info);
+				if (info.isDirectory() && !info.getAttribute(EFS.ATTRIBUTE_SYMLINK))
+					pending.push(child);
+			}
+			tree.children.put(directory.toString(), childInfos);
+		}
+		return tree;
+	}
+
+	private LocalFileTree(LocalFile treeRoot) {
+		super(treeRoot);
+	}
+
+	@Override
+	public IFileInfo[] getChildInfos(IFileStore store) {
+		IFileInfo[] result = store instanceof LocalFile ? children.get(((LocalFile) store).filePath) : null;
+		if (result != null)
+			return result;
+		if (!isInTree(store) || !getFileInfo(store).isDirectory())
+			return NO_CHILDREN;
+		// the directory was not read while building the tree
+		try {
+			return store.childInfos(EFS.NONE, null);
+		} catch (CoreException e) {
+			return NO_CHILDREN;
+		}
+	}
+
+	@Override
+	public IFileStore[] getChildStores(IFileStore store) {
+		IFileInfo[] infos = getChildInfos(store);
+		IFileStore[] result = new IFileStore[infos.length];
+		for (int i = 0; i < infos.length; i++)
+			result[i] = store.getChild(infos[i].getName());
+		return result;
+	}
+
+	@Override
+	public IFileInfo getFileInfo(IFileStore store) {
+		IFileInfo result = store instanceof LocalFile ? infos.get(((LocalFile) store).filePath) : null;
+		if (result != null)
+			return result;
+		if (isInTree(store) && isParentRead(store))
+			// the file does not exist
+			return new FileInfo(store.getName());
+		return store.fetchInfo();
+	}
+
+	private boolean isInTree(IFileStore store) {
+		return treeRoot.equals(store) || treeRoot.isParentOf(store);
+	}
+
+	/**
+	 * Returns whether the children of the parent of the given store are known.
+	 */
+	private boolean isParentRead(IFileStore store) {
+		if (!(store instanceof LocalFile))
+			return false;
+		File parent = ((LocalFile) store).file.getParentFile();
+		return parent != null && children.containsKey(parent.getAbsolutePath());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012 IBM Corporation and others.
+ * Copyright (c) 2012, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,10 @@
  *******************************************************************************/
 package org.eclipse.core.internal.filesystem.local;
 
+import java.io.IOException;
+import java.nio.file.*;
+import java.util.ArrayList;
+import java.util.List;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.provider.FileInfo;
 
@@ -21,5 +25,42 @@ public abstract class NativeHandler {
 
 	public abstract FileInfo fetchFileInfo(String fileName);
 
+	/**
+	 * Returns the info of a file that has been found while reading its parent
+	 * directory. The result must be the same as the one of {@link #fetchFileInfo(String)}.
+	 * <p>
+	 * The default implementation fetches the info of the file on its own. Handlers
+	 * that can obtain all supported attributes more cheaply through NIO should override.
+	 * </p>
+	 */
+	public FileInfo fetchChildInfo(Path path) {
+		FileInfo info = fetchFileInfo(path.toString());
+		//natives don't set the file name on all platforms
+		if (info.getName() == null || info.getName().isEmpty())
+			info.setName(path.getFileName().toString());
+		return info;
+	}
+
+	/**
+	 * Returns the infos of all children of the given directory. Each info must be
+	 * the same as the one of {@link #fetchFileInfo(String)} for that child.
+	 * <p>
+	 * The default implementation lists the directory and calls {@link #fetchChildInfo(Path)}
+	 * for each child. Handlers that can read the attributes of the children together
+	 * with the directory listing should override.
+	 * </p>
+	 * @throws IOException if the directory could not be read
+	 */
+	public FileInfo[] fetchChildInfos(Path directory) throws IOException {
+		List<FileInfo> infos = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			for (Path child : stream)
+				infos.add(fetchChildInfo(child));
+		} catch (DirectoryIteratorException e) {
+			throw e.getCause();
+		}
+		return infos.toArray(new FileInfo[infos.size()]);
+	}
+
 	public abstract boolean putFileInfo(String fileName, IFileInfo info, int options);
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2016 IBM Corporation and others.
+ * Copyright (c) 2013, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,8 +16,8 @@ import java.io.IOException;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.nio.file.*;
-import java.nio.file.attribute.DosFileAttributeView;
-import java.nio.file.attribute.DosFileAttributes;
+import java.nio.file.attribute.*;
+import java.util.*;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.provider.FileInfo;
@@ -70,6 +70,57 @@ public class DosHandler extends NativeHandler {
 		return info;
 	}
 
+	/**
+	 * Lists the directory with the file tree walker, which passes on the attributes
+	 * that Windows returns with each directory entry, so the children are not read one
+	 * by one. Symbolic links still go through {@link #fetchFileInfo(String)}.
+	 */
+	@Override
+	public FileInfo[] fetchChildInfos(Path directory) throws IOException {
+		List<FileInfo> infos = new ArrayList<>();
+		boolean[] isDirectory = new boolean[1];
+		Files.walkFileTree(directory, Collections.emptySet(), 1, new SimpleFileVisitor<Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(Path dir, BasicFileAttributes attrs) {
+				isDirectory[0] = true;
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+				if (file.equals(directory))
+					// a file or a symbolic link to a directory
+					return FileVisitResult.TERMINATE;
+				if (attrs instanceof DosFileAttributes && !attrs.isSymbolicLink()) {
+					DosFileAttributes dosAttrs = (DosFileAttributes) attrs;
+					FileInfo info = new FileInfo(file.getFileName().toString());
+					info.setExists(true);
+					info.setLastModified(dosAttrs.lastModifiedTime().toMillis());
+					info.setLength(dosAttrs.size());
+					info.setAttribute(EFS.ATTRIBUTE_ARCHIVE, dosAttrs.isArchive());
+					info.setAttribute(EFS.ATTRIBUTE_READ_ONLY, dosAttrs.isReadOnly());
+					info.setAttribute(EFS.ATTRIBUTE_HIDDEN, dosAttrs.isHidden());
+					info.setDirectory(dosAttrs.isDirectory());
+					infos.add(info);
+				} else {
+					infos.add(fetchFileInfo(file.toString()));
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(Path file, IOException e) throws IOException {
+				if (file.equals(directory))
+					throw e;
+				infos.add(fetchFileInfo(file.toString()));
+				return FileVisitResult.CONTINUE;
+			}
+		});
+		if (!isDirectory[0])
+			return super.fetchChildInfos(directory);
+		return infos.toArray(new FileInfo[infos.size()]);
+	}
+
 	private boolean isDirectoryLink(DosFileAttributes attrs) {
 		// Use reflection to call package protected WindowsFileAttributes.isDirectoryLink() method.
 		try {
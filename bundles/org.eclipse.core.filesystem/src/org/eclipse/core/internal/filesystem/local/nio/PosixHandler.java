@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2013, 2016 IBM Corporation and others.
+ * Copyright (c) 2013, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,8 +15,7 @@ package org.eclipse.core.internal.filesystem.local.nio;
 import java.io.IOException;
 import java.nio.file.*;
 import java.nio.file.attribute.*;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.*;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.provider.FileInfo;
@@ -35,7 +34,11 @@ public class PosixHandler extends NativeHandler {
 
 	@Override
 	public FileInfo fetchFileInfo(String fileName) {
-		Path path = Paths.get(fileName);
+		return fetchChildInfo(Paths.get(fileName));
+	}
+
+	@Override
+	public FileInfo fetchChildInfo(Path path) {
 		FileInfo info = new FileInfo();
 
 		// Fill in the name of the file.
@@ -55,21 +58,7 @@ public class PosixHandler extends NativeHandler {
 				attrs = Files.readAttributes(path, PosixFileAttributes.class);
 			}
 
-			info.setExists(true);
-			info.setLastModified(attrs.lastModifiedTime().toMillis());
-			info.setLength(attrs.size());
-			info.setDirectory(attrs.isDirectory());
-
-			Set<PosixFilePermission> perms = attrs.permissions();
-			info.setAttribute(EFS.ATTRIBUTE_OWNER_READ, perms.contains(PosixFilePermission.OWNER_READ));
-			info.setAttribute(EFS.ATTRIBUTE_OWNER_WRITE, perms.contains(PosixFilePermission.OWNER_WRITE));
-			info.setAttribute(EFS.ATTRIBUTE_OWNER_EXECUTE, perms.contains(PosixFilePermission.OWNER_EXECUTE));
-			info.setAttribute(EFS.ATTRIBUTE_GROUP_READ, perms.contains(PosixFilePermission.GROUP_READ));
-			info.setAttribute(EFS.ATTRIBUTE_GROUP_WRITE, perms.contains(PosixFilePermission.GROUP_WRITE));
-			info.setAttribute(EFS.ATTRIBUTE_GROUP_EXECUTE, perms.contains(PosixFilePermission.GROUP_EXECUTE));
-			info.setAttribute(EFS.ATTRIBUTE_OTHER_READ, perms.contains(PosixFilePermission.OTHERS_READ));
-			info.setAttribute(EFS.ATTRIBUTE_OTHER_WRITE, perms.contains(PosixFilePermission.OTHERS_WRITE));
-			info.setAttribute(EFS.ATTRIBUTE_OTHER_EXECUTE, perms.contains(PosixFilePermission.OTHERS_EXECUTE));
+			setAttributes(info, attrs);
 		} catch (NoSuchFileException e) {
 			// A non-existing file is not considered an error.
 		} catch (IOException e) {
@@ -79,6 +68,60 @@ public class PosixHandler extends NativeHandler {
 		return info;
 	}
 
+	/**
+	 * Reads the attributes of the children relative to the open directory, so the
+	 * path of each child is not resolved again. POSIX does not return attributes with
+	 * the directory entries, so this still takes one <code>fstatat</code> per child.
+	 */
+	@Override
+	public FileInfo[] fetchChildInfos(Path directory) throws IOException {
+		List<FileInfo> infos = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			SecureDirectoryStream<Path> secureStream = stream instanceof SecureDirectoryStream ? (SecureDirectoryStream<Path>) stream : null;
+			for (Path child : stream)
+				infos.add(secureStream == null ? fetchChildInfo(child) : fetchChildInfo(secureStream, child));
+		} catch (DirectoryIteratorException e) {
+			throw e.getCause();
+		}
+		return infos.toArray(new FileInfo[infos.size()]);
+	}
+
+	private FileInfo fetchChildInfo(SecureDirectoryStream<Path> stream, Path child) {
+		PosixFileAttributeView view = stream.getFileAttributeView(child.getFileName(), PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+		if (view == null)
+			return fetchChildInfo(child);
+		PosixFileAttributes attrs;
+		try {
+			attrs = view.readAttributes();
+		} catch (IOException e) {
+			return fetchChildInfo(child);
+		}
+		// symbolic links also need their target to be read
+		if (attrs.isSymbolicLink())
+			return fetchChildInfo(child);
+		FileInfo info = new FileInfo(child.getFileName().toString());
+		setAttributes(info, attrs);
+		return info;
+	}
+
+	private void setAttributes(FileInfo info, PosixFileAttributes attrs) {
+		info.setExists(true);
+		info.setLastModified(attrs.lastModifiedTime().toMillis());
+		info.setLength(attrs.size());
+		info.setDirectory(attrs.isDirectory());
+
+		Set<PosixFilePermission> perms = attrs.permissions();
+		info.setAttribute(EFS.ATTRIBUTE_OWNER_READ, perms.contains(PosixFilePermission.OWNER_READ));
+		info.setAttribute(EFS.ATTRIBUTE_OWNER_WRITE, perms.contains(PosixFilePermission.OWNER_WRITE));
+		info.setAttribute(EFS.ATTRIBUTE_OWNER_EXECUTE, perms.contains(PosixFilePermission.OWNER_EXECUTE));
+		info.setAttribute(EFS.ATTRIBUTE_GROUP_READ, perms.contains(PosixFilePermission.GROUP_READ));
+		info.setAttribute(EFS.ATTRIBUTE_GROUP_WRITE, perms.contains(PosixFilePermission.GROUP_WRITE));
+		info.setAttribute(EFS.ATTRIBUTE_GROUP_EXECUTE, perms.contains(PosixFilePermission.GROUP_EXECUTE));
+		info.setAttribute(EFS.ATTRIBUTE_OTHER_READ, perms.contains(PosixFilePermission.OTHERS_READ));
+		info.setAttribute(EFS.ATTRIBUTE_OTHER_WRITE, perms.contains(PosixFilePermission.OTHERS_WRITE));
+		info.setAttribute(EFS.ATTRIBUTE_OTHER_EXECUTE, perms.contains(PosixFilePermission.OTHERS_EXECUTE));
+	}
+
 	@Override
 	public int getSupportedAttributes() {
 		return ATTRIBUTES;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2012, 2015 IBM Corporation and others.
+ * Copyright (c) 2012, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,14 @@
  *******************************************************************************/
 package org.eclipse.core.internal.filesystem.local.unix;
 
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.PosixFileAttributeView;
+import java.nio.file.attribute.PosixFileAttributes;
+import java.nio.file.attribute.PosixFilePermission;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileInfo;
 import org.eclipse.core.filesystem.provider.FileInfo;
 import org.eclipse.core.internal.filesystem.local.NativeHandler;
@@ -28,6 +36,81 @@ public class UnixFileHandler extends NativeHandler {
 		return UnixFileNatives.fetchFileInfo(fileName);
 	}
 
+	/**
+	 * Reads the attributes of the file through NIO when that gives the same result as
+	 * {@link StructStat#toFileInfo()}. Symbolic links and file systems with immutable
+	 * flags still go through the natives.
+	 */
+	@Override
+	public FileInfo fetchChildInfo(Path path) {
+		if ((getSupportedAttributes() & EFS.ATTRIBUTE_IMMUTABLE) != 0)
+			return super.fetchChildInfo(path);
+		PosixFileAttributes attrs;
+		try {
+			attrs = Files.readAttributes(path, PosixFileAttributes.class, LinkOption.NOFOLLOW_LINKS);
+		} catch (IOException | UnsupportedOperationException e) {
+			return super.fetchChildInfo(path);
+		}
+		if (attrs.isSymbolicLink())
+			return super.fetchChildInfo(path);
+		return toFileInfo(path, attrs);
+	}
+
+	/**
+	 * Reads the attributes of the children relative to the open directory, so the
+	 * path of each child is not resolved again. POSIX does not return attributes with
+	 * the directory entries, so this still takes one <code>fstatat</code> per child.
+	 */
+	@Override
+	public FileInfo[] fetchChildInfos(Path directory) throws IOException {
+		if ((getSupportedAttributes() & EFS.ATTRIBUTE_IMMUTABLE) != 0)
+			return super.fetchChildInfos(directory);
+		List<FileInfo> infos = new ArrayList<>();
+		try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory)) {
+			SecureDirectoryStream<Path> secureStream = stream instanceof SecureDirectoryStream ? (SecureDirectoryStream<Path>) stream : null;
+			for (Path child : stream)
+				infos.add(secureStream == null ? fetchChildInfo(child) : fetchChildInfo(secureStream, child));
+		} catch (DirectoryIteratorException e) {
+			throw e.getCause();
+		}
+		return infos.toArray(new FileInfo[infos.size()]);
+	}
+
+	private FileInfo fetchChildInfo(SecureDirectoryStream<Path> stream, Path child) {
+		PosixFileAttributeView view = stream.getFileAttributeView(child.getFileName(), PosixFileAttributeView.class, LinkOption.NOFOLLOW_LINKS);
+		if (view == null)
+			return fetchChildInfo(child);
+		PosixFileAttributes attrs;
+		try {
+			attrs = view.readAttributes();
+		} catch (IOException e) {
+			return fetchChildInfo(child);
+		}
+		if (attrs.isSymbolicLink())
+			return super.fetchChildInfo(child);
+		return toFileInfo(child, attrs);
+	}
+
+	private FileInfo toFileInfo(Path path, PosixFileAttributes attrs) {
+		FileInfo info = new FileInfo(path.getFileName().toString());
+		info.setExists(true);
+		info.setLength(attrs.size());
+		// struct stat only provides the modification time in seconds
+		info.setLastModified(attrs.lastModifiedTime().to(TimeUnit.SECONDS) * 1000);
+		info.setDirectory(attrs.isDirectory());
+		Set<PosixFilePermission> perms = attrs.permissions();
+		info.setAttribute(EFS.ATTRIBUTE_OWNER_READ, perms.contains(PosixFilePermission.OWNER_READ));
+		info.setAttribute(EFS.ATTRIBUTE_OWNER_WRITE, perms.contains(PosixFilePermission.OWNER_WRITE));
+		info.setAttribute(EFS.ATTRIBUTE_OWNER_EXECUTE, perms.contains(PosixFilePermission.OWNER_EXECUTE));
+		info.setAttribute(EFS.ATTRIBUTE_GROUP_READ, perms.contains(PosixFilePermission.GROUP_READ));
+		info.setAttribute(EFS.ATTRIBUTE_GROUP_WRITE, perms.contains(PosixFilePermission.GROUP_WRITE));
+		info.setAttribute(EFS.ATTRIBUTE_GROUP_EXECUTE, perms.contains(PosixFilePermission.GROUP_EXECUTE));
+		info.setAttribute(EFS.ATTRIBUTE_OTHER_READ, perms.contains(PosixFilePermission.OTHERS_READ));
+		info.setAttribute(EFS.ATTRIBUTE_OTHER_WRITE, perms.contains(PosixFilePermission.OTHERS_WRITE));
+		info.setAttribute(EFS.ATTRIBUTE_OTHER_EXECUTE, perms.contains(PosixFilePermission.OTHERS_EXECUTE));
+		return info;
+	}
+
 	@Override
 	public boolean putFileInfo(String fileName, IFileInfo info, int options) {
 		return UnixFileNatives.putFileInfo(fileName, info, options);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2002, 2015 IBM Corporation and others.
+ * Copyright (c) 2002, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,11 +11,13 @@
 package org.eclipse.core.internal.resources;
 
 import java.util.Map;
-import org.eclipse.core.internal.utils.Cache;
+import org.eclipse.core.internal.utils.ConcurrentCache;
 import org.eclipse.core.internal.watson.ElementTree;
 import org.eclipse.core.resources.IResource;
 import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.IPath;
 import org.eclipse.core.runtime.QualifiedName;
+import org.eclipse.core.runtime.content.IContentDescription;
 
 /**
  * Provides special internal access to the workspace resource implementation.
@@ -64,7 +66,7 @@ public class SpySupport {
 	}
 	public static boolean isContentDescriptionCached(File file) {
 		ResourceInfo info = file.getResourceInfo(false, false);
-		Cache.Entry entry = ((Workspace) ResourcesPlugin.getWorkspace()).getContentDescriptionManager().getCache().getEntry(file.getFullPath(), false);
+		ConcurrentCache.Entry<IPath, IContentDescription> entry = ((Workspace) ResourcesPlugin.getWorkspace()).getContentDescriptionManager().getCache().peekEntry(file.getFullPath());
 		return entry != null && info.getContentId() == entry.getTimestamp();
 	}
 }
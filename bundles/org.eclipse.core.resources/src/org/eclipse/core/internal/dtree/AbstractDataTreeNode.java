@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,9 @@
  *******************************************************************************/
 package org.eclipse.core.internal.dtree;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinTask;
 import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.internal.utils.StringPool;
 import org.eclipse.core.runtime.IPath;
@@ -26,9 +29,71 @@ public abstract class AbstractDataTreeNode {
 	 * Singleton indicating no children.
 	 */
 	static final AbstractDataTreeNode[] NO_CHILDREN = new AbstractDataTreeNode[0];
+
+	/**
+	 * The number of children from which on lookups by name use a hash index
+	 * instead of a binary search.
+	 */
+	static final int INDEX_THRESHOLD = 32;
+
+	/**
+	 * The number of children from which on a parallel comparison compares
+	 * their subtrees concurrently.
+	 */
+	static final int PARALLEL_THRESHOLD = 4;
+
+	/**
+	 * An open addressed hash table from child names to their positions in
+	 * a children array. The index is only valid for the array it was built
+	 * for; it is discarded implicitly when the node gets a new array.
+	 */
+	private static final class ChildIndex {
+		final AbstractDataTreeNode[] nodes;
+		/** The child positions plus one, zero marks a free slot */
+		final int[] slots;
+
+		ChildIndex(AbstractDataTreeNode[] nodes) {
+			this.nodes = nodes;
+			int[] table = new int[Integer.highestOneBit(nodes.length * 2 - 1) << 1];
+			int mask = table.length - 1;
+			for (int i = 0; i < nodes.length; i++) {
+				int slot = hash(nodes[i].name) & mask;
+				while (table[slot] != 0)
+					slot = (slot + 1) & mask;
+				table[slot] = i + 1;
+			}
+			this.slots = table;
+		}
+
+		static int hash(String name) {
+			int h = name.hashCode();
+			return h ^ (h >>> 16);
+		}
+
+		int indexOf(String localName) {
+			int[] table = slots;
+			int mask = table.length - 1;
+			int slot = hash(localName) & mask;
+			int position;
+			while ((position = table[slot]) != 0) {
+				String candidate = nodes[position - 1].name;
+				if (candidate == localName || candidate.equals(localName))
+					return position - 1;
+				slot = (slot + 1) & mask;
+			}
+			return -1;
+		}
+	}
+
 	protected AbstractDataTreeNode children[];
 	protected String name;
 
+	/**
+	 * The index of the children by name, created lazily for nodes with many
+	 * children, or <code>null</code>.
+	 */
+	private ChildIndex childIndex;
+
 	/* Node types for comparison */
 	public static final int T_COMPLETE_NODE = 0;
 	public static final int T_DELTA_NODE = 1;
@@ -278,6 +343,15 @@ public abstract class AbstractDataTreeNode {
 	/**
 	 */
 	protected static AbstractDataTreeNode[] compareWith(AbstractDataTreeNode[] oldNodes, AbstractDataTreeNode[] newNodes, IComparator comparator) {
+		return compareWith(oldNodes, newNodes, comparator, false);
+	}
+
+	/**
+	 * Compares the given children. If <code>parallel</code> is true, the subtrees
+	 * of children present on both sides are compared concurrently on the common
+	 * fork join pool; the result is the same.
+	 */
+	static AbstractDataTreeNode[] compareWith(AbstractDataTreeNode[] oldNodes, AbstractDataTreeNode[] newNodes, IComparator comparator, boolean parallel) {
 
 		int oldLen = oldNodes.length;
 		int newLen = newNodes.length;
@@ -285,6 +359,12 @@ public abstract class AbstractDataTreeNode {
 		int newIndex = 0;
 		AbstractDataTreeNode[] comparedNodes = new AbstractDataTreeNode[oldLen + newLen];
 		int count = 0;
+		List<ForkJoinTask<AbstractDataTreeNode>> tasks = null;
+		int[] slots = null;
+		if (parallel && Math.min(oldLen, newLen) >= PARALLEL_THRESHOLD) {
+			tasks = new ArrayList<>(Math.min(oldLen, newLen));
+			slots = new int[Math.min(oldLen, newLen)];
+		}
 
 		while (oldIndex < oldLen && newIndex < newLen) {
 			DataTreeNode oldNode = (DataTreeNode) oldNodes[oldIndex];
@@ -304,6 +384,12 @@ public abstract class AbstractDataTreeNode {
 					comparedNodes[count++] = convertToAddedComparisonNode(newNode, userComparison);
 				}
 				++newIndex;
+			} else if (tasks != null) {
+				/* reserve the slot, empty comparisons are dropped when joining */
+				slots[tasks.size()] = count++;
+				tasks.add(ForkJoinTask.adapt(() -> oldNode.compareWith(newNode, comparator)));
+				++oldIndex;
+				++newIndex;
 			} else {
 				AbstractDataTreeNode comparedNode = oldNode.compareWith(newNode, comparator);
 				NodeComparison comparison = (NodeComparison) comparedNode.getData();
@@ -334,6 +420,8 @@ public abstract class AbstractDataTreeNode {
 				comparedNodes[count++] = convertToAddedComparisonNode(newNode, userComparison);
 			}
 		}
+		if (tasks != null)
+			count = joinComparisons(comparedNodes, count, tasks, slots);
 
 		if (count == 0) {
 			return NO_CHILDREN;
@@ -367,8 +455,43 @@ public abstract class AbstractDataTreeNode {
 		return comparedNodes;
 	}
 
+	/**
+	 * Compares the given children with the same nodes in the parent tree. If
+	 * <code>parallel</code> is true, their subtrees are compared concurrently
+	 * on the common fork join pool; the result is the same.
+	 */
+	static AbstractDataTreeNode[] compareWithParent(AbstractDataTreeNode[] nodes, IPath key, DeltaDataTree parent, IComparator comparator, boolean parallel) {
+		if (!parallel || nodes.length < PARALLEL_THRESHOLD)
+			return compareWithParent(nodes, key, parent, comparator);
+		List<ForkJoinTask<AbstractDataTreeNode>> tasks = new ArrayList<>(nodes.length);
+		int[] slots = new int[nodes.length];
+		for (int i = 0; i < nodes.length; i++) {
+			AbstractDataTreeNode node = nodes[i];
+			slots[i] = i;
+			tasks.add(ForkJoinTask.adapt(() -> node.compareWithParent(key.append(node.getName()), parent, comparator)));
+		}
+		AbstractDataTreeNode[] comparedNodes = new AbstractDataTreeNode[nodes.length];
+		int count = joinComparisons(comparedNodes, nodes.length, tasks, slots);
+		if (count == 0) {
+			return NO_CHILDREN;
+		}
+		if (count < comparedNodes.length) {
+			System.arraycopy(comparedNodes, 0, comparedNodes = new AbstractDataTreeNode[count], 0, count);
+		}
+		return comparedNodes;
+	}
+
 	abstract AbstractDataTreeNode compareWithParent(IPath key, DeltaDataTree parent, IComparator comparator);
 
+	/**
+	 * Same as {@link #compareWithParent(IPath, DeltaDataTree, IComparator)}, but
+	 * compares the subtrees of the children concurrently if <code>parallel</code>
+	 * is true.
+	 */
+	AbstractDataTreeNode compareWithParent(IPath key, DeltaDataTree parent, IComparator comparator, boolean parallel) {
+		return compareWithParent(key, parent, comparator);
+	}
+
 	static AbstractDataTreeNode convertToAddedComparisonNode(AbstractDataTreeNode newNode, int userComparison) {
 		AbstractDataTreeNode[] children = newNode.getChildren();
 		int n = children.length;
@@ -457,6 +580,12 @@ public abstract class AbstractDataTreeNode {
 	 */
 	protected int indexOfChild(String localName) {
 		AbstractDataTreeNode[] nodes = this.children;
+		if (nodes.length >= INDEX_THRESHOLD) {
+			ChildIndex index = childIndex;
+			if (index == null || index.nodes != nodes)
+				childIndex = index = new ChildIndex(nodes);
+			return index.indexOf(localName);
+		}
 		int left = 0;
 		int right = nodes.length - 1;
 		while (left <= right) {
@@ -495,6 +624,28 @@ public abstract class AbstractDataTreeNode {
 		return false;
 	}
 
+	/**
+	 * Runs the given comparisons of children and stores their results in the
+	 * given slots of <code>comparedNodes</code>. Empty comparisons are dropped
+	 * and the remaining nodes are moved up, keeping their order. Returns the
+	 * number of nodes left.
+	 */
+	private static int joinComparisons(AbstractDataTreeNode[] comparedNodes, int count, List<ForkJoinTask<AbstractDataTreeNode>> tasks, int[] slots) {
+		ForkJoinTask.invokeAll(tasks);
+		for (int i = 0; i < tasks.size(); i++) {
+			AbstractDataTreeNode comparedNode = tasks.get(i).join();
+			NodeComparison comparison = (NodeComparison) comparedNode.getData();
+			/* skip empty comparisons */
+			comparedNodes[slots[i]] = comparison.isUnchanged() && comparedNode.size() == 0 ? null : comparedNode;
+		}
+		int kept = 0;
+		for (int i = 0; i < count; i++) {
+			if (comparedNodes[i] != null)
+				comparedNodes[kept++] = comparedNodes[i];
+		}
+		return kept;
+	}
+
 	/**
 	 * Returns the local names of the receiver's children.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -96,7 +96,15 @@ public class DataTreeNode extends AbstractDataTreeNode {
 	}
 
 	AbstractDataTreeNode compareWith(DataTreeNode other, IComparator comparator) {
-		AbstractDataTreeNode[] comparedChildren = compareWith(children, other.children, comparator);
+		return compareWith(other, comparator, false);
+	}
+
+	/**
+	 * Compares this node with the other node. If <code>parallel</code> is true,
+	 * the subtrees of the children are compared concurrently.
+	 */
+	AbstractDataTreeNode compareWith(DataTreeNode other, IComparator comparator, boolean parallel) {
+		AbstractDataTreeNode[] comparedChildren = compareWith(children, other.children, comparator, parallel);
 		Object oldData = data;
 		Object newData = other.data;
 
@@ -111,10 +119,15 @@ public class DataTreeNode extends AbstractDataTreeNode {
 
 	@Override
 	AbstractDataTreeNode compareWithParent(IPath key, DeltaDataTree parent, IComparator comparator) {
+		return compareWithParent(key, parent, comparator, false);
+	}
+
+	@Override
+	AbstractDataTreeNode compareWithParent(IPath key, DeltaDataTree parent, IComparator comparator, boolean parallel) {
 		if (!parent.includes(key))
 			return convertToAddedComparisonNode(this, NodeComparison.K_ADDED);
 		DataTreeNode inParent = (DataTreeNode) parent.copyCompleteSubtree(key);
-		return inParent.compareWith(this, comparator);
+		return inParent.compareWith(this, comparator, parallel);
 	}
 
 	/**
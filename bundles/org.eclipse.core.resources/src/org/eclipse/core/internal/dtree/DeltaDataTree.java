@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -159,6 +159,15 @@ public class DeltaDataTree extends AbstractDataTree {
 	 * tree and other tree must contain the given path.
 	 */
 	protected DeltaDataTree basicCompare(DeltaDataTree other, IComparator comparator, IPath path) {
+		return basicCompare(other, comparator, path, false);
+	}
+
+	/**
+	 * Same as {@link #basicCompare(DeltaDataTree, IComparator, IPath)}, but
+	 * compares the subtrees of the children of the given path concurrently if
+	 * <code>parallel</code> is true.
+	 */
+	private DeltaDataTree basicCompare(DeltaDataTree other, IComparator comparator, IPath path, boolean parallel) {
 		DeltaDataTree newTree;
 		if (this == other) {
 			newTree = new DeltaDataTree();
@@ -175,7 +184,7 @@ public class DeltaDataTree extends AbstractDataTree {
 					assembled = treeNode.assembleWith(assembled);
 				}
 			}
-			AbstractDataTreeNode comparedRoot = assembled.compareWithParent(path, this, comparator);
+			AbstractDataTreeNode comparedRoot = assembled.compareWithParent(path, this, comparator, parallel);
 			newTree = new DeltaDataTree(comparedRoot);
 		} else if (this.hasAncestor(other)) {
 			AbstractDataTreeNode assembled = this.asBackwardDelta().searchNodeAt(path);
@@ -185,13 +194,13 @@ public class DeltaDataTree extends AbstractDataTree {
 			while ((tree = tree.getParent()) != other) {
 				assembled = assembled.assembleWith(tree.asBackwardDelta().searchNodeAt(path));
 			}
-			AbstractDataTreeNode comparedRoot = assembled.compareWithParent(path, this, comparator);
+			AbstractDataTreeNode comparedRoot = assembled.compareWithParent(path, this, comparator, parallel);
 			newTree = new DeltaDataTree(comparedRoot);
 		} else {
 			//revert to naive comparison
 			DataTreeNode thisCompleteRoot = (DataTreeNode) this.copyCompleteSubtree(path);
 			DataTreeNode otherCompleteRoot = (DataTreeNode) other.copyCompleteSubtree(path);
-			AbstractDataTreeNode comparedRoot = thisCompleteRoot.compareWith(otherCompleteRoot, comparator);
+			AbstractDataTreeNode comparedRoot = thisCompleteRoot.compareWith(otherCompleteRoot, comparator, parallel);
 			newTree = new DeltaDataTree(comparedRoot);
 		}
 		newTree.immutable();
@@ -233,6 +242,17 @@ public class DeltaDataTree extends AbstractDataTree {
 	 * between the two trees.
 	 */
 	public DeltaDataTree compareWith(DeltaDataTree other, IComparator comparator) {
+		return compareWith(other, comparator, false);
+	}
+
+	/**
+	 * Same as {@link #compareWith(DeltaDataTree, IComparator)}. If <code>parallel</code>
+	 * is true and both trees are immutable, the subtrees of the children of the
+	 * root (the projects of a workspace tree) are compared concurrently on the
+	 * common fork join pool. The resulting tree is the same.
+	 */
+	public DeltaDataTree compareWith(DeltaDataTree other, IComparator comparator, boolean parallel) {
+		boolean concurrent = parallel && isImmutable() && other.isImmutable();
 
 		DeltaDataTree newTree;
 		if (this == other) {
@@ -247,7 +267,7 @@ public class DeltaDataTree extends AbstractDataTree {
 			while ((tree = tree.getParent()) != this) {
 				assembled = tree.getRootNode().assembleWith(assembled);
 			}
-			AbstractDataTreeNode comparedRoot = assembled.compareWithParent(rootKey(), this, comparator);
+			AbstractDataTreeNode comparedRoot = assembled.compareWithParent(rootKey(), this, comparator, concurrent);
 			newTree = new DeltaDataTree(comparedRoot);
 		} else if (this.hasAncestor(other)) {
 			AbstractDataTreeNode assembled = this.asBackwardDelta().getRootNode();
@@ -257,13 +277,13 @@ public class DeltaDataTree extends AbstractDataTree {
 			while ((tree = tree.getParent()) != other) {
 				assembled = assembled.assembleWith(tree.asBackwardDelta().getRootNode());
 			}
-			AbstractDataTreeNode comparedRoot = assembled.compareWithParent(rootKey(), this, comparator);
+			AbstractDataTreeNode comparedRoot = assembled.compareWithParent(rootKey(), this, comparator, concurrent);
 			newTree = new DeltaDataTree(comparedRoot);
 		} else {
 			//revert to naive comparison if trees have no common ancestry
 			DataTreeNode thisCompleteRoot = (DataTreeNode) this.copyCompleteSubtree(rootKey());
 			DataTreeNode otherCompleteRoot = (DataTreeNode) other.copyCompleteSubtree(rootKey());
-			AbstractDataTreeNode comparedRoot = thisCompleteRoot.compareWith(otherCompleteRoot, comparator);
+			AbstractDataTreeNode comparedRoot = thisCompleteRoot.compareWith(otherCompleteRoot, comparator, concurrent);
 			newTree = new DeltaDataTree(comparedRoot);
 		}
 		newTree.immutable();
@@ -275,10 +295,20 @@ public class DeltaDataTree extends AbstractDataTree {
 	 * given path will be the root node of the returned tree.
 	 */
 	public DeltaDataTree compareWith(DeltaDataTree other, IComparator comparator, IPath path) {
+		return compareWith(other, comparator, path, false);
+	}
+
+	/**
+	 * Same as {@link #compareWith(DeltaDataTree, IComparator, IPath)}. If
+	 * <code>parallel</code> is true and both trees are immutable, the subtrees
+	 * of the children of the given path are compared concurrently on the
+	 * common fork join pool. The resulting tree is the same.
+	 */
+	public DeltaDataTree compareWith(DeltaDataTree other, IComparator comparator, IPath path, boolean parallel) {
 		/* need to figure out if trees really contain the given path */
 		if (this.includes(path)) {
 			if (other.includes(path))
-				return basicCompare(other, comparator, path);
+				return basicCompare(other, comparator, path, parallel && isImmutable() && other.isImmutable());
 			/* only exists in this tree */
 			return new DeltaDataTree(AbstractDataTreeNode.convertToRemovedComparisonNode(this.copyCompleteSubtree(path), comparator.compare(this.getData(path), null)));
 		}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2014 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -67,7 +67,12 @@ public class NoDataDeltaNode extends AbstractDataTreeNode {
 	 */
 	@Override
 	AbstractDataTreeNode compareWithParent(IPath key, DeltaDataTree parent, IComparator comparator) {
-		AbstractDataTreeNode[] comparedChildren = compareWithParent(children, key, parent, comparator);
+		return compareWithParent(key, parent, comparator, false);
+	}
+
+	@Override
+	AbstractDataTreeNode compareWithParent(IPath key, DeltaDataTree parent, IComparator comparator, boolean parallel) {
+		AbstractDataTreeNode[] comparedChildren = compareWithParent(children, key, parent, comparator, parallel);
 		Object oldData = parent.getData(key);
 		return new DataTreeNode(key.lastSegment(), new NodeComparison(oldData, oldData, NodeComparison.K_CHANGED, 0), comparedChildren);
 	}
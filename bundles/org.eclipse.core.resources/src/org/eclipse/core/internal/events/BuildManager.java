@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2015 IBM Corporation and others.
+ *  Copyright (c) 2000, 2018 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -121,10 +121,6 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 	 * Caches the IResourceDelta for a pair of trees
 	 */
 	final private DeltaCache deltaCache = new DeltaCache();
-	/**
-	 * Caches the DeltaDataTree used to determine if a build is necessary
-	 */
-	final private DeltaCache deltaTreeCache = new DeltaCache();
 
 	private ILock lock;
 
@@ -213,7 +209,9 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 						currentTree = workspace.getElementTree();
 				}
 				//do the build
+				long start = System.currentTimeMillis();
 				SafeRunner.run(getSafeRunnable(currentBuilder, trigger, args, status, monitor));
+				currentBuilder.setLastBuildDuration(System.currentTimeMillis() - start);
 			} finally {
 				// Re-acquire the WS lock, then release the scheduling rule
 				if (depth >= 0) {
@@ -437,7 +435,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 			} catch (CoreException ex) {
 				status.add(new Status(IStatus.ERROR, ResourcesPlugin.PI_RESOURCES, ex.getMessage(), ex));
 			}
-		}, buildJobGroup);
+		}, this::getLastBuildDuration, buildJobGroup);
 		graphProcessor.processGraphWithParallelJobs();
 		try {
 			Job.getJobManager().join(graphProcessor, monitor);
@@ -529,6 +527,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 						info = new BuilderPersistentInfo(project.getName(), supportsConfigs ? config.getName() : null, builderName, i);
 						info.setLastBuildTree(oldTree);
 						info.setInterestingProjects(((InternalBuilder) builder).getInterestingProjects());
+						info.setLastBuildDuration(((InternalBuilder) builder).getLastBuildDuration());
 					}
 				}
 				if (info != null)
@@ -665,6 +664,37 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		return nameMatch;
 	}
 
+	/**
+	 * Returns the sum of the durations of the last invocation of the builders
+	 * of the given build configuration, or 0 if unknown.
+	 */
+	private long getLastBuildDuration(IBuildConfiguration config) {
+		IProject project = config.getProject();
+		ProjectDescription desc = ((Project) project).internalGetDescription();
+		if (desc == null)
+			return 0;
+		ArrayList<BuilderPersistentInfo> infos = null;
+		try {
+			infos = getBuildersPersistentInfo(project);
+		} catch (CoreException e) {
+			// project is not accessible, so only instantiated builders are known
+		}
+		ICommand[] commands = desc.getBuildSpec(false);
+		long duration = 0;
+		for (int i = 0; i < commands.length; i++) {
+			BuildCommand command = (BuildCommand) commands[i];
+			IncrementalProjectBuilder builder = command.getBuilder(config);
+			if (builder != null) {
+				duration += ((InternalBuilder) builder).getLastBuildDuration();
+			} else if (infos != null) {
+				BuilderPersistentInfo info = getBuilderInfo(infos, command.getBuilderName(), command.supportsConfigs() ? config.getName() : null, i);
+				if (info != null)
+					duration += info.getLastBuildDuration();
+			}
+		}
+		return duration;
+	}
+
 	/**
 	 * Returns a list of BuilderPersistentInfo.
 	 * The list includes entries for all builders that are in the builder spec,
@@ -858,7 +888,6 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 	private void hookEndBuild(int trigger) {
 		builtProjects.clear();
 		deltaCache.flush();
-		deltaTreeCache.flush();
 		//ensure autobuild runs after a clean
 		if (trigger == IncrementalProjectBuilder.CLEAN_BUILD)
 			autoBuildJob.forceBuild();
@@ -929,6 +958,7 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 				if (tree != null)
 					((InternalBuilder) builder).setLastBuiltTree(tree);
 				((InternalBuilder) builder).setInterestingProjects(info.getInterestingProjects());
+				((InternalBuilder) builder).setLastBuildDuration(info.getLastBuildDuration());
 			}
 			// delete the build map if it's now empty
 			if (infos.size() == 0)
@@ -1038,17 +1068,14 @@ public class BuildManager implements ICoreConstants, IManager, ILifecycleListene
 		ElementTree oldTree = builder.getLastBuiltTree();
 		ElementTree newTree = workspace.getElementTree();
 		long start = System.currentTimeMillis();
-		currentDelta = (DeltaDataTree) deltaTreeCache.getDelta(null, oldTree, newTree);
-		if (currentDelta == null) {
-			if (Policy.DEBUG_BUILD_NEEDED) {
-				String message = "Checking if need to build. Starting delta computation between: " + oldTree.toString() + " and " + newTree.toString(); //$NON-NLS-1$ //$NON-NLS-2$
-				Policy.debug(message);
-			}
-			currentDelta = newTree.getDataTree().forwardDeltaWith(oldTree.getDataTree(), ResourceComparator.getBuildComparator());
-			if (Policy.DEBUG_BUILD_NEEDED)
-				Policy.debug("End delta computation. (" + (System.currentTimeMillis() - start) + "ms)."); //$NON-NLS-1$ //$NON-NLS-2$
-			deltaTreeCache.cache(null, oldTree, newTree, currentDelta);
+		if (Policy.DEBUG_BUILD_NEEDED) {
+			String message = "Checking if need to build. Starting delta computation between: " + oldTree.toString() + " and " + newTree.toString(); //$NON-NLS-1$ //$NON-NLS-2$
+			Policy.debug(message);
 		}
+		// the forward delta is shared by all builders checked against the same trees
+		currentDelta = workspace.getDeltaTreeCache().getForwardDelta(oldTree, newTree, ResourceComparator.getBuildComparator());
+		if (Policy.DEBUG_BUILD_NEEDED)
+			Policy.debug("End delta computation. (" + (System.currentTimeMillis() - start) + "ms)."); //$NON-NLS-1$ //$NON-NLS-2$
 
 		//search for the builder's project
 		if (currentDelta.findNodeAt(builder.getProject().getFullPath()) != null) {
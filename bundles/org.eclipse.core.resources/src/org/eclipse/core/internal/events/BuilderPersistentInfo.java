@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -23,6 +23,11 @@ public class BuilderPersistentInfo {
 	 */
 	private int buildSpecIndex = -1;
 	protected IProject[] interestingProjects = ICoreConstants.EMPTY_PROJECT_ARRAY;
+	/**
+	 * The duration in milliseconds of the last invocation of this builder,
+	 * or 0 if unknown.
+	 */
+	protected long lastBuildDuration;
 	protected ElementTree lastBuildTree;
 	protected String projectName;
 	protected String configName;
@@ -59,6 +64,10 @@ public class BuilderPersistentInfo {
 		return interestingProjects;
 	}
 
+	public long getLastBuildDuration() {
+		return lastBuildDuration;
+	}
+
 	public ElementTree getLastBuiltTree() {
 		return lastBuildTree;
 	}
@@ -75,6 +84,10 @@ public class BuilderPersistentInfo {
 		interestingProjects = projects;
 	}
 
+	public void setLastBuildDuration(long duration) {
+		lastBuildDuration = duration;
+	}
+
 	public void setLastBuildTree(ElementTree tree) {
 		lastBuildTree = tree;
 	}
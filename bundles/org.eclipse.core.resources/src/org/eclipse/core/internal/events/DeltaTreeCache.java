@@ -0,0 +1,140 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.events;
+
+import java.lang.ref.SoftReference;
+import java.lang.ref.WeakReference;
+import java.util.Iterator;
+import java.util.LinkedList;
+import org.eclipse.core.internal.dtree.DeltaDataTree;
+import org.eclipse.core.internal.dtree.IComparator;
+import org.eclipse.core.internal.watson.ElementTree;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Remembers the delta trees recently computed between pairs of element trees,
+ * so that notifications, builders and the build manager asking for the same
+ * comparison share one computation.
+ * <p>
+ * The element trees are only weakly referenced, and the delta trees are softly
+ * referenced and limited in number, so the cache never keeps trees alive that
+ * are otherwise discarded. The new tree of a comparison is made immutable, so
+ * that the remembered delta stays valid.
+ * </p>
+ */
+public class DeltaTreeCache {
+	private static final class Entry {
+		final IComparator comparator;
+		final SoftReference<DeltaDataTree> delta;
+		final WeakReference<ElementTree> newTree;
+		final WeakReference<ElementTree> oldTree;
+		/** The root of a comparison, or <code>null</code> for a forward delta */
+		final IPath root;
+
+		Entry(ElementTree oldTree, ElementTree newTree, IComparator comparator, IPath root, DeltaDataTree delta) {
+			this.oldTree = new WeakReference<>(oldTree);
+			this.newTree = new WeakReference<>(newTree);
+			this.comparator = comparator;
+			this.root = root;
+			this.delta = new SoftReference<>(delta);
+		}
+
+		boolean isCleared() {
+			return oldTree.get() == null || newTree.get() == null || delta.get() == null;
+		}
+
+		boolean matches(ElementTree anOldTree, ElementTree aNewTree, IComparator aComparator, IPath aRoot) {
+			if (oldTree.get() != anOldTree || newTree.get() != aNewTree || comparator != aComparator)
+				return false;
+			return root == null ? aRoot == null : root.equals(aRoot);
+		}
+	}
+
+	private static final int MAX_ENTRIES = 8;
+
+	/**
+	 * The remembered deltas, most recently used first.
+	 */
+	private final LinkedList<Entry> entries = new LinkedList<>();
+
+	/**
+	 * Forgets all remembered deltas.
+	 */
+	public synchronized void flush() {
+		entries.clear();
+	}
+
+	/**
+	 * Returns the comparison of the given trees starting at the given root, as
+	 * returned by <code>DataTree.compareWith</code> and converted with
+	 * <code>DeltaDataTree.asReverseComparisonTree</code>. The subtrees of the
+	 * children of the root are compared in parallel. The returned tree must not
+	 * be modified.
+	 */
+	public DeltaDataTree getComparison(ElementTree oldTree, ElementTree newTree, IComparator comparator, IPath root) {
+		newTree.immutable();
+		DeltaDataTree delta = lookup(oldTree, newTree, comparator, root);
+		if (delta != null)
+			return delta;
+		// both trees are immutable, so their subtrees can be compared concurrently
+		if (Path.ROOT.equals(root))
+			delta = newTree.getDataTree().compareWith(oldTree.getDataTree(), comparator, true);
+		else
+			delta = newTree.getDataTree().compareWith(oldTree.getDataTree(), comparator, root, true);
+		delta = delta.asReverseComparisonTree(comparator);
+		remember(new Entry(oldTree, newTree, comparator, root, delta));
+		return delta;
+	}
+
+	/**
+	 * Returns the forward delta of the given trees, as returned by
+	 * <code>DataTree.forwardDeltaWith</code>. The returned tree must not be
+	 * modified.
+	 */
+	public DeltaDataTree getForwardDelta(ElementTree oldTree, ElementTree newTree, IComparator comparator) {
+		newTree.immutable();
+		DeltaDataTree delta = lookup(oldTree, newTree, comparator, null);
+		if (delta != null)
+			return delta;
+		delta = newTree.getDataTree().forwardDeltaWith(oldTree.getDataTree(), comparator);
+		remember(new Entry(oldTree, newTree, comparator, null, delta));
+		return delta;
+	}
+
+	private synchronized DeltaDataTree lookup(ElementTree oldTree, ElementTree newTree, IComparator comparator, IPath root) {
+		for (Iterator<Entry> i = entries.iterator(); i.hasNext();) {
+			Entry entry = i.next();
+			if (entry.isCleared()) {
+				i.remove();
+				continue;
+			}
+			if (!entry.matches(oldTree, newTree, comparator, root))
+				continue;
+			DeltaDataTree delta = entry.delta.get();
+			if (delta == null) {
+				i.remove();
+				return null;
+			}
+			// move to the front
+			i.remove();
+			entries.addFirst(entry);
+			return delta;
+		}
+		return null;
+	}
+
+	private synchronized void remember(Entry entry) {
+		entries.addFirst(entry);
+		while (entries.size() > MAX_ENTRIES)
+			entries.removeLast();
+	}
+}
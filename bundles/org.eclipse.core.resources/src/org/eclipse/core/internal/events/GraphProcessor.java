@@ -12,18 +12,28 @@ package org.eclipse.core.internal.events;
 
 import java.util.*;
 import java.util.function.BiConsumer;
+import java.util.function.ToLongFunction;
 import org.eclipse.core.internal.resources.ComputeProjectOrder;
 import org.eclipse.core.internal.resources.ComputeProjectOrder.Digraph;
 import org.eclipse.core.internal.resources.ComputeProjectOrder.Digraph.Edge;
+import org.eclipse.core.internal.resources.ComputeProjectOrder.Digraph.Vertex;
 import org.eclipse.core.internal.resources.ComputeProjectOrder.VertexOrder;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.runtime.jobs.JobGroup;
 
 /**
- *
+ * Processes the vertexes of a graph in parallel jobs, each vertex once all the
+ * vertexes with an edge to it are processed.
+ * <p>
+ * The number of unprocessed predecessors of each vertex is counted down as the
+ * predecessors complete, so that finding the vertexes ready to be processed
+ * does not require scanning the edges. Ready vertexes are started in order of
+ * decreasing cost of their longest path to the end of the graph, so that the
+ * vertexes on the critical path are not queued behind cheaper ones.
+ * </p>
  */
-class GraphProcessor<T> {
+public class GraphProcessor<T> {
 
 	final private Digraph<T> graph;
 	final private Set<T> toProcess;
@@ -32,8 +42,25 @@ class GraphProcessor<T> {
 	final private VertexOrder<T> sequentialOrder;
 	final private JobGroup buildJobGroup;
 	final BiConsumer<T, GraphProcessor<T>> processor;
-
-	GraphProcessor(Digraph<T> graph1, Class<T> clazz, final BiConsumer<T, GraphProcessor<T>> processor, JobGroup buildJobGroup) {
+	/**
+	 * The number of edges from unprocessed vertexes to each vertex.
+	 */
+	final private Map<T, Integer> indegrees;
+	/**
+	 * The cost of the longest path from each vertex to the end of the graph,
+	 * including the vertex itself.
+	 */
+	final private Map<T, Long> pathCosts;
+	/**
+	 * The vertexes that are ready to be processed, the most critical first.
+	 */
+	final private PriorityQueue<T> ready;
+
+	/**
+	 * @param cost the estimated cost of processing a vertex, where values less
+	 * than 1 are counted as 1 so that longer paths of unknown cost come first.
+	 */
+	public GraphProcessor(Digraph<T> graph1, Class<T> clazz, final BiConsumer<T, GraphProcessor<T>> processor, ToLongFunction<T> cost, JobGroup buildJobGroup) {
 		this.graph = graph1;
 		this.processor = processor;
 		this.buildJobGroup = buildJobGroup;
@@ -41,6 +68,47 @@ class GraphProcessor<T> {
 		processing = new HashSet<>();
 		processed = new HashSet<>();
 		sequentialOrder = ComputeProjectOrder.computeVertexOrder(graph, clazz);
+		indegrees = new HashMap<>();
+		for (Edge<T> edge : graph.getEdges())
+			indegrees.merge(edge.to, 1, Integer::sum);
+		pathCosts = computePathCosts(cost);
+		Map<T, Integer> sequentialIndexes = new HashMap<>();
+		for (int i = 0; i < sequentialOrder.vertexes.length; i++)
+			sequentialIndexes.put(sequentialOrder.vertexes[i], i);
+		Comparator<T> byPathCost = Comparator.comparingLong(pathCosts::get);
+		ready = new PriorityQueue<>(byPathCost.reversed().thenComparing(sequentialIndexes::get));
+		for (T item : toProcess)
+			if (!indegrees.containsKey(item))
+				ready.add(item);
+	}
+
+	/**
+	 * Returns the cost of the longest path from each vertex to the end of the
+	 * graph. Edges closing a cycle are ignored.
+	 */
+	private Map<T, Long> computePathCosts(ToLongFunction<T> cost) {
+		Map<T, Long> result = new HashMap<>();
+		Set<T> visiting = new HashSet<>();
+		for (T item : sequentialOrder.vertexes)
+			computePathCost(item, cost, visiting, result);
+		return result;
+	}
+
+	private long computePathCost(T item, ToLongFunction<T> cost, Set<T> visiting, Map<T, Long> result) {
+		Long known = result.get(item);
+		if (known != null)
+			return known.longValue();
+		visiting.add(item);
+		long longest = 0;
+		for (Vertex<T> successor : graph.vertexMap.get(item).adjacent) {
+			if (visiting.contains(successor.id))
+				continue;
+			longest = Math.max(longest, computePathCost(successor.id, cost, visiting, result));
+		}
+		visiting.remove(item);
+		long total = Math.max(1, cost.applyAsLong(item)) + longest;
+		result.put(item, total);
+		return total;
 	}
 
 	private boolean complete() {
@@ -63,35 +131,27 @@ class GraphProcessor<T> {
 			throw new IllegalArgumentException();
 		}
 		processed.add(item);
+		for (Vertex<T> successor : graph.vertexMap.get(item).adjacent) {
+			Integer remaining = indegrees.merge(successor.id, -1, Integer::sum);
+			// vertexes started to break a cycle may still have unprocessed predecessors
+			if (remaining.intValue() == 0 && toProcess.contains(successor.id))
+				ready.add(successor.id);
+		}
 	}
 
-	private Set<T> computeReadyVertexes() {
-		Set<T> res = new HashSet<>(toProcess);
-		for (T item : toProcess) {
-			for (Edge<T> edge : graph.getEdges()) {
-				if (edge.to == item && !processed.contains(edge.from)) {
-					res.remove(item);
-				}
+	private void breakCycle() {
+		for (T id : sequentialOrder.vertexes) {
+			if (toProcess.contains(id)) {
+				ready.add(id);
+				return;
 			}
 		}
-		if (res.isEmpty() && !isProcessing()) { // nothing ready, nothing running: a cycle!
-			for (T id : sequentialOrder.vertexes) {
-				if (!isProcessed(id)) {
-					return Collections.singleton(id);
-				}
-			}
-		}
-		return res;
 	}
 
 	private boolean isProcessing() {
 		return !processing.isEmpty();
 	}
 
-	private boolean isProcessed(T item) {
-		return processed.contains(item);
-	}
-
 	public T[] getSequentialOrder() {
 		return this.sequentialOrder.vertexes;
 	}
@@ -99,8 +159,13 @@ class GraphProcessor<T> {
 	public synchronized void processGraphWithParallelJobs() {
 		if (!complete()) {
 			if (!allTriggered()) {
-				Set<T> readyToBuild = computeReadyVertexes();
-				readyToBuild.forEach(item -> triggerJob(item));
+				if (ready.isEmpty() && !isProcessing()) // nothing ready, nothing running: a cycle!
+					breakCycle();
+				// keep the remaining ready vertexes queued, so that the most critical
+				// one is started whenever a job of the group completes
+				int maxThreads = buildJobGroup.getMaxThreads();
+				while (!ready.isEmpty() && (maxThreads <= 0 || processing.size() < maxThreads))
+					triggerJob(ready.poll());
 			}
 		}
 	}
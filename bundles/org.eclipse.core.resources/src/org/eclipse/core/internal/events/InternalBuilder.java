@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -37,6 +37,11 @@ public abstract class InternalBuilder {
 	 * Human readable builder name for progress reporting.
 	 */
 	private String label;
+	/**
+	 * The duration in milliseconds of the last invocation of this builder,
+	 * or 0 if unknown.
+	 */
+	private long lastBuildDuration;
 	private String natureId;
 	private ElementTree oldState;
 	/**
@@ -127,6 +132,10 @@ public abstract class InternalBuilder {
 		return label;
 	}
 
+	final long getLastBuildDuration() {
+		return lastBuildDuration;
+	}
+
 	final ElementTree getLastBuiltTree() {
 		return oldState;
 	}
@@ -194,6 +203,10 @@ public abstract class InternalBuilder {
 		this.label = value;
 	}
 
+	final void setLastBuildDuration(long value) {
+		lastBuildDuration = value;
+	}
+
 	final void setLastBuiltTree(ElementTree value) {
 		oldState = value;
 	}
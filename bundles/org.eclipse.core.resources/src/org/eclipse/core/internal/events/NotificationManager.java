@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,7 @@
 package org.eclipse.core.internal.events;
 
 import java.util.*;
+import java.util.concurrent.*;
 import org.eclipse.core.internal.events.ResourceChangeListenerList.ListenerEntry;
 import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.internal.utils.Messages;
@@ -46,7 +47,30 @@ public class NotificationManager implements IManager, ILifecycleListener {
 		}
 	}
 
+	/**
+	 * A thread notifying concurrent listeners. Such threads act as if they
+	 * owned the tree lock of the notifying thread.
+	 */
+	static final class ListenerThread extends Thread {
+		ListenerThread(Runnable runnable) {
+			super(runnable, "Resource change notification"); //$NON-NLS-1$
+			setDaemon(true);
+		}
+	}
+
 	private static final long NOTIFICATION_DELAY = 1500;
+
+	/**
+	 * The maximum number of threads notifying concurrent listeners.
+	 */
+	private static final int MAX_LISTENER_THREADS = Math.max(2, Math.min(8, Runtime.getRuntime().availableProcessors()));
+
+	private static final ThreadPoolExecutor listenerExecutor;
+	static {
+		listenerExecutor = new ThreadPoolExecutor(MAX_LISTENER_THREADS, MAX_LISTENER_THREADS, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), ListenerThread::new);
+		listenerExecutor.allowCoreThreadTimeOut(true);
+	}
+
 	/**
 	 * The Threads that are currently avoiding notification.
 	 */
@@ -241,6 +265,18 @@ public class NotificationManager implements IManager, ILifecycleListener {
 		return listeners.getListeners();
 	}
 
+	/**
+	 * Adds the trees the next deltas will be computed from to the given list.
+	 */
+	public void collectRetainedTrees(List<ElementTree> trees) {
+		if (lastPostChangeTree != null)
+			trees.add(lastPostChangeTree);
+		if (lastPostBuildTree != null)
+			trees.add(lastPostBuildTree);
+		if (lastDeltaState != null)
+			trees.add(lastDeltaState);
+	}
+
 	@Override
 	public void handleEvent(LifecycleEvent event) {
 		switch (event.kind) {
@@ -273,40 +309,92 @@ public class NotificationManager implements IManager, ILifecycleListener {
 		}
 	}
 
+	/**
+	 * Returns whether the current thread is notifying concurrent listeners.
+	 */
+	public static boolean isListenerThread() {
+		return Thread.currentThread() instanceof ListenerThread;
+	}
+
 	private void notify(ResourceChangeListenerList.ListenerEntry[] resourceListeners, final ResourceChangeEvent event, final boolean lockTree) {
 		int type = event.getType();
 		boolean oldLock = workspace.isTreeLocked();
 		if (lockTree)
 			workspace.setTreeLocked(true);
 		try {
+			// listeners that only read the delta of a locked tree are notified in parallel
+			boolean concurrent = lockTree && type == IResourceChangeEvent.POST_CHANGE;
+			List<Future<?>> pending = null;
 			for (ListenerEntry resourceListener : resourceListeners) {
 				if ((type & resourceListener.eventMask) != 0) {
 					final IResourceChangeListener listener = resourceListener.listener;
+					if (concurrent && listener instanceof IConcurrentResourceChangeListener) {
+						if (pending == null)
+							pending = new ArrayList<>();
+						pending.add(listenerExecutor.submit(() -> notifyConcurrently(listener, event)));
+						continue;
+					}
 					if (ResourceStats.TRACE_LISTENERS)
 						ResourceStats.startNotify(listener);
-					SafeRunner.run(new ISafeRunnable() {
-						@Override
-						public void handleException(Throwable e) {
-							// exception logged in SafeRunner#run
-						}
-
-						@Override
-						public void run() throws Exception {
-							if (Policy.DEBUG_NOTIFICATIONS)
-								Policy.debug("Notifying " + listener.getClass().getName() + " about resource change event" + event.toDebugString()); //$NON-NLS-1$ //$NON-NLS-2$
-							listener.resourceChanged(event);
-						}
-					});
+					notify(listener, event);
 					if (ResourceStats.TRACE_LISTENERS)
 						ResourceStats.endNotify();
 				}
 			}
+			if (pending != null)
+				waitFor(pending);
 		} finally {
 			if (lockTree)
 				workspace.setTreeLocked(oldLock);
 		}
 	}
 
+	private void notify(final IResourceChangeListener listener, final ResourceChangeEvent event) {
+		SafeRunner.run(new ISafeRunnable() {
+			@Override
+			public void handleException(Throwable e) {
+				// exception logged in SafeRunner#run
+			}
+
+			@Override
+			public void run() throws Exception {
+				if (Policy.DEBUG_NOTIFICATIONS)
+					Policy.debug("Notifying " + listener.getClass().getName() + " about resource change event" + event.toDebugString()); //$NON-NLS-1$ //$NON-NLS-2$
+				listener.resourceChanged(event);
+			}
+		});
+	}
+
+	private void notifyConcurrently(IResourceChangeListener listener, ResourceChangeEvent event) {
+		PerformanceStats stats = ResourceStats.TRACE_LISTENERS ? ResourceStats.startConcurrentNotify(listener) : null;
+		notify(listener, event);
+		if (stats != null)
+			ResourceStats.endConcurrentNotify(stats);
+	}
+
+	/**
+	 * Waits for all concurrent listeners, so that none of them sees the
+	 * workspace after the tree is unlocked.
+	 */
+	private void waitFor(List<Future<?>> pending) {
+		boolean interrupted = false;
+		for (Future<?> future : pending) {
+			while (true) {
+				try {
+					future.get();
+					break;
+				} catch (InterruptedException e) {
+					interrupted = true;
+				} catch (ExecutionException e) {
+					// cannot happen, exceptions are handled by SafeRunner
+					break;
+				}
+			}
+		}
+		if (interrupted)
+			Thread.currentThread().interrupt();
+	}
+
 	public void removeListener(IResourceChangeListener listener) {
 		listeners.remove(listener);
 		if (ResourceStats.TRACE_LISTENERS)
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2011 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -40,14 +40,7 @@ public class ResourceDeltaFactory {
 	public static ResourceDelta computeDelta(Workspace workspace, ElementTree oldTree, ElementTree newTree, IPath root, long markerGeneration) {
 		//compute the underlying delta tree.
 		ResourceComparator comparator = markerGeneration >= 0 ? ResourceComparator.getNotificationComparator() : ResourceComparator.getBuildComparator();
-		newTree.immutable();
-		DeltaDataTree delta = null;
-		if (Path.ROOT.equals(root))
-			delta = newTree.getDataTree().compareWith(oldTree.getDataTree(), comparator);
-		else
-			delta = newTree.getDataTree().compareWith(oldTree.getDataTree(), comparator, root);
-
-		delta = delta.asReverseComparisonTree(comparator);
+		DeltaDataTree delta = workspace.getDeltaTreeCache().getComparison(oldTree, newTree, comparator, root);
 		IPath pathInTree = root.isRoot() ? Path.ROOT : root;
 		IPath pathInDelta = Path.ROOT;
 
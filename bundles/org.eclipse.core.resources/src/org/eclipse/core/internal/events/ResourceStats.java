@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2005 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -46,6 +46,15 @@ public class ResourceStats {
 		currentStats = null;
 	}
 
+	/**
+	 * Ends timing a listener that was notified concurrently with others.
+	 *
+	 * @see #startConcurrentNotify(IResourceChangeListener)
+	 */
+	public static void endConcurrentNotify(PerformanceStats stats) {
+		stats.endRun();
+	}
+
 	public static void endSave() {
 		if (currentStats != null)
 			currentStats.endRun();
@@ -84,6 +93,19 @@ public class ResourceStats {
 		currentStats.startRun();
 	}
 
+	/**
+	 * Starts timing a listener that is notified concurrently with others.
+	 * Unlike {@link #startNotify(IResourceChangeListener)}, this may be
+	 * called from several threads at once.
+	 *
+	 * @return the stats to pass to {@link #endConcurrentNotify(PerformanceStats)}
+	 */
+	public static PerformanceStats startConcurrentNotify(IResourceChangeListener listener) {
+		PerformanceStats stats = PerformanceStats.getStats(EVENT_LISTENERS, listener);
+		stats.startRun();
+		return stats;
+	}
+
 	public static void startSnapshot() {
 		currentStats = PerformanceStats.getStats(EVENT_SNAPSHOT, ResourcesPlugin.getWorkspace());
 		currentStats.startRun();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2010 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,22 +10,57 @@
  *******************************************************************************/
 package org.eclipse.core.internal.localstore;
 
-import java.io.InputStream;
-import java.util.Set;
+import java.io.*;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.InflaterInputStream;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.internal.resources.ResourceException;
+import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.internal.utils.UniversalUniqueIdentifier;
+import org.eclipse.core.resources.IResourceStatus;
 import org.eclipse.core.runtime.Assert;
 import org.eclipse.core.runtime.CoreException;
+import org.eclipse.osgi.util.NLS;
 
 /**
  * Blob store which maps UUIDs to blobs on disk. The UUID is mapped
  * to a file in the file-system and the blob is the file contents. For scalability,
  * the blobs are split among 255 directories with the names 00 to FF.
+ * <p>
+ * When content addressing is enabled, the UUID of a new blob is derived from
+ * a hash of its contents instead of being generated, so that identical contents
+ * are stored only once. Such blobs may be shared by several history states, and
+ * are only deleted once the store knows that nothing refers to them any longer
+ * (see {@link #setReferences(Map)}). Content addressed blobs can optionally be
+ * stored compressed.
+ * </p>
  */
 public class BlobStore {
+	/** The UUID version of a blob named after its contents. */
+	private static final int CONTENT_VERSION = 0xC;
+	/** The UUID version of a compressed blob named after its contents. */
+	private static final int COMPRESSED_CONTENT_VERSION = 0xD;
+	private static final String CONTENT_DIGEST = "SHA-256"; //$NON-NLS-1$
+	private static final String TEMP_SUFFIX = ".tmp"; //$NON-NLS-1$
+
 	protected IFileStore localStore;
 
+	/** Whether new blobs are named after their contents. */
+	private boolean contentAddressed;
+
+	/** Whether new content addressed blobs are compressed. */
+	private boolean compressed;
+
+	/**
+	 * The number of history states referring to each content addressed blob,
+	 * or <code>null</code> if the references are not known.
+	 */
+	private Map<UniversalUniqueIdentifier, Integer> references;
+
 	/** Limits the range of directories' names. */
 	protected byte mask;
 
@@ -46,7 +81,33 @@ public class BlobStore {
 		mask = (byte) (limit - 1);
 	}
 
+	/**
+	 * Creates a store that may name new blobs after their contents.
+	 *
+	 * @see #BlobStore(IFileStore, int)
+	 */
+	public BlobStore(IFileStore store, int limit, boolean contentAddressed, boolean compressed) {
+		this(store, limit);
+		this.contentAddressed = contentAddressed;
+		this.compressed = compressed;
+	}
+
+	/**
+	 * Returns whether the given blob UUID was derived from the blob contents.
+	 */
+	public static boolean isContentAddressed(UniversalUniqueIdentifier uuid) {
+		int version = getVersion(uuid);
+		return version == CONTENT_VERSION || version == COMPRESSED_CONTENT_VERSION;
+	}
+
+	private static int getVersion(UniversalUniqueIdentifier uuid) {
+		byte versionByte = uuid.toBytes()[UniversalUniqueIdentifier.TIME_HIGH_AND_VERSION];
+		return (versionByte & UniversalUniqueIdentifier.HIGH_NIBBLE_MASK) >>> UniversalUniqueIdentifier.SHIFT_NIBBLE;
+	}
+
 	public UniversalUniqueIdentifier addBlob(IFileStore target, boolean moveContents) throws CoreException {
+		if (contentAddressed)
+			return addContentBlob(target, moveContents);
 		UniversalUniqueIdentifier uuid = new UniversalUniqueIdentifier();
 		folderFor(uuid).mkdir(EFS.NONE, null);
 		IFileStore destination = fileFor(uuid);
@@ -57,6 +118,104 @@ public class BlobStore {
 		return uuid;
 	}
 
+	/**
+	 * Adds a blob named after the hash of its contents. If the store already
+	 * contains a blob with the same contents, that blob is reused.
+	 */
+	private UniversalUniqueIdentifier addContentBlob(IFileStore target, boolean moveContents) throws CoreException {
+		MessageDigest digest;
+		try {
+			digest = MessageDigest.getInstance(CONTENT_DIGEST);
+		} catch (NoSuchAlgorithmException e) {
+			// cannot happen, every Java platform supports SHA-256
+			throw new IllegalStateException(e);
+		}
+		// hash the contents while copying them, so that the file is only read once
+		IFileStore temp = localStore.getChild(new UniversalUniqueIdentifier().toString() + TEMP_SUFFIX);
+		try {
+			try (InputStream in = target.openInputStream(EFS.NONE, null); OutputStream out = openBlobOutputStream(temp)) {
+				byte[] buffer = new byte[8192];
+				int read;
+				while ((read = in.read(buffer)) >= 0) {
+					digest.update(buffer, 0, read);
+					out.write(buffer, 0, read);
+				}
+			} catch (IOException e) {
+				String message = NLS.bind(Messages.localstore_couldNotWrite, temp.toString());
+				throw new ResourceException(IResourceStatus.FAILED_WRITE_LOCAL, null, message, e);
+			}
+			UniversalUniqueIdentifier uuid = contentKey(digest.digest());
+			IFileStore destination = fileFor(uuid);
+			if (!destination.fetchInfo().exists()) {
+				folderFor(uuid).mkdir(EFS.NONE, null);
+				temp.move(destination, EFS.NONE, null);
+			}
+			if (moveContents)
+				target.delete(EFS.NONE, null);
+			return uuid;
+		} finally {
+			try {
+				temp.delete(EFS.NONE, null);
+			} catch (CoreException e) {
+				//ignore
+			}
+		}
+	}
+
+	private OutputStream openBlobOutputStream(IFileStore blobFile) throws CoreException {
+		OutputStream out = new BufferedOutputStream(blobFile.openOutputStream(EFS.NONE, null));
+		return compressed ? new DeflaterOutputStream(out) : out;
+	}
+
+	/**
+	 * Returns the UUID of a blob with the given content hash.
+	 */
+	private UniversalUniqueIdentifier contentKey(byte[] hash) {
+		byte[] bytes = Arrays.copyOf(hash, UniversalUniqueIdentifier.BYTES_SIZE);
+		int version = compressed ? COMPRESSED_CONTENT_VERSION : CONTENT_VERSION;
+		int index = UniversalUniqueIdentifier.TIME_HIGH_AND_VERSION;
+		bytes[index] = (byte) ((bytes[index] & UniversalUniqueIdentifier.LOW_NIBBLE_MASK) | (version << UniversalUniqueIdentifier.SHIFT_NIBBLE));
+		return new UniversalUniqueIdentifier(bytes);
+	}
+
+	/**
+	 * Records one more history state referring to the given blob.
+	 */
+	public void addReference(UniversalUniqueIdentifier uuid) {
+		if (references != null && isContentAddressed(uuid))
+			references.merge(uuid, 1, Integer::sum);
+	}
+
+	/**
+	 * Records that one history state referring to the given blob was removed.
+	 */
+	public void removeReference(UniversalUniqueIdentifier uuid) {
+		if (references != null && isContentAddressed(uuid))
+			references.computeIfPresent(uuid, (key, count) -> count > 1 ? count - 1 : null);
+	}
+
+	/**
+	 * Returns whether the references to content addressed blobs are known.
+	 */
+	public boolean hasReferences() {
+		return references != null;
+	}
+
+	/**
+	 * Sets the number of history states referring to each content addressed
+	 * blob, or <code>null</code> if the references are no longer known.
+	 */
+	public void setReferences(Map<UniversalUniqueIdentifier, Integer> references) {
+		this.references = references;
+	}
+
+	/**
+	 * Returns whether new blobs are named after their contents.
+	 */
+	public boolean isContentAddressed() {
+		return contentAddressed;
+	}
+
 	/**
 	 * @see UniversalUniqueIdentifier#appendByteString(StringBuilder, byte)
 	 */
@@ -97,11 +256,45 @@ public class BlobStore {
 	}
 
 	/**
-	 * Delete all of the blobs in the given set.
+	 * Delete all of the blobs in the given set that are no longer referenced.
+	 * Deleted blobs and blobs that are known to be still in use are removed
+	 * from the set. Content addressed blobs whose references are not known
+	 * are left in the set.
 	 */
 	public void deleteBlobs(Set<UniversalUniqueIdentifier> set) {
-		for (UniversalUniqueIdentifier id : set)
-			deleteBlob(id);
+		for (Iterator<UniversalUniqueIdentifier> i = set.iterator(); i.hasNext();) {
+			UniversalUniqueIdentifier id = i.next();
+			if (isContentAddressed(id)) {
+				if (references == null)
+					continue;
+				if (!references.containsKey(id))
+					deleteBlob(id);
+			} else
+				deleteBlob(id);
+			i.remove();
+		}
+	}
+
+	/**
+	 * Deletes the temporary files left behind by content addressed blobs whose
+	 * writing was interrupted. Must not be called while a blob is being added.
+	 */
+	public void deleteTemporaryFiles() {
+		String[] names;
+		try {
+			names = localStore.childNames(EFS.NONE, null);
+		} catch (CoreException e) {
+			return;
+		}
+		for (String name : names) {
+			if (!name.endsWith(TEMP_SUFFIX))
+				continue;
+			try {
+				localStore.getChild(name).delete(EFS.NONE, null);
+			} catch (CoreException e) {
+				//ignore
+			}
+		}
 	}
 
 	public IFileStore fileFor(UniversalUniqueIdentifier uuid) {
@@ -121,7 +314,8 @@ public class BlobStore {
 
 	public InputStream getBlob(UniversalUniqueIdentifier uuid) throws CoreException {
 		IFileStore blobFile = fileFor(uuid);
-		return blobFile.openInputStream(EFS.NONE, null);
+		InputStream in = blobFile.openInputStream(EFS.NONE, null);
+		return getVersion(uuid) == COMPRESSED_CONTENT_VERSION ? new InflaterInputStream(in) : in;
 	}
 
 	/**
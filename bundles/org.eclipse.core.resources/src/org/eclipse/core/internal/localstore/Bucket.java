@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,6 +17,7 @@ import java.util.*;
 import org.eclipse.core.internal.resources.ResourceException;
 import org.eclipse.core.internal.resources.ResourceStatus;
 import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.internal.utils.Policy;
 import org.eclipse.core.resources.IResourceStatus;
 import org.eclipse.core.runtime.*;
 import org.eclipse.osgi.util.NLS;
@@ -24,6 +25,22 @@ import org.eclipse.osgi.util.NLS;
 /**
  * A bucket is a persistent dictionary having paths as keys. Values are determined
  * by subclasses.
+ * <p>
+ * Index files are written as a table sorted by path, preceded by the offsets
+ * of its entries:
+ * <pre>
+ * FILE ::= VERSION_ID ENTRY_COUNT OFFSET* ENTRY*
+ * ENTRY_COUNT ::= int
+ * OFFSET ::= int (position of the entry in the file)
+ * ENTRY ::= PATH VALUE
+ * PATH ::= string (does not include project name)
+ * </pre>
+ * Loading such a file only reads its bytes; single entries are found by a
+ * binary search on the table, and the entries are only decoded all at once
+ * when the bucket is visited or changed. Files in the stream format of a
+ * previous version (a sequence of entries without offsets) are still read,
+ * and are converted when the bucket is next saved.
+ * </p>
  *
  *  @since 3.1
  */
@@ -148,6 +165,19 @@ public abstract class Bucket {
 	 * the value is the history entry data (UUID,timestamp) pairs.
 	 */
 	private final Map<String, Object> entries;
+	/**
+	 * The contents of the loaded index file while its entries have not been
+	 * decoded into {@link #entries}, <code>null</code> otherwise.
+	 */
+	private byte[] table;
+	/**
+	 * The number of entries in {@link #table}.
+	 */
+	private int tableCount;
+	/**
+	 * The version of the index file loaded last.
+	 */
+	private byte loadedVersion;
 	/**
 	 * The file system location of this bucket index file.
 	 */
@@ -174,6 +204,7 @@ public abstract class Bucket {
 	 * @exception CoreException
 	 */
 	public final int accept(Visitor visitor, IPath filter, int depth) throws CoreException {
+		decodeTable();
 		if (entries.isEmpty())
 			return Visitor.CONTINUE;
 		try {
@@ -222,6 +253,26 @@ public abstract class Bucket {
 		cleanUp(toDelete.getParentFile());
 	}
 
+	/**
+	 * Returns the index in the table of the entry with the given key, or
+	 * <code>-1</code> if there is none.
+	 */
+	private int binarySearch(String key) throws IOException {
+		int low = 0;
+		int high = tableCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int comparison = readTableKey(mid).readUTF().compareTo(key);
+			if (comparison < 0)
+				low = mid + 1;
+			else if (comparison > 0)
+				high = mid - 1;
+			else
+				return mid;
+		}
+		return -1;
+	}
+
 	/**
 	 * Factory method for creating entries. Subclasses to override.
 	 */
@@ -234,6 +285,7 @@ public abstract class Bucket {
 	public void flush() {
 		projectName = null;
 		location = null;
+		table = null;
 		entries.clear();
 		needSaving = false;
 	}
@@ -242,14 +294,43 @@ public abstract class Bucket {
 	 * Returns how many entries there are in this bucket.
 	 */
 	public final int getEntryCount() {
-		return entries.size();
+		return table == null ? entries.size() : tableCount;
 	}
 
 	/**
 	 * Returns the value for entry corresponding to the given path (null if none found).
+	 * <p>
+	 * Entries of a loaded table are decoded on their own, so concurrent
+	 * lookups are safe as long as the bucket is not changed.
+	 * </p>
 	 */
 	public final Object getEntryValue(String path) {
-		return entries.get(path);
+		byte[] currentTable = table;
+		if (currentTable == null)
+			return entries.get(path);
+		String key = toEntryKey(path);
+		if (key == null)
+			return null;
+		try {
+			int index = binarySearch(key);
+			if (index < 0)
+				return null;
+			DataInputStream source = readTableKey(index);
+			source.readUTF();
+			return readEntryValue(source);
+		} catch (IOException | CoreException e) {
+			String message = NLS.bind(Messages.resources_readMeta, location.getAbsolutePath());
+			Policy.log(new ResourceStatus(IResourceStatus.FAILED_READ_METADATA, null, message, e));
+			return null;
+		}
+	}
+
+	/**
+	 * Returns the version of the index file loaded last. Subclasses may use it
+	 * to tell the formats of previous versions apart when reading entries.
+	 */
+	protected final byte getLoadedVersion() {
+		return loadedVersion;
 	}
 
 	/**
@@ -262,6 +343,41 @@ public abstract class Bucket {
 	 */
 	protected abstract byte getVersion();
 
+	/**
+	 * Returns whether index files of the given version are in the stream
+	 * format that preceded the table format, and can still be read. Subclasses
+	 * to override.
+	 */
+	protected boolean isStreamVersion(byte version) {
+		return false;
+	}
+
+	/**
+	 * Decodes all entries of the loaded table, so they can be visited or changed.
+	 * A table that cannot be decoded is kept, so that it fails every attempt to
+	 * change it instead of being replaced by the changed entries alone.
+	 */
+	private void decodeTable() throws CoreException {
+		if (table == null)
+			return;
+		try {
+			for (int i = 0; i < tableCount; i++) {
+				DataInputStream source = readTableKey(i);
+				String key = readEntryKey(source);
+				entries.put(key, readEntryValue(source));
+			}
+		} catch (IOException ioe) {
+			entries.clear();
+			String message = NLS.bind(Messages.resources_readMeta, location.getAbsolutePath());
+			ResourceStatus status = new ResourceStatus(IResourceStatus.FAILED_READ_METADATA, null, message, ioe);
+			throw new ResourceException(status);
+		} catch (CoreException e) {
+			entries.clear();
+			throw e;
+		}
+		table = null;
+	}
+
 	/**
 	 * Returns the file name to be used to store bucket version information
 	 */
@@ -291,16 +407,34 @@ public abstract class Bucket {
 			this.projectName = newProjectName;
 			this.location = new File(baseLocation, getIndexFileName());
 			this.entries.clear();
+			this.table = null;
+			this.loadedVersion = getVersion();
 			if (!this.location.isFile())
 				return;
-			try (DataInputStream source = new DataInputStream(new BufferedInputStream(new FileInputStream(location), 8192))) {
-				int version = source.readByte();
-				if (version != getVersion()) {
-					// unknown version
-					String message = NLS.bind(Messages.resources_readMetaWrongVersion, location.getAbsolutePath(), Integer.toString(version));
-					ResourceStatus status = new ResourceStatus(IResourceStatus.FAILED_READ_METADATA, message);
-					throw new ResourceException(status);
+			byte[] contents = readContents(location);
+			byte version = contents.length == 0 ? 0 : contents[0];
+			this.loadedVersion = version;
+			if (version == getVersion() && contents.length >= 5) {
+				int entryCount = readInt(contents, 1);
+				// check the offsets so lookups never leave the table
+				if (entryCount < 0 || 5 + 4L * entryCount > contents.length)
+					throw new EOFException();
+				for (int i = 0; i < entryCount; i++) {
+					int offset = readInt(contents, 5 + 4 * i);
+					if (offset < 5 + 4 * entryCount || offset >= contents.length)
+						throw new EOFException();
 				}
+				this.table = contents;
+				this.tableCount = entryCount;
+				return;
+			}
+			if (!isStreamVersion(version)) {
+				// unknown version
+				String message = NLS.bind(Messages.resources_readMetaWrongVersion, location.getAbsolutePath(), Integer.toString(version));
+				ResourceStatus status = new ResourceStatus(IResourceStatus.FAILED_READ_METADATA, message);
+				throw new ResourceException(status);
+			}
+			try (DataInputStream source = new DataInputStream(new ByteArrayInputStream(contents, 1, contents.length - 1))) {
 				int entryCount = source.readInt();
 				for (int i = 0; i < entryCount; i++)
 					this.entries.put(readEntryKey(source), readEntryValue(source));
@@ -312,6 +446,36 @@ public abstract class Bucket {
 		}
 	}
 
+	private static byte[] readContents(File file) throws IOException {
+		try (InputStream input = new FileInputStream(file)) {
+			long length = file.length();
+			if (length > Integer.MAX_VALUE)
+				throw new IOException();
+			byte[] contents = new byte[(int) length];
+			int read = 0;
+			while (read < contents.length) {
+				int count = input.read(contents, read, contents.length - read);
+				if (count < 0)
+					throw new EOFException();
+				read += count;
+			}
+			return contents;
+		}
+	}
+
+	private static int readInt(byte[] source, int offset) {
+		return ((source[offset] & 0xFF) << 24) | ((source[offset + 1] & 0xFF) << 16) | ((source[offset + 2] & 0xFF) << 8) | (source[offset + 3] & 0xFF);
+	}
+
+	/**
+	 * Returns a stream positioned at the key of the entry with the given index in the table.
+	 */
+	private DataInputStream readTableKey(int index) {
+		byte[] currentTable = table;
+		int offset = readInt(currentTable, 5 + 4 * index);
+		return new DataInputStream(new ByteArrayInputStream(currentTable, offset, currentTable.length - offset));
+	}
+
 	private String readEntryKey(DataInputStream source) throws IOException {
 		if (projectName == null)
 			return source.readUTF();
@@ -340,13 +504,33 @@ public abstract class Bucket {
 			if (parent == null)
 				throw new IOException();//caught and rethrown below
 			parent.mkdirs();
+			// sort the entries by the keys that are written
+			String[] keys = new String[entries.size()];
+			Object[] values = new Object[keys.length];
+			Map<String, Object> sorted = new TreeMap<>();
+			for (Map.Entry<String, Object> entry : entries.entrySet())
+				sorted.put(toEntryKey(entry.getKey()), entry.getValue());
+			int count = 0;
+			for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+				keys[count] = entry.getKey();
+				values[count++] = entry.getValue();
+			}
+			ByteArrayOutputStream body = new ByteArrayOutputStream(keys.length * 64);
+			DataOutputStream bodyOutput = new DataOutputStream(body);
+			int headerLength = 5 + 4 * keys.length;
+			int[] offsets = new int[keys.length];
+			for (int i = 0; i < keys.length; i++) {
+				offsets[i] = headerLength + bodyOutput.size();
+				bodyOutput.writeUTF(keys[i]);
+				writeEntryValue(bodyOutput, values[i]);
+			}
+			bodyOutput.flush();
 			try (DataOutputStream destination = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(location), 8192))) {
 				destination.write(getVersion());
-				destination.writeInt(entries.size());
-				for (java.util.Map.Entry<String, Object> entry : entries.entrySet()) {
-					writeEntryKey(destination, entry.getKey());
-					writeEntryValue(destination, entry.getValue());
-				}
+				destination.writeInt(keys.length);
+				for (int offset : offsets)
+					destination.writeInt(offset);
+				body.writeTo(destination);
 			}
 			needSaving = false;
 		} catch (IOException ioe) {
@@ -359,8 +543,11 @@ public abstract class Bucket {
 	/**
 	 * Sets the value for the entry with the given path. If <code>value</code> is <code>null</code>,
 	 * removes the entry.
+	 *
+	 * @exception CoreException if the entries of the loaded index file could not be read
 	 */
-	public final void setEntryValue(String path, Object value) {
+	public final void setEntryValue(String path, Object value) throws CoreException {
+		decodeTable();
 		if (value == null)
 			entries.remove(path);
 		else
@@ -368,16 +555,21 @@ public abstract class Bucket {
 		needSaving = true;
 	}
 
-	private void writeEntryKey(DataOutputStream destination, String path) throws IOException {
-		if (projectName == null) {
-			destination.writeUTF(path);
-			return;
-		}
+	/**
+	 * Returns the key written for the given path, or <code>null</code> if the path
+	 * does not belong to the project of this bucket.
+	 */
+	private String toEntryKey(String path) {
+		if (projectName == null)
+			return path;
 		// omit the project name
 		int pathLength = path.length();
 		int projectLength = projectName.length();
-		String key = (pathLength == projectLength + 1) ? "" : path.substring(projectLength + 1); //$NON-NLS-1$
-		destination.writeUTF(key);
+		if (pathLength <= projectLength || !path.startsWith(projectName, 1))
+			return null;
+		if (pathLength == projectLength + 1)
+			return ""; //$NON-NLS-1$
+		return path.charAt(projectLength + 1) == IPath.SEPARATOR ? path.substring(projectLength + 1) : null;
 	}
 
 	/**
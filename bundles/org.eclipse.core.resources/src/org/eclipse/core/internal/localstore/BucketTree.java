@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2011 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -113,7 +113,10 @@ public class BucketTree {
 		current.load(Path.ROOT.equals(path) ? null : path.segment(0), locationFor(path));
 	}
 
-	private File locationFor(IPath resourcePath) {
+	/**
+	 * Returns the directory holding the bucket index for the given resource path.
+	 */
+	public File locationFor(IPath resourcePath) {
 		//optimized to avoid string and path creations
 		IPath baseLocation = workspace.getMetaArea().locationFor(resourcePath).removeTrailingSeparator();
 		int segmentCount = resourcePath.segmentCount();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -29,6 +29,7 @@ import org.eclipse.core.internal.utils.*;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.Preferences.PropertyChangeEvent;
+import org.eclipse.core.runtime.preferences.IPreferencesService;
 import org.eclipse.osgi.util.NLS;
 import org.xml.sax.InputSource;
 
@@ -36,6 +37,52 @@ import org.xml.sax.InputSource;
  * Manages the synchronization between the workspace's view and the file system.
  */
 public class FileSystemResourceManager implements ICoreConstants, IManager, Preferences.IPropertyChangeListener {
+	/**
+	 * The description file of a project, opened by
+	 * <code>openDescription(IProject, boolean)</code>.
+	 */
+	public static final class DescriptionFile {
+		final boolean creation;
+		ProjectDescription description;
+		CoreException failure;
+		OperationCanceledException canceled;
+		long lastModified;
+		/** The location of a project that is not in the default location, or <code>null</code> */
+		final URI location;
+		final ProjectDescription privateDescription;
+		final IFileStore store;
+		final IProject target;
+
+		DescriptionFile(IProject target, boolean creation, URI location, ProjectDescription privateDescription, IFileStore store) {
+			this.target = target;
+			this.creation = creation;
+			this.location = location;
+			this.privateDescription = privateDescription;
+			this.store = store;
+		}
+
+		/**
+		 * Reads and parses the description file. This does not access the
+		 * workspace tree, so the files of different projects may be parsed
+		 * concurrently.
+		 */
+		public void parse() {
+			try (
+				InputStream in = new BufferedInputStream(store.openInputStream(EFS.NONE, SubMonitor.convert(null)));
+			) {
+				description = new ProjectDescriptionReader(target).read(new InputSource(in));
+			} catch (OperationCanceledException e) {
+				canceled = e;
+				return;
+			} catch (CoreException e) {
+				failure = e;
+			} catch (IOException ex) {
+				// ignore
+			}
+			lastModified = store.fetchInfo().getLastModified();
+		}
+	}
+
 
 	/**
 	 * The history store is initialized lazily - always use the accessor method
@@ -45,6 +92,11 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 
 	private volatile boolean lightweightAutoRefreshEnabled;
 
+	/**
+	 * Whether refresh and synchronization checks list sibling directories concurrently.
+	 */
+	private volatile boolean parallelRefreshEnabled;
+
 	public FileSystemResourceManager(Workspace workspace) {
 		this.workspace = workspace;
 	}
@@ -503,7 +555,10 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 			IPath location = getWorkspace().getMetaArea().getHistoryStoreLocation();
 			location.toFile().mkdirs();
 			IFileStore store = EFS.getLocalFileSystem().getStore(location);
-			_historyStore = new HistoryStore2(getWorkspace(), store, 256);
+			IPreferencesService preferences = Platform.getPreferencesService();
+			boolean deduplicate = preferences.getBoolean(ResourcesPlugin.PI_RESOURCES, PreferenceInitializer.PREF_HISTORY_DEDUPLICATE, PreferenceInitializer.PREF_HISTORY_DEDUPLICATE_DEFAULT, null);
+			boolean compress = preferences.getBoolean(ResourcesPlugin.PI_RESOURCES, PreferenceInitializer.PREF_HISTORY_COMPRESS, PreferenceInitializer.PREF_HISTORY_COMPRESS_DEFAULT, null);
+			_historyStore = new HistoryStore2(getWorkspace(), store, 256, deduplicate, compress);
 		}
 		return _historyStore;
 	}
@@ -728,6 +783,7 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 		}
 		IsSynchronizedVisitor visitor = new IsSynchronizedVisitor(SubMonitor.convert(null));
 		UnifiedTree tree = new UnifiedTree(target);
+		tree.setParallelListing(parallelRefreshEnabled && depth != IResource.DEPTH_ZERO);
 		try {
 			tree.accept(visitor, depth);
 		} catch (CoreException e) {
@@ -818,6 +874,8 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 	public void propertyChange(PropertyChangeEvent event) {
 		if (ResourcesPlugin.PREF_LIGHTWEIGHT_AUTO_REFRESH.equals(event.getProperty()))
 			lightweightAutoRefreshEnabled = Boolean.valueOf(event.getNewValue().toString());
+		else if (PreferenceInitializer.PREF_PARALLEL_REFRESH.equals(event.getProperty()))
+			parallelRefreshEnabled = Boolean.valueOf(event.getNewValue().toString());
 	}
 
 	public InputStream read(IFile target, boolean force, IProgressMonitor monitor) throws CoreException {
@@ -862,7 +920,20 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 	 * description, or if the description was missing.
 	 */
 	public ProjectDescription read(IProject target, boolean creation) throws CoreException {
+		DescriptionFile file = openDescription(target, creation);
+		file.parse();
+		return read(file);
+	}
 
+	/**
+	 * Returns the description file of the given project, ready to be parsed.
+	 * Together with <code>DescriptionFile.parse()</code> and
+	 * <code>read(DescriptionFile)</code> this is equivalent to
+	 * <code>read(IProject, boolean)</code>, but allows the files of many
+	 * projects to be parsed concurrently.
+	 * @see #read(IProject, boolean)
+	 */
+	public DescriptionFile openDescription(IProject target, boolean creation) throws CoreException {
 		//read the project location if this project is being created
 		URI projectLocation = null;
 		ProjectDescription privateDescription = null;
@@ -882,43 +953,51 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 		}
 		IFileStore projectStore = initializeStore(target, projectLocation);
 		IFileStore descriptionStore = projectStore.getChild(IProjectDescription.DESCRIPTION_FILE_NAME);
-		ProjectDescription description = null;
+		return new DescriptionFile(target, creation, isDefaultLocation ? null : projectLocation, privateDescription, descriptionStore);
+	}
+
+	/**
+	 * Returns the project description parsed from the given description file,
+	 * and updates the local sync info of the project and its description file.
+	 * Never returns null.
+	 * @exception CoreException if there was any failure to read the project
+	 * description, or if the description was missing.
+	 * @see #openDescription(IProject, boolean)
+	 */
+	public ProjectDescription read(DescriptionFile file) throws CoreException {
+		IProject target = file.target;
+		ProjectDescription description = file.description;
 		//hold onto any exceptions until after sync info is updated, then throw it
 		ResourceException error = null;
-		try (
-			InputStream in = new BufferedInputStream(descriptionStore.openInputStream(EFS.NONE, SubMonitor.convert(null)));
-		) {
+		if (file.canceled != null) {
 			// IFileStore#openInputStream may cancel the monitor, thus the monitor state is checked
-			description = new ProjectDescriptionReader(target).read(new InputSource(in));
-		} catch (OperationCanceledException e) {
 			String msg = NLS.bind(Messages.resources_missingProjectMeta, target.getName());
-			throw new ResourceException(IResourceStatus.FAILED_READ_METADATA, target.getFullPath(), msg, e);
-		} catch (CoreException e) {
+			throw new ResourceException(IResourceStatus.FAILED_READ_METADATA, target.getFullPath(), msg, file.canceled);
+		}
+		if (file.failure != null) {
 			//try the legacy location in the meta area
 			description = getWorkspace().getMetaArea().readOldDescription(target);
 			if (description != null)
 				return description;
-			if (!descriptionStore.fetchInfo().exists()) {
+			if (!file.store.fetchInfo().exists()) {
 				String msg = NLS.bind(Messages.resources_missingProjectMeta, target.getName());
 				throw new ResourceException(IResourceStatus.FAILED_READ_METADATA, target.getFullPath(), msg, null);
 			}
 			String msg = NLS.bind(Messages.resources_readProjectMeta, target.getName());
-			error = new ResourceException(IResourceStatus.FAILED_READ_METADATA, target.getFullPath(), msg, e);
-		} catch (IOException ex) {
-			// ignore
+			error = new ResourceException(IResourceStatus.FAILED_READ_METADATA, target.getFullPath(), msg, file.failure);
 		}
 		if (error == null && description == null) {
 			String msg = NLS.bind(Messages.resources_readProjectMeta, target.getName());
 			error = new ResourceException(IResourceStatus.FAILED_READ_METADATA, target.getFullPath(), msg, null);
 		}
 		if (description != null) {
-			if (!isDefaultLocation)
-				description.setLocationURI(projectLocation);
-			if (creation && privateDescription != null)
+			if (file.location != null)
+				description.setLocationURI(file.location);
+			if (file.creation && file.privateDescription != null)
 				// Bring dynamic state back to life
-				description.updateDynamicState(privateDescription);
+				description.updateDynamicState(file.privateDescription);
 		}
-		long lastModified = descriptionStore.fetchInfo().getLastModified();
+		long lastModified = file.lastModified;
 		IFile descriptionFile = target.getFile(IProjectDescription.DESCRIPTION_FILE_NAME);
 		//don't get a mutable copy because we might be in restore which isn't an operation
 		//it doesn't matter anyway because local sync info is not included in deltas
@@ -930,7 +1009,7 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 		}
 		//if the project description has changed between sessions, let it remain
 		//out of sync -- that way link changes will be reconciled on next refresh
-		if (!creation)
+		if (!file.creation)
 			updateLocalSync(info, lastModified);
 
 		//update the timestamp on the project as well so we know when it has
@@ -962,12 +1041,13 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 		String title = NLS.bind(Messages.localstore_refreshing, target.getFullPath());
 		SubMonitor subMonitor = SubMonitor.convert(monitor, title, 100);
 		IFileTree fileTree = null;
-		// If there can be more than one resource to refresh, try to get the whole tree in one shot, if the file system supports it.
-		if (depth != IResource.DEPTH_ZERO) {
+		// If the whole subtree is refreshed, try to get it in one shot, if the file system supports it.
+		if (depth == IResource.DEPTH_INFINITE) {
 			IFileStore fileStore = ((Resource) target).getStore();
 			fileTree = fileStore.getFileSystem().fetchFileTree(fileStore, subMonitor.newChild(2));
 		}
 		UnifiedTree tree = fileTree == null ? new UnifiedTree(target) : new UnifiedTree(target, fileTree);
+		tree.setParallelListing(parallelRefreshEnabled && depth != IResource.DEPTH_ZERO);
 		SubMonitor refreshMonitor = subMonitor.newChild(98);
 		RefreshLocalVisitor visitor = updateAliases ? new RefreshLocalAliasVisitor(refreshMonitor) : new RefreshLocalVisitor(refreshMonitor);
 		tree.accept(visitor, depth);
@@ -1079,6 +1159,7 @@ public class FileSystemResourceManager implements ICoreConstants, IManager, Pref
 		Preferences preferences = ResourcesPlugin.getPlugin().getPluginPreferences();
 		preferences.addPropertyChangeListener(this);
 		lightweightAutoRefreshEnabled = preferences.getBoolean(ResourcesPlugin.PREF_LIGHTWEIGHT_AUTO_REFRESH);
+		parallelRefreshEnabled = preferences.getBoolean(PreferenceInitializer.PREF_PARALLEL_REFRESH);
 	}
 
 	/**
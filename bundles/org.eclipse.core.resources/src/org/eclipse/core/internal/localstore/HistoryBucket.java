@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ import java.io.*;
 import java.util.Arrays;
 import java.util.Comparator;
 import org.eclipse.core.internal.utils.UniversalUniqueIdentifier;
+import org.eclipse.core.runtime.CoreException;
 import org.eclipse.core.runtime.IPath;
 
 public class HistoryBucket extends Bucket {
@@ -181,6 +182,13 @@ public class HistoryBucket extends Bucket {
 			data[i] = null;
 		}
 
+		/**
+		 * Returns whether this entry has the given state.
+		 */
+		boolean containsState(byte[] state) {
+			return search(data, state) >= 0;
+		}
+
 		byte[][] getData() {
 			return data;
 		}
@@ -218,6 +226,10 @@ public class HistoryBucket extends Bucket {
 	/**
 	 * Version number for the current implementation file's format.
 	 * <p>
+	 * Version 3: a table of entries as described in {@link Bucket}, where each
+	 * entry is encoded as in version 2.
+	 * </p>
+	 * <p>
 	 * Version 2 (3.1 M5):
 	 * <pre>
 	 * FILE ::= VERSION_ID ENTRY+
@@ -242,27 +254,34 @@ public class HistoryBucket extends Bucket {
 	 * </pre>
 	 * </p>
 	 */
-	public final static byte VERSION = 2;
+	public final static byte VERSION = 3;
+
+	private final static byte STREAM_VERSION = 2;
 
 	public HistoryBucket() {
 		super();
 	}
 
-	public void addBlob(IPath path, UniversalUniqueIdentifier uuid, long lastModified) {
+	/**
+	 * Adds a state to the entry for the given path. Returns <code>false</code>
+	 * if the entry already had that state.
+	 */
+	public boolean addBlob(IPath path, UniversalUniqueIdentifier uuid, long lastModified) throws CoreException {
 		byte[] state = HistoryEntry.getState(uuid, lastModified);
 		String pathAsString = path.toString();
 		byte[][] existing = (byte[][]) getEntryValue(pathAsString);
 		if (existing == null) {
 			setEntryValue(pathAsString, new byte[][] {state});
-			return;
+			return true;
 		}
 		byte[][] newValue = HistoryEntry.insert(existing, state);
 		if (newValue == null)
-			return;
+			return false;
 		setEntryValue(pathAsString, newValue);
+		return true;
 	}
 
-	public void addBlobs(HistoryEntry fileEntry) {
+	public void addBlobs(HistoryEntry fileEntry) throws CoreException {
 		IPath path = fileEntry.getPath();
 		byte[][] additions = fileEntry.getData();
 		String pathAsString = path.toString();
@@ -297,6 +316,11 @@ public class HistoryBucket extends Bucket {
 		return VERSION;
 	}
 
+	@Override
+	protected boolean isStreamVersion(byte version) {
+		return version == STREAM_VERSION;
+	}
+
 	@Override
 	protected String getVersionFileName() {
 		return "history.version"; //$NON-NLS-1$
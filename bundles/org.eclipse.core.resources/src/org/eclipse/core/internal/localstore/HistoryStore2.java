@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -47,12 +47,23 @@ public class HistoryStore2 implements IHistoryStore {
 			HistoryEntry entry = i.next();
 			tree.loadBucketFor(entry.getPath());
 			HistoryBucket bucket = (HistoryBucket) tree.getCurrent();
-			bucket.addBlobs(entry);
+			addBlobs(bucket, entry);
 			while (i.hasNext())
-				bucket.addBlobs(i.next());
+				addBlobs(bucket, i.next());
 			bucket.save();
 		}
 
+		private void addBlobs(HistoryBucket bucket, HistoryEntry entry) throws CoreException {
+			if (blobStore.hasReferences()) {
+				// count the states the destination does not have yet
+				HistoryEntry existing = bucket.getEntry(entry.getPath());
+				for (int i = 0; i < entry.getOccurrences(); i++)
+					if (existing == null || !existing.containsState(entry.getData()[i]))
+						blobStore.addReference(entry.getUUID(i));
+			}
+			bucket.addBlobs(entry);
+		}
+
 		@Override
 		public int visit(Entry sourceEntry) {
 			IPath destinationPath = destination.append(sourceEntry.getPath().removeFirstSegments(source.segmentCount()));
@@ -70,6 +81,16 @@ public class HistoryStore2 implements IHistoryStore {
 	private Workspace workspace;
 
 	public HistoryStore2(Workspace workspace, IFileStore store, int limit) {
+		this(workspace, store, limit, false, false);
+	}
+
+	/**
+	 * Creates a history store whose states may share blobs with identical contents.
+	 *
+	 * @param deduplicate whether new blobs are named after their contents
+	 * @param compress whether new blobs named after their contents are compressed
+	 */
+	public HistoryStore2(Workspace workspace, IFileStore store, int limit, boolean deduplicate, boolean compress) {
 		this.workspace = workspace;
 		try {
 			store.mkdir(EFS.NONE, null);
@@ -77,7 +98,9 @@ public class HistoryStore2 implements IHistoryStore {
 			//ignore the failure here because there is no way to surface it.
 			//any attempt to write to the store will throw an appropriate exception
 		}
-		this.blobStore = new BlobStore(store, limit);
+		this.blobStore = new BlobStore(store, limit, deduplicate, compress);
+		// blobs being written when the workspace went down were never added
+		blobStore.deleteTemporaryFiles();
 		this.tree = new BucketTree(workspace, new HistoryBucket());
 	}
 
@@ -96,7 +119,8 @@ public class HistoryStore2 implements IHistoryStore {
 			uuid = blobStore.addBlob(localFile, moveContents);
 			tree.loadBucketFor(key);
 			HistoryBucket currentBucket = (HistoryBucket) tree.getCurrent();
-			currentBucket.addBlob(key, uuid, lastModified);
+			if (currentBucket.addBlob(key, uuid, lastModified))
+				blobStore.addReference(uuid);
 			//			currentBucket.save();
 		} catch (CoreException e) {
 			log(e);
@@ -129,7 +153,9 @@ public class HistoryStore2 implements IHistoryStore {
 			if (i < maxStates && fileEntry.getTimestamp(i) >= minTimeStamp)
 				continue;
 			// "delete" the current uuid
-			blobsToRemove.add(fileEntry.getUUID(i));
+			UniversalUniqueIdentifier uuid = fileEntry.getUUID(i);
+			blobsToRemove.add(uuid);
+			blobStore.removeReference(uuid);
 			fileEntry.deleteOccurrence(i);
 		}
 	}
@@ -162,6 +188,7 @@ public class HistoryStore2 implements IHistoryStore {
 			final int maxStates = description.getMaxFileStates();
 			final int[] entryCount = new int[1];
 			if (description.isApplyFileStatePolicy()) {
+				loadReferences();
 				tree.accept(new Bucket.Visitor() {
 					@Override
 					public int visit(Entry fileEntry) {
@@ -190,6 +217,33 @@ public class HistoryStore2 implements IHistoryStore {
 		}
 	}
 
+	/**
+	 * Counts the states referring to each content addressed blob, unless the
+	 * counts are known already. Without the counts, shared blobs can only be
+	 * deleted by {@link #removeGarbage()}.
+	 */
+	private void loadReferences() throws CoreException {
+		if (blobStore.hasReferences())
+			return;
+		final Map<UniversalUniqueIdentifier, Integer> references = new HashMap<>();
+		tree.accept(new Bucket.Visitor() {
+			@Override
+			public int visit(Entry fileEntry) {
+				countReferences((HistoryEntry) fileEntry, references);
+				return CONTINUE;
+			}
+		}, Path.ROOT, BucketTree.DEPTH_INFINITE);
+		blobStore.setReferences(references);
+	}
+
+	static void countReferences(HistoryEntry fileEntry, Map<UniversalUniqueIdentifier, Integer> references) {
+		for (int i = 0; i < fileEntry.getOccurrences(); i++) {
+			UniversalUniqueIdentifier uuid = fileEntry.getUUID(i);
+			if (BlobStore.isContentAddressed(uuid))
+				references.merge(uuid, 1, Integer::sum);
+		}
+	}
+
 	/*
 	 * Remove blobs from the blobStore. When the size of blobsToRemove exceeds the limit,
 	 * remove the given blobs from blobStore. If the limit is zero or negative, remove blobs
@@ -198,11 +252,11 @@ public class HistoryStore2 implements IHistoryStore {
 	void removeUnreferencedBlobs(int limit) {
 		if (limit <= 0 || limit <= blobsToRemove.size()) {
 			long start = System.currentTimeMillis();
-			// remove unreferenced blobs
+			int count = blobsToRemove.size();
+			// remove unreferenced blobs, shared blobs of unknown use are kept for removeGarbage
 			blobStore.deleteBlobs(blobsToRemove);
 			if (Policy.DEBUG_HISTORY)
-				Policy.debug("Time to remove " + blobsToRemove.size() + " unreferenced blobs: " + (System.currentTimeMillis() - start) + "ms."); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$
-			blobsToRemove = new HashSet<>();
+				Policy.debug("Time to remove " + (count - blobsToRemove.size()) + " unreferenced blobs: " + (System.currentTimeMillis() - start) + "ms."); //$NON-NLS-1$//$NON-NLS-2$ //$NON-NLS-3$
 		}
 	}
 
@@ -248,6 +302,8 @@ public class HistoryStore2 implements IHistoryStore {
 				bucket.flush();
 				return;
 			}
+			if (blobStore.isContentAddressed())
+				loadReferences();
 			// copy history by visiting the source tree
 			HistoryCopyVisitor copyVisitor = new HistoryCopyVisitor(source, destination);
 			tree.accept(copyVisitor, source, BucketTree.DEPTH_INFINITE);
@@ -330,13 +386,18 @@ public class HistoryStore2 implements IHistoryStore {
 	@Override
 	public synchronized void remove(IPath root, IProgressMonitor monitor) {
 		try {
+			if (blobStore.isContentAddressed())
+				loadReferences();
 			final Set<UniversalUniqueIdentifier> tmpBlobsToRemove = blobsToRemove;
 			tree.accept(new Bucket.Visitor() {
 				@Override
 				public int visit(Entry fileEntry) {
-					for (int i = 0; i < fileEntry.getOccurrences(); i++)
+					for (int i = 0; i < fileEntry.getOccurrences(); i++) {
 						// remember we need to delete the files later
-						tmpBlobsToRemove.add(((HistoryEntry) fileEntry).getUUID(i));
+						UniversalUniqueIdentifier uuid = ((HistoryEntry) fileEntry).getUUID(i);
+						tmpBlobsToRemove.add(uuid);
+						blobStore.removeReference(uuid);
+					}
 					fileEntry.delete();
 					return CONTINUE;
 				}
@@ -353,17 +414,22 @@ public class HistoryStore2 implements IHistoryStore {
 	public synchronized void removeGarbage() {
 		try {
 			final Set<UniversalUniqueIdentifier> tmpBlobsToRemove = blobsToRemove;
+			final Map<UniversalUniqueIdentifier, Integer> references = new HashMap<>();
 			tree.accept(new Bucket.Visitor() {
 				@Override
 				public int visit(Entry fileEntry) {
 					for (int i = 0; i < fileEntry.getOccurrences(); i++)
 						// remember we need to delete the files later
 						tmpBlobsToRemove.remove(((HistoryEntry) fileEntry).getUUID(i));
+					// the same pass tells which shared blobs are still in use
+					countReferences((HistoryEntry) fileEntry, references);
 					return CONTINUE;
 				}
 			}, Path.ROOT, BucketTree.DEPTH_INFINITE);
+			blobStore.setReferences(references);
 			blobStore.deleteBlobs(blobsToRemove);
 			blobsToRemove = new HashSet<>();
+			blobStore.deleteTemporaryFiles();
 		} catch (Exception e) {
 			String message = Messages.history_problemsCleaning;
 			ResourceStatus status = new ResourceStatus(IResourceStatus.FAILED_DELETE_LOCAL, null, message, e);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2006 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@
 package org.eclipse.core.internal.localstore;
 
 import java.io.*;
+import java.nio.file.Files;
 
 /**
  * Given a target and a temporary locations, it tries to read the contents
@@ -42,12 +43,27 @@ public class SafeFileInputStream extends FilterInputStream {
 	}
 
 	private static InputStream getInputStream(String targetPath, String tempPath, int bufferSize) throws IOException {
+		return new BufferedInputStream(new FileInputStream(getSource(targetPath, tempPath)), bufferSize);
+	}
+
+	private static File getSource(String targetPath, String tempPath) {
 		File target = new File(targetPath);
 		if (!target.exists()) {
 			if (tempPath == null)
 				tempPath = target.getAbsolutePath() + EXTENSION;
 			target = new File(tempPath);
 		}
-		return new BufferedInputStream(new FileInputStream(target), bufferSize);
+		return target;
+	}
+
+	/**
+	 * Returns the contents this stream would read for the given locations, or
+	 * <code>null</code> if neither of them exists.
+	 */
+	public static byte[] readAllBytes(String targetPath, String tempPath) throws IOException {
+		File source = getSource(targetPath, tempPath);
+		if (!source.exists())
+			return null;
+		return Files.readAllBytes(source.toPath());
 	}
 }
@@ -19,6 +19,7 @@ package org.eclipse.core.internal.localstore;
 
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.*;
 import java.util.regex.Pattern;
 import org.eclipse.core.filesystem.*;
 import org.eclipse.core.internal.refresh.RefreshJob;
@@ -37,6 +38,12 @@ public class UnifiedTree {
 
 	private static final Iterator<UnifiedTreeNode> EMPTY_ITERATOR = Collections.EMPTY_LIST.iterator();
 
+	/** maximum number of directory listings fetched ahead of the traversal */
+	private static final int MAX_PREFETCH = 64;
+
+	/** shared executor for fetching directory listings, created on demand */
+	private static ExecutorService listingExecutor;
+
 	/** special node to mark the beginning of a level in the tree */
 	protected static final UnifiedTreeNode levelMarker = new UnifiedTreeNode(null, null, null, null, false);
 
@@ -58,6 +65,17 @@ public class UnifiedTree {
 	protected ArrayList<UnifiedTreeNode> freeNodes = new ArrayList<>();
 	/** tree's actual level */
 	protected int level;
+	/** the depth of the current traversal */
+	private int depth;
+	/**
+	 * True if the listings of sibling directories should be fetched
+	 * concurrently, ahead of the traversal
+	 */
+	protected boolean parallelListing;
+	/** directories whose listing may be fetched ahead, in traversal order */
+	private ArrayDeque<UnifiedTreeNode> prefetchCandidates;
+	/** listings requested ahead of the traversal, by directory node */
+	private Map<UnifiedTreeNode, Future<IFileInfo[]>> prefetched;
 	/** our queue */
 	protected LinkedList<UnifiedTreeNode> queue;
 
@@ -96,29 +114,35 @@ public class UnifiedTree {
 	 */
 	public void accept(IUnifiedTreeVisitor visitor, int depth) throws CoreException {
 		Assert.isNotNull(root);
+		this.depth = depth;
 		initializeQueue();
 		setLevel(0, depth);
-		while (!queue.isEmpty()) {
-			UnifiedTreeNode node = queue.remove();
-			if (isChildrenMarker(node))
-				continue;
-			if (isLevelMarker(node)) {
-				if (!setLevel(getLevel() + 1, depth))
-					break;
-				continue;
-			}
-			if (visitor.visit(node))
-				addNodeChildrenToQueue(node);
-			else
-				removeNodeChildrenFromQueue(node);
-			//allow reuse of the node, but don't let the freeNodes list grow infinitely
-			if (freeNodes.size() < 32767) {
-				//free memory-consuming elements of the node for garbage collection
-				node.releaseForGc();
-				freeNodes.add(node);
+		try {
+			while (!queue.isEmpty()) {
+				UnifiedTreeNode node = queue.remove();
+				if (isChildrenMarker(node))
+					continue;
+				if (isLevelMarker(node)) {
+					if (!setLevel(getLevel() + 1, depth))
+						break;
+					continue;
+				}
+				if (visitor.visit(node))
+					addNodeChildrenToQueue(node);
+				else
+					removeNodeChildrenFromQueue(node);
+				cancelPrefetch(node);
+				//allow reuse of the node, but don't let the freeNodes list grow infinitely
+				if (freeNodes.size() < 32767) {
+					//free memory-consuming elements of the node for garbage collection
+					node.releaseForGc();
+					freeNodes.add(node);
+				}
+				//else, the whole node will be garbage collected since there is no
+				//reference to it any more.
 			}
-			//else, the whole node will be garbage collected since there is no
-			//reference to it any more.
+		} finally {
+			cancelAllPrefetches();
 		}
 	}
 
@@ -231,6 +255,19 @@ public class UnifiedTree {
 		if (node.getFirstChild() == null)
 			node.setFirstChild(child);
 		addElementToQueue(child);
+		if (prefetched != null && child.isFolder() && child.existsInFileSystem() && isValidLevel(level + 2, depth))
+			addPrefetchCandidate(child);
+	}
+
+	/**
+	 * Remembers the given directory node as one whose listing may be fetched
+	 * ahead of the traversal, and starts fetching if there is room.
+	 */
+	private void addPrefetchCandidate(UnifiedTreeNode node) {
+		if (isCoveredByFileTree(node.getStore()))
+			return;
+		prefetchCandidates.add(node);
+		schedulePrefetches();
 	}
 
 	protected void addElementToQueue(UnifiedTreeNode target) {
@@ -345,10 +382,10 @@ public class UnifiedTree {
 		try {
 			final IFileStore store = node.getStore();
 			IFileInfo[] list;
-			if (fileTree != null && (fileTree.getTreeRoot().equals(store) || fileTree.getTreeRoot().isParentOf(store)))
+			if (isCoveredByFileTree(store))
 				list = fileTree.getChildInfos(store);
 			else
-				list = store.childInfos(EFS.NONE, null);
+				list = fetchChildInfos(node, store);
 
 			if (list == null || list.length == 0)
 				return NO_CHILDREN;
@@ -363,6 +400,68 @@ public class UnifiedTree {
 		}
 	}
 
+	/**
+	 * Returns the child infos of the given directory node, either from a
+	 * listing fetched ahead of the traversal, or directly from the store.
+	 */
+	private IFileInfo[] fetchChildInfos(UnifiedTreeNode node, IFileStore store) throws CoreException {
+		Future<IFileInfo[]> future = removePrefetch(node);
+		if (future != null) {
+			schedulePrefetches();
+			try {
+				return future.get();
+			} catch (ExecutionException e) {
+				Throwable cause = e.getCause();
+				if (cause instanceof CoreException)
+					throw (CoreException) cause;
+				if (cause instanceof RuntimeException)
+					throw (RuntimeException) cause;
+				if (cause instanceof Error)
+					throw (Error) cause;
+				//fall through and fetch the listing on this thread
+			} catch (CancellationException e) {
+				//fall through and fetch the listing on this thread
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		return store.childInfos(EFS.NONE, null);
+	}
+
+	/**
+	 * Stops fetching the listing of the given node ahead of the traversal.
+	 */
+	private void cancelPrefetch(UnifiedTreeNode node) {
+		Future<IFileInfo[]> future = removePrefetch(node);
+		if (future != null) {
+			future.cancel(false);
+			schedulePrefetches();
+		}
+	}
+
+	private void cancelAllPrefetches() {
+		if (prefetched == null)
+			return;
+		for (Future<IFileInfo[]> future : prefetched.values())
+			future.cancel(false);
+		prefetched.clear();
+		prefetchCandidates.clear();
+	}
+
+	private static synchronized ExecutorService getListingExecutor() {
+		if (listingExecutor == null) {
+			int threads = Math.max(2, Math.min(16, 2 * Runtime.getRuntime().availableProcessors()));
+			ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 5, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), runnable -> {
+				Thread thread = new Thread(runnable, "Unified tree listing"); //$NON-NLS-1$
+				thread.setDaemon(true);
+				return thread;
+			});
+			executor.allowCoreThreadTimeOut(true);
+			listingExecutor = executor;
+		}
+		return listingExecutor;
+	}
+
 	protected Workspace getWorkspace() {
 		return (Workspace) root.getWorkspace();
 	}
@@ -373,6 +472,14 @@ public class UnifiedTree {
 			queue = new LinkedList<>();
 		else
 			queue.clear();
+		//initialize the listings fetched ahead of the traversal
+		if (parallelListing) {
+			prefetchCandidates = new ArrayDeque<>();
+			prefetched = new HashMap<>();
+		} else {
+			prefetchCandidates = null;
+			prefetched = null;
+		}
 		//initialize the free nodes list
 		if (freeNodes == null)
 			freeNodes = new ArrayList<>(100);
@@ -382,6 +489,10 @@ public class UnifiedTree {
 		addElementToQueue(levelMarker);
 	}
 
+	private boolean isCoveredByFileTree(IFileStore store) {
+		return fileTree != null && (fileTree.getTreeRoot().equals(store) || fileTree.getTreeRoot().isParentOf(store));
+	}
+
 	protected boolean isChildrenMarker(UnifiedTreeNode node) {
 		return node == childrenMarker;
 	}
@@ -556,12 +667,44 @@ public class UnifiedTree {
 		if (first == null)
 			return;
 		while (true) {
-			if (first.equals(queue.pollLast()))
+			UnifiedTreeNode removed = queue.pollLast();
+			if (prefetched != null && removed != null) {
+				prefetchCandidates.removeLastOccurrence(removed);
+				cancelPrefetch(removed);
+			}
+			if (first.equals(removed))
 				break;
 		}
 		node.setFirstChild(null);
 	}
 
+	/**
+	 * Forgets about fetching the listing of the given node ahead of the traversal,
+	 * and returns the pending fetch if it had been started already.
+	 */
+	private Future<IFileInfo[]> removePrefetch(UnifiedTreeNode node) {
+		if (prefetched == null)
+			return null;
+		//candidates are queued in traversal order, so a visited node can only be the first one
+		if (prefetchCandidates.peekFirst() == node)
+			prefetchCandidates.removeFirst();
+		return prefetched.remove(node);
+	}
+
+	/**
+	 * Starts fetching the listings of upcoming directories, keeping at most
+	 * {@link #MAX_PREFETCH} listings ahead of the traversal. Only the listing
+	 * is fetched concurrently, the nodes are still created and visited in
+	 * breadth-first order on the calling thread.
+	 */
+	private void schedulePrefetches() {
+		while (prefetched.size() < MAX_PREFETCH && !prefetchCandidates.isEmpty()) {
+			UnifiedTreeNode node = prefetchCandidates.remove();
+			final IFileStore store = node.getStore();
+			prefetched.put(node, getListingExecutor().submit(() -> store.childInfos(EFS.NONE, null)));
+		}
+	}
+
 	/**
 	 * Increases the current tree level by one. Returns true if the new
 	 * level is still valid for the given depth
@@ -572,6 +715,15 @@ public class UnifiedTree {
 		return isValidLevel(level, depth);
 	}
 
+	/**
+	 * Sets whether the listings of sibling directories are fetched concurrently.
+	 * This only affects how fast the file system is read: nodes are still
+	 * created and passed to the visitor in the same order on the calling thread.
+	 */
+	public void setParallelListing(boolean parallelListing) {
+		this.parallelListing = parallelListing;
+	}
+
 	private void setRoot(IResource root) {
 		this.root = root;
 	}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2010 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -72,4 +72,12 @@ public interface IPropertyManager extends IManager {
 	 * be found, returns an empty map.
 	 */
 	public Map<QualifiedName, String> getProperties(IResource resource) throws CoreException;
+
+	/**
+	 * Returns a map (<resource: IResource -> properties: Map>) containing
+	 * the properties defined for each of the given resources, as returned by
+	 * {@link #getProperties(IResource)}. Resources whose properties are kept
+	 * together are looked up together.
+	 */
+	public Map<IResource, Map<QualifiedName, String>> getProperties(IResource[] resources) throws CoreException;
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -194,6 +194,11 @@ public class PropertyBucket extends Bucket {
 	public static final byte QNAME = 2;
 
 	/** Version number for the current implementation file's format.
+	 * <p>
+	 * Version 2: a table of entries as described in {@link Bucket}, where each
+	 * entry is encoded as in version 1 but qualifier indexes only refer to
+	 * qualifiers of the same entry.
+	 * </p>
 	 * <p>
 	 * Version 1:
 	 * <pre>
@@ -210,7 +215,9 @@ public class PropertyBucket extends Bucket {
 	 * </pre>
 	 * </p>
 	 */
-	private static final byte VERSION = 1;
+	private static final byte VERSION = 2;
+
+	private static final byte STREAM_VERSION = 1;
 
 	private final List<String> qualifierIndex = new ArrayList<>();
 
@@ -243,6 +250,18 @@ public class PropertyBucket extends Bucket {
 		return entry.getProperty(name);
 	}
 
+	/**
+	 * Adds all properties of the given path to the given map.
+	 */
+	public void getProperties(IPath path, Map<QualifiedName, String> result) {
+		PropertyEntry entry = getEntry(path);
+		if (entry == null)
+			return;
+		int propertyCount = entry.getOccurrences();
+		for (int i = 0; i < propertyCount; i++)
+			result.put(entry.getPropertyName(i), entry.getPropertyValue(i));
+	}
+
 	@Override
 	protected byte getVersion() {
 		return VERSION;
@@ -253,6 +272,11 @@ public class PropertyBucket extends Bucket {
 		return "properties.version"; //$NON-NLS-1$
 	}
 
+	@Override
+	protected boolean isStreamVersion(byte version) {
+		return version == STREAM_VERSION;
+	}
+
 	@Override
 	public void load(String newProjectName, File baseLocation, boolean force) throws CoreException {
 		qualifierIndex.clear();
@@ -261,6 +285,8 @@ public class PropertyBucket extends Bucket {
 
 	@Override
 	protected Object readEntryValue(DataInputStream source) throws IOException, CoreException {
+		// entries of a stream share the qualifiers, those of a table are read on their own
+		List<String> qualifiers = getLoadedVersion() == STREAM_VERSION ? qualifierIndex : new ArrayList<>(2);
 		int length = source.readUnsignedShort();
 		String[][] properties = new String[length][3];
 		for (int j = 0; j < properties.length; j++) {
@@ -269,10 +295,10 @@ public class PropertyBucket extends Bucket {
 			switch (constant) {
 				case QNAME :
 					properties[j][0] = source.readUTF();
-					qualifierIndex.add(properties[j][0]);
+					qualifiers.add(properties[j][0]);
 					break;
 				case INDEX :
-					properties[j][0] = qualifierIndex.get(source.readInt());
+					properties[j][0] = qualifiers.get(source.readInt());
 					break;
 				default :
 					//if we get here the properties file is corrupt
@@ -288,13 +314,7 @@ public class PropertyBucket extends Bucket {
 		return properties;
 	}
 
-	@Override
-	public void save() throws CoreException {
-		qualifierIndex.clear();
-		super.save();
-	}
-
-	public void setProperties(PropertyEntry entry) {
+	public void setProperties(PropertyEntry entry) throws CoreException {
 		IPath path = entry.getPath();
 		String[][] additions = (String[][]) entry.getValue();
 		String pathAsString = path.toString();
@@ -306,7 +326,7 @@ public class PropertyBucket extends Bucket {
 		setEntryValue(pathAsString, PropertyEntry.merge(existing, additions));
 	}
 
-	public void setProperty(IPath path, QualifiedName name, String value) {
+	public void setProperty(IPath path, QualifiedName name, String value) throws CoreException {
 		String pathAsString = path.toString();
 		String[][] existing = (String[][]) getEntryValue(pathAsString);
 		if (existing == null) {
@@ -326,14 +346,15 @@ public class PropertyBucket extends Bucket {
 	@Override
 	protected void writeEntryValue(DataOutputStream destination, Object entryValue) throws IOException {
 		String[][] properties = (String[][]) entryValue;
+		List<String> qualifiers = new ArrayList<>(2);
 		destination.writeShort(properties.length);
 		for (String[] propertie : properties) {
 			// writes the property key qualifier
-			int index = qualifierIndex.indexOf(propertie[0]);
+			int index = qualifiers.indexOf(propertie[0]);
 			if (index == -1) {
 				destination.writeByte(QNAME);
 				destination.writeUTF(propertie[0]);
-				qualifierIndex.add(propertie[0]);
+				qualifiers.add(propertie[0]);
 			} else {
 				destination.writeByte(INDEX);
 				destination.writeInt(index);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2016 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,8 @@ package org.eclipse.core.internal.properties;
 
 import java.io.File;
 import java.util.*;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 import org.eclipse.core.internal.localstore.Bucket;
 import org.eclipse.core.internal.localstore.Bucket.Entry;
 import org.eclipse.core.internal.localstore.BucketTree;
@@ -30,6 +32,10 @@ import org.eclipse.osgi.util.NLS;
  */
 public class PropertyManager2 implements IPropertyManager {
 	private static final int MAX_VALUE_SIZE = 2 * 1024;
+	/**
+	 * The maximum number of bucket indexes kept in memory.
+	 */
+	private static final int MAX_CACHED_BUCKETS = 64;
 
 	class PropertyCopyVisitor extends Bucket.Visitor {
 		private List<PropertyEntry> changes = new ArrayList<>();
@@ -70,24 +76,74 @@ public class PropertyManager2 implements IPropertyManager {
 		}
 	}
 
+	/**
+	 * Recently used buckets, keyed by the directory of their index file. Cached
+	 * buckets never hold unsaved changes, so they can be dropped at any time.
+	 * Access to the map itself is synchronized on it.
+	 */
+	private final Map<File, PropertyBucket> buckets = new LinkedHashMap<File, PropertyBucket>(MAX_CACHED_BUCKETS, 0.75f, true) {
+		private static final long serialVersionUID = 1L;
+
+		@Override
+		protected boolean removeEldestEntry(Map.Entry<File, PropertyBucket> eldest) {
+			return size() > MAX_CACHED_BUCKETS;
+		}
+	};
+	/**
+	 * Readers of cached buckets share this lock, anything changing the
+	 * properties on disk holds it exclusively.
+	 */
+	private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
 	BucketTree tree;
 
 	public PropertyManager2(Workspace workspace) {
 		this.tree = new BucketTree(workspace, new PropertyBucket());
 	}
 
+	/**
+	 * Visits the bucket tree on behalf of an operation that changes properties.
+	 * The caller must hold the write lock.
+	 */
+	private void acceptChanges(Bucket.Visitor visitor, IPath base, int depth) throws CoreException {
+		// cached buckets may have changed the index files since the tree last read them
+		tree.getCurrent().flush();
+		try {
+			tree.accept(visitor, base, depth);
+		} finally {
+			clearBuckets();
+		}
+	}
+
+	private void clearBuckets() {
+		synchronized (buckets) {
+			buckets.clear();
+		}
+	}
+
 	@Override
 	public void closePropertyStore(IResource target) throws CoreException {
-		// ensure any uncommitted are written to disk
-		tree.getCurrent().save();
-		// flush in-memory state to avoid confusion if another project is later
-		// created with the same name
-		tree.getCurrent().flush();
+		lock.writeLock().lock();
+		try {
+			// ensure any uncommitted are written to disk
+			tree.getCurrent().save();
+			// flush in-memory state to avoid confusion if another project is later
+			// created with the same name
+			tree.getCurrent().flush();
+			clearBuckets();
+		} finally {
+			lock.writeLock().unlock();
+		}
 	}
 
 	@Override
-	public synchronized void copy(IResource source, IResource destination, int depth) throws CoreException {
-		copyProperties(source.getFullPath(), destination.getFullPath(), depth);
+	public void copy(IResource source, IResource destination, int depth) throws CoreException {
+		lock.writeLock().lock();
+		try {
+			copyProperties(source.getFullPath(), destination.getFullPath(), depth);
+		} finally {
+			lock.writeLock().unlock();
+		}
 	}
 
 	/**
@@ -100,18 +156,23 @@ public class PropertyManager2 implements IPropertyManager {
 
 		// copy history by visiting the source tree
 		PropertyCopyVisitor copyVisitor = new PropertyCopyVisitor(source, destination);
-		tree.accept(copyVisitor, source, BucketTree.DEPTH_INFINITE);
+		acceptChanges(copyVisitor, source, BucketTree.DEPTH_INFINITE);
 	}
 
 	@Override
-	public synchronized void deleteProperties(IResource target, int depth) throws CoreException {
-		tree.accept(new PropertyBucket.Visitor() {
-			@Override
-			public int visit(Entry entry) {
-				entry.delete();
-				return CONTINUE;
-			}
-		}, target.getFullPath(), depth == IResource.DEPTH_INFINITE ? BucketTree.DEPTH_INFINITE : depth);
+	public void deleteProperties(IResource target, int depth) throws CoreException {
+		lock.writeLock().lock();
+		try {
+			acceptChanges(new PropertyBucket.Visitor() {
+				@Override
+				public int visit(Entry entry) {
+					entry.delete();
+					return CONTINUE;
+				}
+			}, target.getFullPath(), depth == IResource.DEPTH_INFINITE ? BucketTree.DEPTH_INFINITE : depth);
+		} finally {
+			lock.writeLock().unlock();
+		}
 	}
 
 	@Override
@@ -119,32 +180,75 @@ public class PropertyManager2 implements IPropertyManager {
 		deleteProperties(target, IResource.DEPTH_INFINITE);
 	}
 
+	/**
+	 * Returns the bucket holding the properties of the given path, loading it
+	 * if it is not cached. The caller must hold the read or the write lock.
+	 */
+	private PropertyBucket getBucket(IPath resourcePath) throws CoreException {
+		File location = tree.locationFor(resourcePath);
+		PropertyBucket bucket;
+		synchronized (buckets) {
+			bucket = buckets.get(location);
+		}
+		if (bucket != null)
+			return bucket;
+		// concurrent readers may load the same bucket, only one of them is kept
+		bucket = new PropertyBucket();
+		bucket.load(Path.ROOT.equals(resourcePath) ? null : resourcePath.segment(0), location);
+		synchronized (buckets) {
+			PropertyBucket existing = buckets.putIfAbsent(location, bucket);
+			return existing == null ? bucket : existing;
+		}
+	}
+
 	@Override
-	public synchronized Map<QualifiedName, String> getProperties(IResource target) throws CoreException {
-		final Map<QualifiedName, String> result = new HashMap<>();
-		tree.accept(new PropertyBucket.Visitor() {
-			@Override
-			public int visit(Entry entry) {
-				PropertyEntry propertyEntry = (PropertyEntry) entry;
-				int propertyCount = propertyEntry.getOccurrences();
-				for (int i = 0; i < propertyCount; i++)
-					result.put(propertyEntry.getPropertyName(i), propertyEntry.getPropertyValue(i));
-				return CONTINUE;
+	public Map<QualifiedName, String> getProperties(IResource target) throws CoreException {
+		Map<QualifiedName, String> result = new HashMap<>();
+		lock.readLock().lock();
+		try {
+			getBucket(target.getFullPath()).getProperties(target.getFullPath(), result);
+		} finally {
+			lock.readLock().unlock();
+		}
+		return result;
+	}
+
+	@Override
+	public Map<IResource, Map<QualifiedName, String>> getProperties(IResource[] targets) throws CoreException {
+		// group the targets by bucket so that each bucket is looked up only once
+		Map<File, List<IResource>> byBucket = new LinkedHashMap<>();
+		for (IResource target : targets)
+			byBucket.computeIfAbsent(tree.locationFor(target.getFullPath()), k -> new ArrayList<>()).add(target);
+		Map<IResource, Map<QualifiedName, String>> result = new HashMap<>(targets.length * 2);
+		lock.readLock().lock();
+		try {
+			for (List<IResource> group : byBucket.values()) {
+				PropertyBucket bucket = getBucket(group.get(0).getFullPath());
+				for (IResource target : group) {
+					Map<QualifiedName, String> properties = new HashMap<>();
+					bucket.getProperties(target.getFullPath(), properties);
+					result.put(target, properties);
+				}
 			}
-		}, target.getFullPath(), BucketTree.DEPTH_ZERO);
+		} finally {
+			lock.readLock().unlock();
+		}
 		return result;
 	}
 
 	@Override
-	public synchronized String getProperty(IResource target, QualifiedName name) throws CoreException {
+	public String getProperty(IResource target, QualifiedName name) throws CoreException {
 		if (name.getQualifier() == null) {
 			String message = Messages.properties_qualifierIsNull;
 			throw new ResourceException(IResourceStatus.FAILED_READ_METADATA, target.getFullPath(), message, null);
 		}
 		IPath resourcePath = target.getFullPath();
-		PropertyBucket current = (PropertyBucket) tree.getCurrent();
-		tree.loadBucketFor(resourcePath);
-		return current.getProperty(resourcePath, name);
+		lock.readLock().lock();
+		try {
+			return getBucket(resourcePath).getProperty(resourcePath, name);
+		} finally {
+			lock.readLock().unlock();
+		}
 	}
 
 	public BucketTree getTree() {
@@ -156,9 +260,18 @@ public class PropertyManager2 implements IPropertyManager {
 	}
 
 	@Override
-	public synchronized void setProperty(IResource target, QualifiedName name, String value) throws CoreException {
+	public void setProperty(IResource target, QualifiedName name, String value) throws CoreException {
+		lock.writeLock().lock();
+		try {
+			internalSetProperty(target, name, value);
+		} finally {
+			lock.writeLock().unlock();
+		}
+	}
+
+	private void internalSetProperty(IResource target, QualifiedName name, String value) throws CoreException {
 		//resource may have been deleted concurrently
-		//must check for existence within synchronized method
+		//must check for existence while holding the write lock
 		Resource resource = (Resource) target;
 		ResourceInfo info = resource.getResourceInfo(false, false);
 		int flags = resource.getFlags(info);
@@ -174,15 +287,26 @@ public class PropertyManager2 implements IPropertyManager {
 		}
 
 		IPath resourcePath = target.getFullPath();
-		tree.loadBucketFor(resourcePath);
-		PropertyBucket current = (PropertyBucket) tree.getCurrent();
-		current.setProperty(resourcePath, name, value);
-		current.save();
+		PropertyBucket bucket = getBucket(resourcePath);
+		bucket.setProperty(resourcePath, name, value);
+		try {
+			bucket.save();
+		} catch (CoreException e) {
+			// the cached copy no longer matches the index file
+			clearBuckets();
+			throw e;
+		}
 	}
 
 	@Override
 	public void shutdown(IProgressMonitor monitor) throws CoreException {
-		tree.close();
+		lock.writeLock().lock();
+		try {
+			tree.close();
+			clearBuckets();
+		} finally {
+			lock.writeLock().unlock();
+		}
 	}
 
 	@Override
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@
 package org.eclipse.core.internal.resources;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import org.eclipse.core.internal.utils.Messages;
 import org.eclipse.core.internal.utils.Policy;
 import org.eclipse.core.resources.*;
@@ -28,10 +29,37 @@ import org.osgi.service.prefs.Preferences;
 
 /**
  * Manages user-defined encodings as preferences in the project content area.
+ * <p>
+ * The encodings set in a project are remembered in a trie of the project's
+ * resource paths, so that finding the charset inherited by a resource does
+ * not query the preferences of each of its parents. The trie of a project is
+ * discarded whenever the encoding preferences of the project change, and
+ * built again on the next query.
+ * </p>
  *
  * @since 3.0
  */
 public class CharsetManager implements IManager {
+	/**
+	 * A node of the trie of the encodings set in a project, for a resource
+	 * of the project.
+	 */
+	private static final class CharsetNode {
+		/** The encoding set for this resource, or <code>null</code> */
+		String charset;
+		Map<String, CharsetNode> children;
+
+		CharsetNode getChild(String name) {
+			return children == null ? null : children.get(name);
+		}
+
+		CharsetNode getOrCreateChild(String name) {
+			if (children == null)
+				children = new HashMap<>(4);
+			return children.computeIfAbsent(name, n -> new CharsetNode());
+		}
+	}
+
 	/**
 	 * This job implementation is used to allow the resource change listener
 	 * to schedule operations that need to modify the workspace.
@@ -49,6 +77,9 @@ public class CharsetManager implements IManager {
 		public void addChanges(Map<IProject, Boolean> newChanges) {
 			if (newChanges.isEmpty())
 				return;
+			// the preferences of these projects were changed in memory already
+			for (IProject project : newChanges.keySet())
+				invalidateCharsets(project);
 			synchronized (asyncChanges) {
 				asyncChanges.addAll(newChanges.entrySet());
 				asyncChanges.notify();
@@ -233,12 +264,26 @@ public class CharsetManager implements IManager {
 				//nothing to do if a project has been added/removed/moved
 				if (projectDelta.getKind() == IResourceDelta.CHANGED && (projectDelta.getFlags() & IResourceDelta.OPEN) == 0)
 					processEntryChanges(projectDelta, projectsToSave);
+				else
+					// the preferences of the project may have been discarded or loaded
+					invalidateCharsets((IProject) projectDelta.getResource());
 			job.addChanges(projectsToSave);
 		}
 	}
 
 	private static final String PROJECT_KEY = "<project>"; //$NON-NLS-1$
 	private CharsetDeltaJob charsetListener;
+	/**
+	 * The root of the trie of the encodings set in each project, by project name.
+	 * Projects without encoding preferences have an empty root.
+	 */
+	private final Map<String, CharsetNode> charsetTries = new ConcurrentHashMap<>();
+	/**
+	 * Counts the invalidations of the tries, so that a trie built from
+	 * preferences that changed in the meantime is not remembered.
+	 * Guarded by {@link #charsetTries}.
+	 */
+	private int charsetTriesStamp;
 	CharsetManagerJob job;
 	private IResourceChangeListener resourceChangeListener;
 	protected final Bundle systemBundle = Platform.getBundle("org.eclipse.osgi"); //$NON-NLS-1$
@@ -273,6 +318,69 @@ public class CharsetManager implements IManager {
 	 */
 	public String getCharsetFor(IPath resourcePath, boolean recurse) {
 		Assert.isLegal(resourcePath.segmentCount() >= 1);
+		CharsetNode node = charsetTries.get(resourcePath.segment(0));
+		if (node == null)
+			node = buildCharsetTrie(workspace.getRoot().getProject(resourcePath.segment(0)));
+		if (node == null)
+			// the preferences could not be read, query them directly
+			return getCharsetFromPreferences(resourcePath, recurse);
+		// look for the encoding set closest to the resource
+		String charset = node.charset;
+		for (int i = 1; i < resourcePath.segmentCount(); i++) {
+			node = node.getChild(resourcePath.segment(i));
+			if (node == null)
+				break;
+			if (node.charset != null || !recurse)
+				charset = node.charset;
+		}
+		if (!recurse)
+			return node == null ? null : charset;
+		// ensure we default to the workspace encoding if none is found
+		return charset == null ? ResourcesPlugin.getEncoding() : charset;
+	}
+
+	/**
+	 * Builds and remembers the trie of the encodings set in the given project.
+	 * Returns <code>null</code> if the preferences could not be read.
+	 */
+	private CharsetNode buildCharsetTrie(IProject project) {
+		int stamp;
+		synchronized (charsetTries) {
+			stamp = charsetTriesStamp;
+		}
+		CharsetNode root = new CharsetNode();
+		try {
+			// settings in the regular preferences take precedence
+			addCharsets(root, getPreferences(project, false, true));
+			addCharsets(root, getPreferences(project, false, false));
+		} catch (BackingStoreException e) {
+			String message = Messages.resources_readingEncoding;
+			Policy.log(new ResourceStatus(IResourceStatus.FAILED_GETTING_CHARSET, project.getFullPath(), message, e));
+			return null;
+		}
+		synchronized (charsetTries) {
+			if (stamp == charsetTriesStamp)
+				charsetTries.put(project.getName(), root);
+		}
+		return root;
+	}
+
+	private void addCharsets(CharsetNode root, Preferences prefs) throws BackingStoreException {
+		if (prefs == null)
+			return;
+		for (String key : prefs.keys()) {
+			String charset = prefs.get(key, null);
+			if (charset == null)
+				continue;
+			CharsetNode node = root;
+			if (!PROJECT_KEY.equals(key))
+				for (String segment : new Path(key).segments())
+					node = node.getOrCreateChild(segment);
+			node.charset = charset;
+		}
+	}
+
+	private String getCharsetFromPreferences(IPath resourcePath, boolean recurse) {
 		IProject project = workspace.getRoot().getProject(resourcePath.segment(0));
 
 		Preferences prefs = getPreferences(project, false, false);
@@ -405,7 +513,19 @@ public class CharsetManager implements IManager {
 		}
 	}
 
+	/**
+	 * Discards the remembered encodings of the given project, after its
+	 * encoding preferences changed.
+	 */
+	void invalidateCharsets(IProject project) {
+		synchronized (charsetTries) {
+			charsetTriesStamp++;
+			charsetTries.remove(project.getName());
+		}
+	}
+
 	public void projectPreferencesChanged(IProject project) {
+		invalidateCharsets(project);
 		charsetListener.charsetPreferencesChanged(project);
 	}
 
@@ -436,6 +556,7 @@ public class CharsetManager implements IManager {
 					encodingSettings.remove(getKeyFor(resourcePath));
 				else
 					encodingSettings.put(getKeyFor(resourcePath), newCharset);
+				invalidateCharsets(resource.getProject());
 				flushPreferences(encodingSettings, true);
 			} catch (BackingStoreException e) {
 				IProject project = workspace.getRoot().getProject(resourcePath.segment(0));
@@ -448,6 +569,7 @@ public class CharsetManager implements IManager {
 	@Override
 	public void shutdown(IProgressMonitor monitor) {
 		workspace.removeResourceChangeListener(resourceChangeListener);
+		charsetTries.clear();
 		if (charsetListener != null)
 			charsetListener.shutdown();
 	}
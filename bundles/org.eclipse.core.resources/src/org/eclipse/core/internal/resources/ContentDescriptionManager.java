@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -14,12 +14,15 @@
 package org.eclipse.core.internal.resources;
 
 import java.io.*;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.*;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
+import org.eclipse.core.internal.content.ContentType;
+import org.eclipse.core.internal.content.ContentTypeHandler;
 import org.eclipse.core.internal.events.ILifecycleListener;
 import org.eclipse.core.internal.events.LifecycleEvent;
+import org.eclipse.core.internal.localstore.SafeFileInputStream;
+import org.eclipse.core.internal.localstore.SafeFileOutputStream;
 import org.eclipse.core.internal.utils.*;
 import org.eclipse.core.internal.watson.ElementTreeIterator;
 import org.eclipse.core.internal.watson.IElementContentVisitor;
@@ -33,6 +36,11 @@ import org.osgi.framework.Bundle;
 
 /**
  * Keeps a cache of recently read content descriptions.
+ * <p>
+ * The descriptions filled by describers are saved in the workspace metadata on
+ * shutdown, and read again the first time the cache is used in the next
+ * session, unless the cache was invalidated in the meantime.
+ * </p>
  *
  * @since 3.0
  * @see IFile#getContentDescription()
@@ -181,6 +189,63 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		}
 	}
 
+	/**
+	 * A content description read from the persisted cache. Only the standard
+	 * properties are persisted; other properties have the default values of
+	 * the content type, since only descriptions holding those are persisted.
+	 * @see #writePersistedCache()
+	 */
+	private static class PersistedContentDescription implements IContentDescription {
+		private final byte[] byteOrderMark;
+		private final String charset;
+		private final IContentType contentType;
+
+		PersistedContentDescription(IContentType contentType, String charset, byte[] byteOrderMark) {
+			this.contentType = contentType;
+			this.charset = charset;
+			this.byteOrderMark = byteOrderMark;
+		}
+
+		@Override
+		public String getCharset() {
+			if (byteOrderMark == BOM_UTF_8)
+				return "UTF-8"; //$NON-NLS-1$
+			if (byteOrderMark == BOM_UTF_16BE || byteOrderMark == BOM_UTF_16LE)
+				return "UTF-16"; //$NON-NLS-1$
+			return charset;
+		}
+
+		@Override
+		public IContentType getContentType() {
+			return contentType;
+		}
+
+		@Override
+		public Object getProperty(QualifiedName key) {
+			if (CHARSET.equals(key))
+				return charset;
+			if (BYTE_ORDER_MARK.equals(key))
+				return byteOrderMark;
+			IContentDescription defaultDescription = contentType.getDefaultDescription();
+			return defaultDescription == null ? null : defaultDescription.getProperty(key);
+		}
+
+		@Override
+		public boolean isRequested(QualifiedName key) {
+			return true;
+		}
+
+		@Override
+		public void setProperty(QualifiedName key, Object value) {
+			throw new IllegalStateException();
+		}
+
+		@Override
+		public String toString() {
+			return contentType + ":" + charset; //$NON-NLS-1$
+		}
+	}
+
 	private static final QualifiedName CACHE_STATE = new QualifiedName(ResourcesPlugin.PI_RESOURCES, "contentCacheState"); //$NON-NLS-1$
 	private static final QualifiedName CACHE_TIMESTAMP = new QualifiedName(ResourcesPlugin.PI_RESOURCES, "contentCacheTimestamp"); //$NON-NLS-1$\
 
@@ -198,11 +263,25 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 
 	private static final String PT_CONTENTTYPES = "contentTypes"; //$NON-NLS-1$
 
-	private Cache cache;
+	private static final byte PERSISTED_CACHE_VERSION = 1;
+
+	// possible byte order marks of persisted descriptions
+	private static final byte[][] BYTE_ORDER_MARKS = {null, IContentDescription.BOM_UTF_8, IContentDescription.BOM_UTF_16BE, IContentDescription.BOM_UTF_16LE};
 
-	private byte cacheState;
+	private ConcurrentCache<IPath, IContentDescription> cache;
+
+	/**
+	 * The state of the cache, or 0 if not read yet. Only modified while
+	 * synchronized, but read without synchronization once known.
+	 */
+	private volatile byte cacheState;
 
 	private FlushJob flushJob;
+	/**
+	 * Whether the cache persisted by the previous session has been read
+	 * or discarded.
+	 */
+	private volatile boolean persistedCacheRead;
 	private ProjectContentTypes projectContentTypes;
 
 	Workspace workspace;
@@ -229,6 +308,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 			setCacheState(FLUSHING_CACHE);
 			// flush the MRU cache
 			cache.discardAll();
+			discardPersistedCache();
 			if (toClean == null || toClean.length == 0)
 				// no project was added, must be a global flush
 				clearContentFlags(Path.ROOT, monitor);
@@ -272,14 +352,35 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 			Policy.debug("Content type cache for " + root + " flushed in " + (System.currentTimeMillis() - flushStart) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
 	}
 
-	Cache getCache() {
+	/**
+	 * Deletes the persisted cache, so that it is not read in this or the next
+	 * session. The cache is persisted again on shutdown, if still valid.
+	 */
+	private synchronized void discardPersistedCache() {
+		persistedCacheRead = true;
+		IPath location = workspace.getMetaArea().getContentDescriptionCacheLocation();
+		Workspace.clear(location.toFile());
+		Workspace.clear(workspace.getMetaArea().getBackupLocationFor(location).toFile());
+	}
+
+	/** Public so tests can examine it. */
+	public ConcurrentCache<IPath, IContentDescription> getCache() {
+		if (!persistedCacheRead)
+			readPersistedCache();
 		return cache;
 	}
 
 	/** Public so tests can examine it. */
-	public synchronized byte getCacheState() {
-		if (cacheState != 0)
+	public byte getCacheState() {
+		byte state = cacheState;
+		if (state != 0)
 			// we have read/set it before, no nead to read property
+			return state;
+		return readCacheState();
+	}
+
+	private synchronized byte readCacheState() {
+		if (cacheState != 0)
 			return cacheState;
 		String persisted;
 		try {
@@ -346,14 +447,14 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 				info.clear(ICoreConstants.M_CONTENT_CACHE);
 			}
 		}
+		if (!persistedCacheRead)
+			readPersistedCache();
 		if (inSync) {
-			// tries to get a description from the cache
-			synchronized (this) {
-				Cache.Entry entry = cache.getEntry(file.getFullPath());
-				if (entry != null && entry.getTimestamp() == getTimestamp(info))
-					// there was a description in the cache, and it was up to date
-					return (IContentDescription) entry.getCached();
-			}
+			// tries to get a description from the cache, which does not require synchronization
+			ConcurrentCache.Entry<IPath, IContentDescription> entry = cache.getEntry(file.getFullPath());
+			if (entry != null && entry.getTimestamp() == getTimestamp(info))
+				// there was a description in the cache, and it was up to date
+				return entry.getCached();
 		}
 
 		// either we didn't find a description in the cache, or it was not up-to-date - has to be read again
@@ -361,11 +462,11 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		IContentDescription newDescription = readDescription(file);
 
 		synchronized (this) {
-			// tries to get a description from the cache
-			Cache.Entry entry = cache.getEntry(file.getFullPath());
+			// tries to get a description added to the cache by another thread in the meantime
+			ConcurrentCache.Entry<IPath, IContentDescription> entry = cache.peekEntry(file.getFullPath());
 			if (entry != null && inSync && entry.getTimestamp() == getTimestamp(info))
 				// there was a description in the cache, and it was up to date
-				return (IContentDescription) entry.getCached();
+				return entry.getCached();
 
 			if (getCacheState() != ABOUT_TO_FLUSH) {
 				// we are going to add an entry to the cache or update the resource info - remember that
@@ -386,14 +487,8 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 				}
 			}
 			// we actually got a description filled by a describer (or a default description for a non-obvious type)
-			if (entry == null)
-				// there was no entry before - create one
-				entry = cache.addEntry(file.getFullPath(), newDescription, getTimestamp(info));
-			else {
-				// just update the existing entry
-				entry.setTimestamp(getTimestamp(info));
-				entry.setCached(newDescription);
-			}
+			// this creates an entry, or replaces the existing one
+			cache.addEntry(file.getFullPath(), newDescription, getTimestamp(info));
 			return newDescription;
 		}
 	}
@@ -436,6 +531,8 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 			// the cache is not good, flush it
 			flushJob.flush(project);
 		}
+		if (!persistedCacheRead)
+			discardPersistedCache();
 	}
 
 	/**
@@ -459,6 +556,129 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		}
 	}
 
+	/**
+	 * Adds the descriptions persisted by the previous session to the cache, if
+	 * they were saved for the current platform state and the cache is still
+	 * valid. The persisted file is then discarded, since the cache is saved
+	 * again on shutdown.
+	 */
+	private synchronized void readPersistedCache() {
+		if (persistedCacheRead)
+			return;
+		IPath location = workspace.getMetaArea().getContentDescriptionCacheLocation();
+		IPath tempLocation = workspace.getMetaArea().getBackupLocationFor(location);
+		if (getCacheState() == USED_CACHE && (location.toFile().exists() || tempLocation.toFile().exists())) {
+			long start = System.currentTimeMillis();
+			int count = 0;
+			try (
+				DataInputStream input = new DataInputStream(new SafeFileInputStream(location.toOSString(), tempLocation.toOSString()));
+			) {
+				if (input.readByte() == PERSISTED_CACHE_VERSION && input.readLong() == Platform.getStateStamp()) {
+					IContentTypeManager contentTypeManager = Platform.getContentTypeManager();
+					for (int i = input.readInt(); i > 0; i--) {
+						IPath path = new Path(input.readUTF());
+						long timestamp = input.readLong();
+						IContentType contentType = contentTypeManager.getContentType(input.readUTF());
+						String charset = input.readBoolean() ? input.readUTF() : null;
+						byte byteOrderMark = input.readByte();
+						if (contentType == null || byteOrderMark < 0 || byteOrderMark >= BYTE_ORDER_MARKS.length)
+							continue;
+						cache.addEntry(path, new PersistedContentDescription(contentType, charset, BYTE_ORDER_MARKS[byteOrderMark]), timestamp);
+						count++;
+					}
+				}
+			} catch (IOException e) {
+				// the cache is only an optimization, start with what was read
+				if (Policy.DEBUG_CONTENT_TYPE_CACHE)
+					Policy.debug("Could not read content type cache: " + e); //$NON-NLS-1$
+			}
+			if (Policy.DEBUG_CONTENT_TYPE_CACHE)
+				Policy.debug("Read " + count + " content type cache entries in " + (System.currentTimeMillis() - start) + " ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		}
+		discardPersistedCache();
+	}
+
+	/**
+	 * Returns whether the given description can be persisted. Only the charset
+	 * and the byte order mark are persisted, so every other property the
+	 * describer of the content type supports must have its default value.
+	 */
+	private static boolean isPersistable(IContentDescription description) {
+		IContentType contentType = description.getContentType();
+		if (!(contentType instanceof ContentTypeHandler))
+			return false;
+		ContentType target = ((ContentTypeHandler) contentType).getTarget();
+		if (target == null)
+			return false;
+		IContentDescriber describer = target.getDescriber();
+		if (describer == null)
+			return true;
+		IContentDescription defaultDescription = contentType.getDefaultDescription();
+		for (QualifiedName option : describer.getSupportedOptions()) {
+			if (IContentDescription.CHARSET.equals(option) || IContentDescription.BYTE_ORDER_MARK.equals(option))
+				continue;
+			Object defaultValue = defaultDescription == null ? null : defaultDescription.getProperty(option);
+			if (!Objects.equals(defaultValue, description.getProperty(option)))
+				return false;
+		}
+		return true;
+	}
+
+	/**
+	 * Saves the descriptions filled by describers that are in the cache, least
+	 * recently used first. Descriptions with other properties than the
+	 * standard ones are not saved, see {@link #isPersistable(IContentDescription)}.
+	 * Format:
+	 * byte - version
+	 * long - platform state stamp
+	 * int - number of descriptions
+	 * for each description:
+	 *    UTF - resource path
+	 *    long - content timestamp of the resource
+	 *    UTF - content type id
+	 *    boolean - whether a charset follows
+	 *    UTF - charset
+	 *    byte - byte order mark index
+	 */
+	private void writePersistedCache() {
+		List<ConcurrentCache.Entry<IPath, IContentDescription>> entries = new ArrayList<>();
+		for (ConcurrentCache.Entry<IPath, IContentDescription> entry : cache.getEntries())
+			if (entry.getCached() != null && isPersistable(entry.getCached()))
+				entries.add(entry);
+		if (entries.isEmpty())
+			return;
+		IPath location = workspace.getMetaArea().getContentDescriptionCacheLocation();
+		IPath tempLocation = workspace.getMetaArea().getBackupLocationFor(location);
+		try (
+			DataOutputStream output = new DataOutputStream(new SafeFileOutputStream(location.toOSString(), tempLocation.toOSString()));
+		) {
+			output.writeByte(PERSISTED_CACHE_VERSION);
+			output.writeLong(Platform.getStateStamp());
+			output.writeInt(entries.size());
+			for (ConcurrentCache.Entry<IPath, IContentDescription> entry : entries) {
+				IContentDescription description = entry.getCached();
+				Object charset = description.getProperty(IContentDescription.CHARSET);
+				Object byteOrderMark = description.getProperty(IContentDescription.BYTE_ORDER_MARK);
+				output.writeUTF(entry.getKey().toString());
+				output.writeLong(entry.getTimestamp());
+				output.writeUTF(description.getContentType().getId());
+				output.writeBoolean(charset instanceof String);
+				if (charset instanceof String)
+					output.writeUTF((String) charset);
+				byte index = 0;
+				for (byte i = 1; i < BYTE_ORDER_MARKS.length; i++)
+					if (byteOrderMark == BYTE_ORDER_MARKS[i])
+						index = i;
+				output.writeByte(index);
+			}
+		} catch (IOException e) {
+			// the cache is only an optimization, it will be computed again
+			if (Policy.DEBUG_CONTENT_TYPE_CACHE)
+				Policy.debug("Could not write content type cache: " + e); //$NON-NLS-1$
+			discardPersistedCache();
+		}
+	}
+
 	/**
 	 * @see IRegistryChangeListener#registryChanged(IRegistryChangeEvent)
 	 */
@@ -503,6 +723,9 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		if (getCacheState() != INVALID_CACHE)
 			// remember the platform timestamp for which we have a valid cache
 			setCacheTimeStamp(Platform.getStateStamp());
+		// an unread persisted cache is still good if the cache was not invalidated
+		if (persistedCacheRead && getCacheState() == USED_CACHE)
+			writePersistedCache();
 		IContentTypeManager contentTypeManager = Platform.getContentTypeManager();
 		//tolerate missing services during shutdown because they might be already gone
 		if (contentTypeManager != null)
@@ -510,7 +733,9 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 		IExtensionRegistry registry = Platform.getExtensionRegistry();
 		if (registry != null)
 			registry.removeRegistryChangeListener(this);
-		cache.dispose();
+		if (Policy.DEBUG_CONTENT_TYPE_CACHE)
+			Policy.debug("Content type cache at shutdown: " + cache); //$NON-NLS-1$
+		cache.discardAll();
 		cache = null;
 		flushJob.cancel();
 		flushJob = null;
@@ -520,7 +745,7 @@ public class ContentDescriptionManager implements IManager, IRegistryChangeListe
 	@Override
 	public void startup(IProgressMonitor monitor) throws CoreException {
 		workspace = (Workspace) ResourcesPlugin.getWorkspace();
-		cache = new Cache(100, 1000, 0.1);
+		cache = new ConcurrentCache<>(1000, 0.1);
 		projectContentTypes = new ProjectContentTypes(workspace);
 		getCacheState();
 		if (cacheState == FLUSHING_CACHE || cacheState == ABOUT_TO_FLUSH)
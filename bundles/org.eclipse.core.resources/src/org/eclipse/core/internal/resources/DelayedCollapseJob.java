@@ -0,0 +1,50 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.internal.utils.Policy;
+import org.eclipse.core.resources.ResourcesPlugin;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.jobs.Job;
+
+/**
+ * Collapses the delta chains of the trees retained for resource deltas, once
+ * the workspace has opened many tree layers since the last collapse.
+ */
+public class DelayedCollapseJob extends Job {
+
+	private static final String MSG_COLLAPSING = Messages.resources_collapsingTrees;
+	private SaveManager saveManager;
+
+	public DelayedCollapseJob(SaveManager manager) {
+		super(MSG_COLLAPSING);
+		this.saveManager = manager;
+		setRule(ResourcesPlugin.getWorkspace().getRoot());
+		setPriority(DECORATE);
+		setSystem(true);
+	}
+
+	/*
+	 * @see Job#run()
+	 */
+	@Override
+	public IStatus run(IProgressMonitor monitor) {
+		if (monitor.isCanceled())
+			return Status.CANCEL_STATUS;
+		try {
+			saveManager.collapseTrees(Policy.monitorFor(null));
+			return Status.OK_STATUS;
+		} catch (CoreException e) {
+			return e.getStatus();
+		}
+	}
+}
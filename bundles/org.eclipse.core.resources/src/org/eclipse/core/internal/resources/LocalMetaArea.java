@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,7 @@ import org.eclipse.osgi.util.NLS;
 
 public class LocalMetaArea implements ICoreConstants {
 	/* package */static final String F_BACKUP_FILE_EXTENSION = ".bak"; //$NON-NLS-1$
+	/* package */static final String F_CONTENT_CACHE = ".contentcache"; //$NON-NLS-1$
 	/* package */static final String F_DESCRIPTION = ".workspace"; //$NON-NLS-1$
 
 	/* package */static final String F_HISTORY_STORE = ".history"; //$NON-NLS-1$
@@ -111,6 +112,14 @@ public class LocalMetaArea implements ICoreConstants {
 		return file.removeLastSegments(1).append(file.lastSegment() + F_BACKUP_FILE_EXTENSION);
 	}
 
+	/**
+	 * Returns the path of the file in which to save the content description
+	 * cache of the workspace.
+	 */
+	public IPath getContentDescriptionCacheLocation() {
+		return metaAreaLocation.append(F_CONTENT_CACHE);
+	}
+
 	public IPath getHistoryStoreLocation() {
 		return metaAreaLocation.append(F_HISTORY_STORE);
 	}
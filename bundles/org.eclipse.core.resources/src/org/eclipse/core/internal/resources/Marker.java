@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -266,6 +266,8 @@ public class Marker extends PlatformObject implements IMarker {
 			if (needDelta) {
 				MarkerDelta delta = new MarkerDelta(IResourceDelta.CHANGED, resource, oldInfo);
 				manager.changedMarkers(resource, new MarkerDelta[] {delta});
+			} else {
+				manager.invalidateRollups(resource.getFullPath());
 			}
 		} finally {
 			workspace.endOperation(null, false);
@@ -305,6 +307,8 @@ public class Marker extends PlatformObject implements IMarker {
 			if (needDelta) {
 				MarkerDelta delta = new MarkerDelta(IResourceDelta.CHANGED, resource, oldInfo);
 				manager.changedMarkers(resource, new MarkerDelta[] {delta});
+			} else {
+				manager.invalidateRollups(resource.getFullPath());
 			}
 		} finally {
 			workspace.endOperation(null, false);
@@ -334,6 +338,8 @@ public class Marker extends PlatformObject implements IMarker {
 			if (needDelta) {
 				MarkerDelta delta = new MarkerDelta(IResourceDelta.CHANGED, resource, oldInfo);
 				manager.changedMarkers(resource, new MarkerDelta[] {delta});
+			} else {
+				manager.invalidateRollups(resource.getFullPath());
 			}
 		} finally {
 			workspace.endOperation(null, false);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,6 +15,7 @@ package org.eclipse.core.internal.resources;
 import java.util.*;
 import org.eclipse.core.internal.utils.IStringPoolParticipant;
 import org.eclipse.core.internal.utils.StringPool;
+import org.eclipse.core.resources.IMarker;
 
 /**
  * A specialized map implementation that is optimized for a
@@ -22,12 +23,29 @@ import org.eclipse.core.internal.utils.StringPool;
  * MUST be instances of java.lang.String.
  *
  * Implemented as a single array that alternates keys and values.
+ * The integer values of the well known attributes in {@link #INT_KEYS}
+ * are kept unboxed in fields of the map instead, and only boxed when
+ * they are read.
  */
 @SuppressWarnings("unchecked")
 public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolParticipant {
+	/**
+	 * The keys of the attributes whose integer values are stored unboxed.
+	 */
+	private static final String[] INT_KEYS = {IMarker.SEVERITY, IMarker.PRIORITY, IMarker.LINE_NUMBER, IMarker.CHAR_START, IMarker.CHAR_END};
+
 	protected Object[] elements = null;
+	/** The number of entries, including the unboxed ones */
 	protected int count = 0;
 
+	/** The bit for an index into INT_KEYS is set if that attribute has an unboxed value */
+	private byte intKeysSet = 0;
+	private int severity;
+	private int priority;
+	private int lineNumber;
+	private int charStart;
+	private int charEnd;
+
 	// 8 attribute keys, 8 attribute values
 	protected static final int DEFAULT_SIZE = 16;
 	protected static final int GROW_SIZE = 10;
@@ -56,11 +74,13 @@ public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolPartici
 	public MarkerAttributeMap(Map<String, ? extends V> map) {
 		this(map.size());
 		putAll(map);
+		trimToSize();
 	}
 
 	@Override
 	public void clear() {
 		count = 0;
+		intKeysSet = 0;
 		elements = EMPTY;
 	}
 
@@ -69,6 +89,9 @@ public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolPartici
 		if (count == 0)
 			return false;
 		key = ((String) key).intern();
+		int slot = intSlot(key);
+		if (slot >= 0 && isIntSet(slot))
+			return true;
 		for (int i = 0; i < elements.length; i = i + 2)
 			if (elements[i] == key)
 				return true;
@@ -79,6 +102,10 @@ public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolPartici
 	public boolean containsValue(Object value) {
 		if (count == 0)
 			return false;
+		if (value instanceof Integer)
+			for (int slot = 0; slot < INT_KEYS.length; slot++)
+				if (isIntSet(slot) && getInt(slot) == ((Integer) value).intValue())
+					return true;
 		for (int i = 1; i < elements.length; i = i + 2)
 			if (elements[i] != null && elements[i].equals(value))
 				return true;
@@ -116,6 +143,10 @@ public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolPartici
 			if (elements[i] != null && (!elements[i + 1].equals(other.get(elements[i]))))
 				return false;
 		}
+		for (int slot = 0; slot < INT_KEYS.length; slot++) {
+			if (isIntSet(slot) && !Integer.valueOf(getInt(slot)).equals(other.get(INT_KEYS[slot])))
+				return false;
+		}
 		return true;
 	}
 
@@ -124,6 +155,9 @@ public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolPartici
 		if (count == 0)
 			return null;
 		key = ((String) key).intern();
+		int slot = intSlot(key);
+		if (slot >= 0 && isIntSet(slot))
+			return (V) Integer.valueOf(getInt(slot));
 		for (int i = 0; i < elements.length; i = i + 2)
 			if (elements[i] == key)
 				return (V) elements[i + 1];
@@ -140,6 +174,63 @@ public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolPartici
 		elements = expanded;
 	}
 
+	/**
+	 * Returns the index into INT_KEYS of the given interned key, or -1
+	 * if its values are always kept boxed.
+	 */
+	private static int intSlot(Object key) {
+		for (int slot = 0; slot < INT_KEYS.length; slot++)
+			if (INT_KEYS[slot] == key)
+				return slot;
+		return -1;
+	}
+
+	private boolean isIntSet(int slot) {
+		return (intKeysSet & (1 << slot)) != 0;
+	}
+
+	private int getInt(int slot) {
+		switch (slot) {
+			case 0 :
+				return severity;
+			case 1 :
+				return priority;
+			case 2 :
+				return lineNumber;
+			case 3 :
+				return charStart;
+			default :
+				return charEnd;
+		}
+	}
+
+	private void setInt(int slot, int value) {
+		switch (slot) {
+			case 0 :
+				severity = value;
+				break;
+			case 1 :
+				priority = value;
+				break;
+			case 2 :
+				lineNumber = value;
+				break;
+			case 3 :
+				charStart = value;
+				break;
+			default :
+				charEnd = value;
+		}
+		intKeysSet |= 1 << slot;
+	}
+
+	/**
+	 * Returns the number of entries stored in the elements array.
+	 */
+	private int boxedCount() {
+		return count - Integer.bitCount(intKeysSet);
+	}
+
 	@Override
 	public int hashCode() {
 		int hash = 0;
@@ -150,6 +241,10 @@ public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolPartici
 				hash += elements[i].hashCode();
 			}
 		}
+		for (int slot = 0; slot < INT_KEYS.length; slot++) {
+			if (isIntSet(slot))
+				hash += INT_KEYS[slot].hashCode();
+		}
 		return hash;
 	}
 
@@ -173,6 +268,10 @@ public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolPartici
 				result.add((String) elements[i]);
 			}
 		}
+		for (int slot = 0; slot < INT_KEYS.length; slot++) {
+			if (isIntSet(slot))
+				result.add(INT_KEYS[slot]);
+		}
 		return result;
 	}
 
@@ -184,11 +283,38 @@ public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolPartici
 			return remove(k);
 		String key = k.intern();
 
-		if (elements.length <= (count * 2))
+		int slot = intSlot(key);
+		if (slot >= 0) {
+			if (value instanceof Integer) {
+				V oldValue;
+				if (isIntSet(slot)) {
+					oldValue = (V) Integer.valueOf(getInt(slot));
+				} else {
+					// the attribute may have had a value of another type
+					oldValue = remove(key);
+					count++;
+				}
+				setInt(slot, ((Integer) value).intValue());
+				return oldValue;
+			}
+			if (isIntSet(slot)) {
+				V oldValue = remove(key);
+				putBoxed(key, value);
+				return oldValue;
+			}
+		}
+		return putBoxed(key, value);
+	}
+
+	/**
+	 * Puts the given value for the given interned key into the elements array.
+	 */
+	private V putBoxed(String key, V value) {
+		if (elements.length <= (boxedCount() * 2))
 			grow();
 
 		// handle the case where we don't have any attributes yet
-		if (count == 0) {
+		if (boxedCount() == 0) {
 			elements[0] = key;
 			elements[1] = value;
 			count++;
@@ -227,6 +353,12 @@ public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolPartici
 		if (count == 0)
 			return null;
 		key = ((String) key).intern();
+		int slot = intSlot(key);
+		if (slot >= 0 && isIntSet(slot)) {
+			intKeysSet &= ~(1 << slot);
+			count--;
+			return (V) Integer.valueOf(getInt(slot));
+		}
 		for (int i = 0; i < elements.length; i = i + 2) {
 			if (elements[i] == key) {
 				elements[i] = null;
@@ -272,9 +404,33 @@ public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolPartici
 				result.put((String) elements[i], (V) elements[i + 1]);
 			}
 		}
+		for (int slot = 0; slot < INT_KEYS.length; slot++) {
+			if (isIntSet(slot))
+				result.put(INT_KEYS[slot], (V) Integer.valueOf(getInt(slot)));
+		}
 		return result;
 	}
 
+	/**
+	 * Shrinks the elements array to the entries it holds. Maps are sized
+	 * for all their attributes up front, but the unboxed ones do not use
+	 * the array.
+	 */
+	public void trimToSize() {
+		int size = boxedCount() * 2;
+		if (elements.length == size)
+			return;
+		Object[] trimmed = size == 0 ? EMPTY : new Object[size];
+		int j = 0;
+		for (int i = 0; i < elements.length; i = i + 2) {
+			if (elements[i] != null) {
+				trimmed[j++] = elements[i];
+				trimmed[j++] = elements[i + 1];
+			}
+		}
+		elements = trimmed;
+	}
+
 	/**
 	 * This implementation does not conform properly to the specification
 	 * in the Map interface.  The returned collection will not be bound to
@@ -290,6 +446,10 @@ public class MarkerAttributeMap<V> implements Map<String, V>, IStringPoolPartici
 				result.add((V) elements[i]);
 			}
 		}
+		for (int slot = 0; slot < INT_KEYS.length; slot++) {
+			if (isIntSet(slot))
+				result.add((V) Integer.valueOf(getInt(slot)));
+		}
 		return result;
 	}
 }
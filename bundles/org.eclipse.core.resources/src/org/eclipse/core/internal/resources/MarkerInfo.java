@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -164,13 +164,16 @@ public class MarkerInfo implements IMarkerSetElement, Cloneable, IStringPoolPart
 		if (map == null)
 			attributes = null;
 		else {
-			attributes = new MarkerAttributeMap<>(map.size());
+			MarkerAttributeMap<Object> newAttributes = new MarkerAttributeMap<>(map.size());
+			attributes = newAttributes;
 			for (Entry<String, ?> entry : map.entrySet()) {
 				Object key = entry.getKey();
 				Assert.isTrue(key instanceof String);
 				Object value = entry.getValue();
 				setAttribute((String) key, value, validate);
 			}
+			if (attributes == newAttributes)
+				newAttributes.trimToSize();
 		}
 	}
 
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -36,6 +36,39 @@ public class MarkerManager implements IManager {
 	protected Map<IPath, MarkerSet> currentDeltas = null;
 	protected final MarkerDeltaManager deltaManager = new MarkerDeltaManager();
 
+	/**
+	 * The max severities of container subtrees, keyed by container path and
+	 * then by the queried marker type (subtypes included). The entries of a
+	 * path and all its ancestors are dropped whenever markers or resources
+	 * below the path change, so that a query after a change only needs to
+	 * recompute the affected containers. Paths are kept in tree order, so
+	 * that the rollups of a subtree can be dropped as one range.
+	 */
+	private final NavigableMap<IPath, Map<String, Integer>> severityRollups = new TreeMap<>(MarkerManager::compareTreeOrder);
+	/**
+	 * Incremented whenever rollups are dropped. A rollup computed from
+	 * the tree is only stored if no change happened in the meantime.
+	 * Guarded by {@link #severityRollups}.
+	 */
+	private long rollupStamp = 0;
+
+	/**
+	 * The paths of the resources that may hold markers, keyed by the marker
+	 * type. The index is a superset: stale paths are tolerated and filtered
+	 * out by queries, but every resource holding markers of a type is listed
+	 * under that type. Paths are kept in tree order, so that the paths of a
+	 * subtree form one range. <code>null</code> when the index needs to be
+	 * rebuilt from the tree. Guarded by {@link #typeIndexLock}.
+	 */
+	private Map<String, NavigableSet<IPath>> typeIndex = null;
+	private final Object typeIndexLock = new Object();
+	/**
+	 * Incremented whenever markers are added while there is no index, so that
+	 * an index built concurrently is not installed. Guarded by
+	 * {@link #typeIndexLock}.
+	 */
+	private long typeIndexStamp = 0;
+
 	protected Workspace workspace;
 	protected MarkerWriter writer = new MarkerWriter(this);
 
@@ -52,6 +85,16 @@ public class MarkerManager implements IManager {
 	 * @see IResource#createMarker(String)
 	 */
 	public void add(IResource resource, MarkerInfo newMarker) throws CoreException {
+		add(resource, new MarkerInfo[] {newMarker});
+	}
+
+	/**
+	 * Adds the given markers to the given resource. The markers are added
+	 * to the marker set of the resource at once, and reported together.
+	 *
+	 * @see IWorkspace#createMarkers(List, List, List)
+	 */
+	public void add(IResource resource, MarkerInfo[] newMarkers) throws CoreException {
 		Resource target = (Resource) resource;
 		ResourceInfo info = workspace.getResourceInfo(target.getFullPath(), false, false);
 		target.checkExists(target.getFlags(info), false);
@@ -61,15 +104,23 @@ public class MarkerManager implements IManager {
 			return;
 		// set the M_MARKERS_SNAP_DIRTY flag to indicate that this
 		// resource's markers have changed since the last snapshot
-		if (isPersistent(newMarker))
-			info.set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
+		for (MarkerInfo newMarker : newMarkers) {
+			if (isPersistent(newMarker)) {
+				info.set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
+				break;
+			}
+		}
 		//Concurrency: copy the marker set on modify
 		MarkerSet markers = info.getMarkers(true);
 		if (markers == null)
-			markers = new MarkerSet(1);
-		basicAdd(resource, markers, newMarker);
+			markers = new MarkerSet(newMarkers.length);
+		basicAdd(resource, markers, newMarkers);
 		if (!markers.isEmpty())
 			info.setMarkers(markers);
+		for (MarkerInfo newMarker : newMarkers)
+			indexType(resource.getFullPath(), newMarker.getType());
+		// drop the rollups again, basicAdd already did so before the set
+		invalidateRollups(resource.getFullPath());
 	}
 
 	/**
@@ -77,16 +128,20 @@ public class MarkerManager implements IManager {
 	 * are associated with the specified resource.IMarkerDeltas for Added markers
 	 * are generated.
 	 */
-	private void basicAdd(IResource resource, MarkerSet markers, MarkerInfo newMarker) throws CoreException {
-		// should always be a new marker.
-		if (newMarker.getId() != MarkerInfo.UNDEFINED_ID) {
-			String message = Messages.resources_changeInAdd;
-			throw new ResourceException(new ResourceStatus(IResourceStatus.INTERNAL_ERROR, resource.getFullPath(), message));
+	private void basicAdd(IResource resource, MarkerSet markers, MarkerInfo[] newMarkers) throws CoreException {
+		// should always be new markers.
+		for (MarkerInfo newMarker : newMarkers) {
+			if (newMarker.getId() != MarkerInfo.UNDEFINED_ID) {
+				String message = Messages.resources_changeInAdd;
+				throw new ResourceException(new ResourceStatus(IResourceStatus.INTERNAL_ERROR, resource.getFullPath(), message));
+			}
+		}
+		IMarkerSetElement[] changes = new IMarkerSetElement[newMarkers.length];
+		for (int i = 0; i < newMarkers.length; i++) {
+			newMarkers[i].setId(workspace.nextMarkerId());
+			markers.add(newMarkers[i]);
+			changes[i] = new MarkerDelta(IResourceDelta.ADDED, resource, newMarkers[i]);
 		}
-		newMarker.setId(workspace.nextMarkerId());
-		markers.add(newMarker);
-		IMarkerSetElement[] changes = new IMarkerSetElement[1];
-		changes[0] = new MarkerDelta(IResourceDelta.ADDED, resource, newMarker);
 		changedMarkers(resource, changes);
 	}
 
@@ -194,6 +249,7 @@ public class MarkerManager implements IManager {
 			}
 		}
 		info.set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
+		unindexTypes(path, info.getMarkers(false), matching);
 		IMarkerSetElement[] changes = new IMarkerSetElement[matching.length];
 		IResource resource = workspace.getRoot().findMember(path);
 		for (int i = 0; i < matching.length; i++)
@@ -234,6 +290,7 @@ public class MarkerManager implements IManager {
 		ResourceInfo info = workspace.getResourceInfo(path, false, true);
 		if (info != null)
 			info.incrementMarkerGenerationCount();
+		invalidateRollups(path);
 	}
 
 	/**
@@ -278,9 +335,9 @@ public class MarkerManager implements IManager {
 	 * for all types (i.e., <code>null</code> is a wildcard.
 	 */
 	public void doFindMarkers(IResource target, ArrayList<IMarker> result, final String type, final boolean includeSubtypes, int depth) {
-		//optimize the deep searches with an element tree visitor
+		//deep searches only visit the resources listed in the type index
 		if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
-			visitorFindMarkers(target.getFullPath(), result, type, includeSubtypes);
+			indexFindMarkers(target.getFullPath(), result, type, includeSubtypes);
 		else
 			recursiveFindMarkers(target.getFullPath(), result, type, includeSubtypes, depth);
 	}
@@ -290,9 +347,12 @@ public class MarkerManager implements IManager {
 	 * with option to search the target's children.
 	 */
 	public int findMaxProblemSeverity(IResource target, String type, boolean includeSubtypes, int depth) {
-		//optimize the deep searches with an element tree visitor
-		if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE)
+		//deep searches use the rollups of the containers
+		if (depth == IResource.DEPTH_INFINITE && target.getType() != IResource.FILE) {
+			if (includeSubtypes)
+				return rollupFindMaxSeverity(target.getFullPath(), type);
 			return visitorFindMaxSeverity(target.getFullPath(), type, includeSubtypes);
+		}
 		return recursiveFindMaxSeverity(target.getFullPath(), type, includeSubtypes, depth);
 	}
 
@@ -339,6 +399,201 @@ public class MarkerManager implements IManager {
 		return cache.isPersistent(type);
 	}
 
+	/**
+	 * Drops the severity rollups of the given path and its ancestors. Must be
+	 * called after markers or resources at or below the given path have
+	 * changed, and after the change is visible in the tree.
+	 */
+	void invalidateRollups(IPath path) {
+		synchronized (severityRollups) {
+			if (severityRollups.isEmpty())
+				return;
+			rollupStamp++;
+			for (int i = path.segmentCount(); i >= 0; i--)
+				severityRollups.remove(path.uptoSegment(i));
+		}
+	}
+
+	/**
+	 * Updates the severity rollups and the type index for a resource that was
+	 * added to the tree, or whose info was replaced, with the given info.
+	 */
+	void resourceCreated(IPath path, ResourceInfo info) {
+		// copied infos may carry markers
+		MarkerSet markers = info.getMarkers(false);
+		if (markers != null)
+			for (IMarkerSetElement element : markers.elements())
+				indexType(path, ((MarkerInfo) element).getType());
+		invalidateRollups(path);
+	}
+
+	/**
+	 * Drops the severity rollups of the given path, its ancestors and its
+	 * descendants, and the type index entries of the path and its descendants.
+	 * Must be called after the resource at the given path was removed from
+	 * the tree.
+	 */
+	void resourceDeleted(IPath path) {
+		synchronized (typeIndexLock) {
+			if (typeIndex != null) {
+				for (Iterator<NavigableSet<IPath>> i = typeIndex.values().iterator(); i.hasNext();) {
+					NavigableSet<IPath> paths = i.next();
+					removeSubtree(paths, path);
+					if (paths.isEmpty())
+						i.remove();
+				}
+			}
+		}
+		synchronized (severityRollups) {
+			if (severityRollups.isEmpty())
+				return;
+			rollupStamp++;
+			for (int i = path.segmentCount() - 1; i >= 0; i--)
+				severityRollups.remove(path.uptoSegment(i));
+			removeSubtree(severityRollups.navigableKeySet(), path);
+		}
+	}
+
+	/**
+	 * Removes the given path and the paths below it from the given set of
+	 * paths in tree order. Only visits the removed paths.
+	 */
+	private static void removeSubtree(NavigableSet<IPath> paths, IPath path) {
+		for (Iterator<IPath> i = paths.tailSet(path, true).iterator(); i.hasNext();) {
+			if (!path.isPrefixOf(i.next()))
+				break;
+			i.remove();
+		}
+	}
+
+	/**
+	 * Drops all severity rollups. Must be called after trees or markers were
+	 * replaced without going through this manager.
+	 */
+	void resetRollups() {
+		synchronized (severityRollups) {
+			rollupStamp++;
+			severityRollups.clear();
+		}
+	}
+
+	/**
+	 * Lists the given path under the given marker type in the type index.
+	 */
+	private void indexType(IPath path, String type) {
+		synchronized (typeIndexLock) {
+			if (typeIndex == null) {
+				// an index built concurrently may miss the new marker
+				typeIndexStamp++;
+				return;
+			}
+			typeIndex.computeIfAbsent(type, t -> new TreeSet<>(MarkerManager::compareTreeOrder)).add(path);
+		}
+	}
+
+	/**
+	 * Removes the given path from the type index for the types of the removed
+	 * markers that no longer occur in the remaining markers of the resource.
+	 */
+	private void unindexTypes(IPath path, MarkerSet remaining, IMarkerSetElement[] removed) {
+		synchronized (typeIndexLock) {
+			if (typeIndex == null)
+				return;
+			for (IMarkerSetElement element : removed) {
+				String type = ((MarkerInfo) element).getType();
+				NavigableSet<IPath> paths = typeIndex.get(type);
+				if (paths == null || (remaining != null && basicFindMatching(remaining, type, false).length > 0))
+					continue;
+				paths.remove(path);
+				if (paths.isEmpty())
+					typeIndex.remove(type);
+			}
+		}
+	}
+
+	/**
+	 * Drops the type index. It is rebuilt from the tree by the next query.
+	 */
+	void resetTypeIndex() {
+		synchronized (typeIndexLock) {
+			typeIndexStamp++;
+			typeIndex = null;
+		}
+	}
+
+	/**
+	 * Returns the paths of the resources that may hold markers of the given
+	 * type at or below the given path, in tree order. Rebuilds the type index
+	 * if necessary.
+	 */
+	private List<IPath> findIndexedPaths(IPath path, String type, boolean includeSubtypes) {
+		Map<String, NavigableSet<IPath>> index;
+		long stamp;
+		synchronized (typeIndexLock) {
+			index = typeIndex;
+			stamp = typeIndexStamp;
+		}
+		if (index == null) {
+			index = buildTypeIndex();
+			synchronized (typeIndexLock) {
+				if (typeIndex == null && stamp == typeIndexStamp)
+					typeIndex = index;
+			}
+		}
+		Set<IPath> found = new TreeSet<>(MarkerManager::compareTreeOrder);
+		synchronized (typeIndexLock) {
+			for (Map.Entry<String, NavigableSet<IPath>> entry : index.entrySet()) {
+				String indexedType = entry.getKey();
+				boolean matches = type == null || (includeSubtypes ? cache.isSubtype(indexedType, type) : indexedType.equals(type));
+				if (!matches)
+					continue;
+				// the paths below the given path follow it in tree order
+				for (IPath candidate : entry.getValue().tailSet(path, true)) {
+					if (!path.isPrefixOf(candidate))
+						break;
+					found.add(candidate);
+				}
+			}
+		}
+		return new ArrayList<>(found);
+	}
+
+	/**
+	 * Builds the type index from the markers in the tree.
+	 */
+	private Map<String, NavigableSet<IPath>> buildTypeIndex() {
+		Map<String, NavigableSet<IPath>> index = new HashMap<>();
+		IElementContentVisitor visitor = (tree, requestor, elementContents) -> {
+			ResourceInfo info = (ResourceInfo) elementContents;
+			if (info == null)
+				return false;
+			MarkerSet markers = info.getMarkers(false);
+			if (markers != null) {
+				IPath path = requestor.requestPath();
+				for (IMarkerSetElement element : markers.elements())
+					index.computeIfAbsent(((MarkerInfo) element).getType(), t -> new TreeSet<>(MarkerManager::compareTreeOrder)).add(path);
+			}
+			return true;
+		};
+		new ElementTreeIterator(workspace.getElementTree(), Path.ROOT).iterate(visitor);
+		return index;
+	}
+
+	/**
+	 * Compares paths in the order in which the element tree visits them:
+	 * parents before their children, siblings by name.
+	 */
+	private static int compareTreeOrder(IPath path1, IPath path2) {
+		int count1 = path1.segmentCount();
+		int count2 = path2.segmentCount();
+		for (int i = 0, count = Math.min(count1, count2); i < count; i++) {
+			int compare = path1.segment(i).compareTo(path2.segment(i));
+			if (compare != 0)
+				return compare;
+		}
+		return count1 - count2;
+	}
+
 	/**
 	 * Returns true if <code>type</code> is a sub type of <code>superType</code>.
 	 */
@@ -440,6 +695,71 @@ public class MarkerManager implements IManager {
 		return max;
 	}
 
+	/**
+	 * Adds the markers for a subtree of resources to the list, visiting only
+	 * the resources that the type index lists for the given type.
+	 */
+	private void indexFindMarkers(IPath path, ArrayList<IMarker> list, String type, boolean includeSubtypes) {
+		for (IPath candidate : findIndexedPaths(path, type, includeSubtypes)) {
+			ResourceInfo info = workspace.getResourceInfo(candidate, false, false);
+			if (info == null)
+				continue;
+			MarkerSet markers = info.getMarkers(false);
+			if (markers == null)
+				continue;
+			IMarkerSetElement[] matching;
+			if (type == null)
+				matching = markers.elements();
+			else
+				matching = basicFindMatching(markers, type, includeSubtypes);
+			buildMarkers(matching, candidate, info.getType(), list);
+		}
+	}
+
+	/**
+	 * Finds the max severity across markers of the given type and its subtypes
+	 * for the subtree of resources below the given container. Container results
+	 * are remembered, so only containers whose subtree changed since the last
+	 * query are visited again.
+	 */
+	private int rollupFindMaxSeverity(IPath path, String type) {
+		long stamp;
+		synchronized (severityRollups) {
+			Map<String, Integer> rollups = severityRollups.get(path);
+			Integer rollup = rollups == null ? null : rollups.get(type);
+			if (rollup != null)
+				return rollup.intValue();
+			stamp = rollupStamp;
+		}
+		ResourceInfo info = workspace.getResourceInfo(path, false, false);
+		if (info == null)
+			return -1;
+		MarkerSet markers = info.getMarkers(false);
+		int max = markers == null ? -1 : basicFindMaxSeverity(markers, type, true);
+		if (max < IMarker.SEVERITY_ERROR) {
+			for (IPath child : workspace.getElementTree().getChildren(path)) {
+				ResourceInfo childInfo = workspace.getResourceInfo(child, false, false);
+				if (childInfo == null)
+					continue;
+				if (childInfo.getType() == IResource.FILE) {
+					MarkerSet childMarkers = childInfo.getMarkers(false);
+					if (childMarkers != null)
+						max = Math.max(max, basicFindMaxSeverity(childMarkers, type, true));
+				} else {
+					max = Math.max(max, rollupFindMaxSeverity(child, type));
+				}
+				if (max >= IMarker.SEVERITY_ERROR)
+					break;
+			}
+		}
+		synchronized (severityRollups) {
+			// don't remember results that a concurrent change may have outdated
+			if (stamp == rollupStamp)
+				severityRollups.computeIfAbsent(path, p -> new HashMap<>(4)).put(type, Integer.valueOf(max));
+		}
+		return max;
+	}
+
 	/**
 	 * Adds the markers for a subtree of resources to the list.
 	 */
@@ -488,10 +808,47 @@ public class MarkerManager implements IManager {
 			if (isPersistent(markerInfo))
 				info.set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
 			IMarkerSetElement[] change = new IMarkerSetElement[] {new MarkerDelta(IResourceDelta.REMOVED, resource, markerInfo)};
+			unindexTypes(resource.getFullPath(), markers, new IMarkerSetElement[] {markerInfo});
 			changedMarkers(resource, change);
 		}
 	}
 
+	/**
+	 * Removes the markers with the given ids from the given resource. The
+	 * markers are removed from the marker set of the resource at once, and
+	 * reported together. Ids of markers that do not exist are ignored.
+	 */
+	public void removeMarkers(IResource resource, long[] ids) {
+		ResourceInfo info = workspace.getResourceInfo(resource.getFullPath(), false, false);
+		MarkerSet existing = info == null ? null : info.getMarkers(false);
+		if (existing == null)
+			return;
+		Set<IMarkerSetElement> removed = new LinkedHashSet<>();
+		for (long id : ids) {
+			IMarkerSetElement markerInfo = existing.get(id);
+			if (markerInfo != null)
+				removed.add(markerInfo);
+		}
+		if (removed.isEmpty())
+			return;
+		info = workspace.getResourceInfo(resource.getFullPath(), false, true);
+		//Concurrency: copy the marker set on modify
+		MarkerSet markers = info.getMarkers(true);
+		IMarkerSetElement[] elements = removed.toArray(new IMarkerSetElement[removed.size()]);
+		markers.removeAll(elements);
+		// if those were the last markers remove the set to save space.
+		info.setMarkers(markers.size() == 0 ? null : markers);
+		IMarkerSetElement[] changes = new IMarkerSetElement[elements.length];
+		for (int i = 0; i < elements.length; i++) {
+			MarkerInfo markerInfo = (MarkerInfo) elements[i];
+			if (isPersistent(markerInfo))
+				info.set(ICoreConstants.M_MARKERS_SNAP_DIRTY);
+			changes[i] = new MarkerDelta(IResourceDelta.REMOVED, resource, markerInfo);
+		}
+		unindexTypes(resource.getFullPath(), markers, elements);
+		changedMarkers(resource, changes);
+	}
+
 	/**
 	 * Remove all markers for the given resource to the specified depth.
 	 */
@@ -520,21 +877,36 @@ public class MarkerManager implements IManager {
 	}
 
 	public void restore(IResource resource, boolean generateDeltas, IProgressMonitor monitor) throws CoreException {
+		restore(resource, null, generateDeltas, monitor);
+	}
+
+	/**
+	 * Restores the markers of the given resource. If the contents of its markers
+	 * file have already been read, they are given as <code>saved</code>; otherwise
+	 * <code>saved</code> is <code>null</code> and the file is read here.
+	 */
+	public void restore(IResource resource, byte[] saved, boolean generateDeltas, IProgressMonitor monitor) throws CoreException {
 		// first try and load the last saved file, then apply the snapshots
-		restoreFromSave(resource, generateDeltas);
-		restoreFromSnap(resource);
+		try {
+			restoreFromSave(resource, saved, generateDeltas);
+			restoreFromSnap(resource);
+		} finally {
+			// the readers set markers without reporting all of them
+			resetRollups();
+			resetTypeIndex();
+		}
 	}
 
-	protected void restoreFromSave(IResource resource, boolean generateDeltas) throws CoreException {
+	protected void restoreFromSave(IResource resource, byte[] saved, boolean generateDeltas) throws CoreException {
 		IPath sourceLocation = workspace.getMetaArea().getMarkersLocationFor(resource);
 		IPath tempLocation = workspace.getMetaArea().getBackupLocationFor(sourceLocation);
 		java.io.File sourceFile = new java.io.File(sourceLocation.toOSString());
 		java.io.File tempFile = new java.io.File(tempLocation.toOSString());
-		if (!sourceFile.exists() && !tempFile.exists())
+		if (saved == null && !sourceFile.exists() && !tempFile.exists())
 			return;
 		try {
 			try (
-				DataInputStream input = new DataInputStream(new SafeFileInputStream(sourceLocation.toOSString(), tempLocation.toOSString()));
+				DataInputStream input = new DataInputStream(saved != null ? new ByteArrayInputStream(saved) : new SafeFileInputStream(sourceLocation.toOSString(), tempLocation.toOSString()));
 			) {
 				MarkerReader reader = new MarkerReader(workspace);
 				reader.read(input, generateDeltas);
@@ -586,30 +958,6 @@ public class MarkerManager implements IManager {
 		// do nothing
 	}
 
-	/**
-	 * Adds the markers for a subtree of resources to the list.
-	 */
-	private void visitorFindMarkers(IPath path, final ArrayList<IMarker> list, final String type, final boolean includeSubtypes) {
-		IElementContentVisitor visitor = (tree, requestor, elementContents) -> {
-			ResourceInfo info = (ResourceInfo) elementContents;
-			if (info == null)
-				return false;
-			MarkerSet markers = info.getMarkers(false);
-
-			//add the matching markers for this resource
-			if (markers != null) {
-				IMarkerSetElement[] matching;
-				if (type == null)
-					matching = markers.elements();
-				else
-					matching = basicFindMatching(markers, type, includeSubtypes);
-				buildMarkers(matching, requestor.requestPath(), info.getType(), list);
-			}
-			return true;
-		};
-		new ElementTreeIterator(workspace.getElementTree(), path).iterate(visitor);
-	}
-
 	/**
 	 * Finds the max severity across problem markers for a subtree of resources.
 	 */
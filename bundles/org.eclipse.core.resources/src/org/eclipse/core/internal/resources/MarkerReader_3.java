@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -99,7 +99,7 @@ public class MarkerReader_3 extends MarkerReader {
 		int attributesSize = input.readShort();
 		if (attributesSize == 0)
 			return null;
-		Map<String, Object> result = new MarkerAttributeMap<>(attributesSize);
+		MarkerAttributeMap<Object> result = new MarkerAttributeMap<>(attributesSize);
 		for (int j = 0; j < attributesSize; j++) {
 			String key = input.readUTF();
 			byte type = input.readByte();
@@ -135,6 +135,7 @@ public class MarkerReader_3 extends MarkerReader {
 			if (value != null)
 				result.put(key, value);
 		}
+		result.trimToSize();
 		return result.isEmpty() ? null : result;
 	}
 
@@ -23,10 +23,14 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 	// internal preference keys
 	public static final String PREF_OPERATIONS_PER_SNAPSHOT = "snapshots.operations"; //$NON-NLS-1$
 	public static final String PREF_DELTA_EXPIRATION = "delta.expiration"; //$NON-NLS-1$
+	public static final String PREF_PARALLEL_REFRESH = "refresh.parallel"; //$NON-NLS-1$
+	public static final String PREF_HISTORY_DEDUPLICATE = "history.deduplicate"; //$NON-NLS-1$
+	public static final String PREF_HISTORY_COMPRESS = "history.compress"; //$NON-NLS-1$
 
 	// DEFAULTS
 	public static final boolean PREF_AUTO_REFRESH_DEFAULT = false;
 	public static final boolean PREF_LIGHTWEIGHT_AUTO_REFRESH_DEFAULT = true;
+	public static final boolean PREF_PARALLEL_REFRESH_DEFAULT = false;
 	public static final boolean PREF_DISABLE_LINKING_DEFAULT = false;
 	public static final String PREF_ENCODING_DEFAULT = ""; //$NON-NLS-1$
 	public static final boolean PREF_AUTO_BUILDING_DEFAULT = true;
@@ -39,6 +43,8 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 	public static final long PREF_FILE_STATE_LONGEVITY_DEFAULT = 7 * 24 * 3600 * 1000l; // 7 days
 	public static final long PREF_MAX_FILE_STATE_SIZE_DEFAULT = 1024 * 1024l; // 1 MB
 	public static final int PREF_MAX_FILE_STATES_DEFAULT = 50;
+	public static final boolean PREF_HISTORY_DEDUPLICATE_DEFAULT = false;
+	public static final boolean PREF_HISTORY_COMPRESS_DEFAULT = false;
 	public static final long PREF_DELTA_EXPIRATION_DEFAULT = 30 * 24 * 3600 * 1000l; // 30 days
 	/**
 	 * Default setting for {@value ResourcesPlugin#PREF_MISSING_NATURE_MARKER_SEVERITY}.
@@ -62,6 +68,7 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 		// auto-refresh default
 		node.putBoolean(ResourcesPlugin.PREF_AUTO_REFRESH, PREF_AUTO_REFRESH_DEFAULT);
 		node.putBoolean(ResourcesPlugin.PREF_LIGHTWEIGHT_AUTO_REFRESH, PREF_LIGHTWEIGHT_AUTO_REFRESH_DEFAULT);
+		node.putBoolean(PREF_PARALLEL_REFRESH, PREF_PARALLEL_REFRESH_DEFAULT);
 
 		// linked resources default
 		node.putBoolean(ResourcesPlugin.PREF_DISABLE_LINKING, PREF_DISABLE_LINKING_DEFAULT);
@@ -78,6 +85,8 @@ public class PreferenceInitializer extends AbstractPreferenceInitializer {
 		node.putLong(ResourcesPlugin.PREF_FILE_STATE_LONGEVITY, PREF_FILE_STATE_LONGEVITY_DEFAULT);
 		node.putLong(ResourcesPlugin.PREF_MAX_FILE_STATE_SIZE, PREF_MAX_FILE_STATE_SIZE_DEFAULT);
 		node.putInt(ResourcesPlugin.PREF_MAX_FILE_STATES, PREF_MAX_FILE_STATES_DEFAULT);
+		node.putBoolean(PREF_HISTORY_DEDUPLICATE, PREF_HISTORY_DEDUPLICATE_DEFAULT);
+		node.putBoolean(PREF_HISTORY_COMPRESS, PREF_HISTORY_COMPRESS_DEFAULT);
 
 		// save manager defaults
 		node.putLong(ResourcesPlugin.PREF_SNAPSHOT_INTERVAL, PREF_SNAPSHOT_INTERVAL_DEFAULT);
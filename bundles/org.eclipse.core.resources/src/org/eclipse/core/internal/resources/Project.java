@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -741,6 +741,7 @@ public class Project extends Container implements IProject {
 		info.natures = null;
 		info.setMarkers(null);
 		info.clearSessionProperties();
+		workspace.getMarkerManager().invalidateRollups(destination.getFullPath());
 	}
 
 	/**
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -448,7 +448,21 @@ public class ProjectPreferences extends EclipsePreferences {
 					charsetManager.mergeEncodingPreferences(project);
 			}
 		}
-		return super.internalPut(key, newValue);
+		String oldValue = super.internalPut(key, newValue);
+		encodingPreferencesChanged();
+		return oldValue;
+	}
+
+	/**
+	 * Lets the charset manager know that a preference that may affect the
+	 * encodings of the project changed.
+	 */
+	private void encodingPreferencesChanged() {
+		if (project == null || !(PREFS_REGULAR_QUALIFIER.equals(qualifier) || PREFS_DERIVED_QUALIFIER.equals(qualifier)))
+			return;
+		CharsetManager charsetManager = ((Workspace) ResourcesPlugin.getWorkspace()).getCharsetManager();
+		if (charsetManager != null)
+			charsetManager.invalidateCharsets(project);
 	}
 
 	private void initialize() {
@@ -565,6 +579,7 @@ public class ProjectPreferences extends EclipsePreferences {
 		checkRemoved();
 		silentLoad();
 		super.remove(key);
+		encodingPreferencesChanged();
 		if ((segmentCount == 3) && PREFS_REGULAR_QUALIFIER.equals(qualifier) && (project != null)) {
 			if (ResourcesPlugin.PREF_SEPARATE_DERIVED_ENCODINGS.equals(key)) {
 				CharsetManager charsetManager = ((Workspace) ResourcesPlugin.getWorkspace()).getCharsetManager();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -25,6 +25,50 @@ import org.eclipse.core.runtime.QualifiedName;
  * A data structure containing the in-memory state of a resource in the workspace.
  */
 public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPoolParticipant {
+	/**
+	 * The state that only few resources have. It is kept out of the info
+	 * itself, so that the many resources without it only pay for a single
+	 * reference.
+	 * <p>
+	 * Infos are shallow copied when the element tree is copied on write, so
+	 * changing the markers, session properties or file store root replaces
+	 * the holder rather than modifying it, and other copies are not affected.
+	 * The sync info map is still updated in place and thus shared with copies,
+	 * as it was before the holder was introduced.
+	 * </p>
+	 */
+	private static final class Extras {
+		static final Extras EMPTY = new Extras(null, null, null, null);
+
+		/** The file system root that this resource is stored in */
+		final FileStoreRoot fileStoreRoot;
+
+		/** The collection of markers for this resource. */
+		final MarkerSet markers;
+
+		/** The properties which are maintained for the lifecycle of the workspace. */
+		final ObjectMap<QualifiedName, Object> sessionProperties;
+
+		/** The table of sync information. */
+		final ObjectMap<QualifiedName, Object> syncInfo;
+
+		Extras(FileStoreRoot fileStoreRoot, MarkerSet markers, ObjectMap<QualifiedName, Object> sessionProperties, ObjectMap<QualifiedName, Object> syncInfo) {
+			this.fileStoreRoot = fileStoreRoot;
+			this.markers = markers;
+			this.sessionProperties = sessionProperties;
+			this.syncInfo = syncInfo;
+		}
+
+		/**
+		 * Returns the given extras, or <code>null</code> if they hold nothing.
+		 */
+		static Extras of(FileStoreRoot fileStoreRoot, MarkerSet markers, ObjectMap<QualifiedName, Object> sessionProperties, ObjectMap<QualifiedName, Object> syncInfo) {
+			if (fileStoreRoot == null && markers == null && sessionProperties == null && syncInfo == null)
+				return null;
+			return new Extras(fileStoreRoot, markers, sessionProperties, syncInfo);
+		}
+	}
+
 	protected static final int LOWER = 0xFFFF;
 	protected static final int UPPER = 0xFFFF0000;
 
@@ -35,9 +79,10 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	protected volatile int charsetAndContentId = 0;
 
 	/**
-	 * The file system root that this resource is stored in
+	 * The file system root, markers, session properties and sync info of this
+	 * resource, or <code>null</code> if it has none of them.
 	 */
-	protected FileStoreRoot fileStoreRoot;
+	private volatile Extras extras = null;
 
 	/** Set of flags which reflect various states of the info (used, derived, ...). */
 	protected int flags = 0;
@@ -52,9 +97,6 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 */
 	protected volatile int markerAndSyncStamp;
 
-	/** The collection of markers for this resource. */
-	protected MarkerSet markers = null;
-
 	/** Modification stamp */
 	protected long modStamp = 0;
 
@@ -62,23 +104,10 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	// thread safety: (Concurrency004)
 	protected volatile long nodeId = 0;
 
-	/**
-	 * The properties which are maintained for the lifecycle of the workspace.
-	 * <p>
-	 * This field is declared as the implementing class rather than the
-	 * interface so we ensure that we get it right since we are making certain
-	 * assumptions about the object type w.r.t. casting.
-	 */
-	protected ObjectMap<QualifiedName, Object> sessionProperties = null;
-
-	/**
-	 * The table of sync information.
-	 * <p>
-	 * This field is declared as the implementing class rather than the
-	 * interface so we ensure that we get it right since we are making certain
-	 * assumptions about the object type w.r.t. casting.
-	 */
-	protected ObjectMap<QualifiedName, Object> syncInfo = null;
+	private Extras extras() {
+		Extras temp = extras;
+		return temp == null ? Extras.EMPTY : temp;
+	}
 
 	/**
 	 * Returns the integer value stored in the indicated part of this info's flags.
@@ -114,7 +143,8 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	}
 
 	public synchronized void clearSessionProperties() {
-		sessionProperties = null;
+		Extras temp = extras();
+		extras = Extras.of(temp.fileStoreRoot, temp.markers, null, temp.syncInfo);
 	}
 
 	@Override
@@ -135,7 +165,7 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	}
 
 	public FileStoreRoot getFileStoreRoot() {
-		return fileStoreRoot;
+		return extras().fileStoreRoot;
 	}
 
 	/**
@@ -173,6 +203,7 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 * <code>null</code> is returned if there are none.
 	 */
 	public MarkerSet getMarkers(boolean makeCopy) {
+		MarkerSet markers = extras().markers;
 		if (markers == null)
 			return null;
 		return makeCopy ? (MarkerSet) markers.clone() : markers;
@@ -200,11 +231,11 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	@SuppressWarnings({"unchecked"})
 	public Map<QualifiedName, Object> getSessionProperties() {
 		// thread safety: (Concurrency001)
-		ObjectMap<QualifiedName, Object> temp = sessionProperties;
+		ObjectMap<QualifiedName, Object> temp = extras().sessionProperties;
 		if (temp == null)
 			temp = new ObjectMap<>(5);
 		else
-			temp = (ObjectMap<QualifiedName, Object>) sessionProperties.clone();
+			temp = (ObjectMap<QualifiedName, Object>) temp.clone();
 		return temp;
 	}
 
@@ -213,7 +244,7 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 */
 	public Object getSessionProperty(QualifiedName name) {
 		// thread safety: (Concurrency001)
-		Map<QualifiedName, Object> temp = sessionProperties;
+		Map<QualifiedName, Object> temp = extras().sessionProperties;
 		if (temp == null)
 			return null;
 		return temp.get(name);
@@ -226,6 +257,7 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 */
 	@SuppressWarnings({"unchecked"})
 	public synchronized ObjectMap<QualifiedName, Object> getSyncInfo(boolean makeCopy) {
+		ObjectMap<QualifiedName, Object> syncInfo = extras().syncInfo;
 		if (syncInfo == null)
 			return null;
 		return makeCopy ? (ObjectMap<QualifiedName, Object>) syncInfo.clone() : syncInfo;
@@ -234,6 +266,7 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	public synchronized byte[] getSyncInfo(QualifiedName id, boolean makeCopy) {
 		// thread safety: (Concurrency001)
 		byte[] b;
+		ObjectMap<QualifiedName, Object> syncInfo = extras().syncInfo;
 		if (syncInfo == null)
 			return null;
 		b = (byte[]) syncInfo.get(id);
@@ -338,8 +371,9 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 		flags = temp;
 	}
 
-	public void setFileStoreRoot(FileStoreRoot fileStoreRoot) {
-		this.fileStoreRoot = fileStoreRoot;
+	public synchronized void setFileStoreRoot(FileStoreRoot fileStoreRoot) {
+		Extras temp = extras();
+		extras = Extras.of(fileStoreRoot, temp.markers, temp.sessionProperties, temp.syncInfo);
 	}
 
 	/**
@@ -360,8 +394,9 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 * Sets the collection of makers for this resource.
 	 * <code>null</code> is passed in if there are no markers.
 	 */
-	public void setMarkers(MarkerSet value) {
-		markers = value;
+	public synchronized void setMarkers(MarkerSet value) {
+		Extras temp = extras();
+		extras = Extras.of(temp.fileStoreRoot, value, temp.sessionProperties, temp.syncInfo);
 	}
 
 	/**
@@ -396,6 +431,8 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	@SuppressWarnings({"unchecked"})
 	public synchronized void setSessionProperty(QualifiedName name, Object value) {
 		// thread safety: (Concurrency001)
+		Extras current = extras();
+		ObjectMap<QualifiedName, Object> sessionProperties = current.sessionProperties;
 		if (value == null) {
 			if (sessionProperties == null)
 				return;
@@ -414,6 +451,7 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 			temp.put(name, value);
 			sessionProperties = temp;
 		}
+		extras = Extras.of(current.fileStoreRoot, current.markers, sessionProperties, current.syncInfo);
 	}
 
 	/**
@@ -421,22 +459,26 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 * interface so we ensure that we get it right since we are making certain
 	 * assumptions about the object type w.r.t. casting.
 	 */
-	protected void setSyncInfo(ObjectMap<QualifiedName, Object> syncInfo) {
-		this.syncInfo = syncInfo;
+	protected synchronized void setSyncInfo(ObjectMap<QualifiedName, Object> syncInfo) {
+		Extras temp = extras();
+		extras = Extras.of(temp.fileStoreRoot, temp.markers, temp.sessionProperties, syncInfo);
 	}
 
 	public synchronized void setSyncInfo(QualifiedName id, byte[] value) {
+		ObjectMap<QualifiedName, Object> syncInfo = extras().syncInfo;
 		if (value == null) {
 			//delete sync info
 			if (syncInfo == null)
 				return;
 			syncInfo.remove(id);
 			if (syncInfo.isEmpty())
-				syncInfo = null;
+				setSyncInfo(null);
 		} else {
 			//add sync info
-			if (syncInfo == null)
+			if (syncInfo == null) {
 				syncInfo = new ObjectMap<>(5);
+				setSyncInfo(syncInfo);
+			}
 			syncInfo.put(id, value.clone());
 		}
 	}
@@ -454,13 +496,14 @@ public class ResourceInfo implements IElementTreeData, ICoreConstants, IStringPo
 	 */
 	@Override
 	public void shareStrings(StringPool set) {
-		ObjectMap<QualifiedName, Object> map = syncInfo;
+		Extras temp = extras();
+		ObjectMap<QualifiedName, Object> map = temp.syncInfo;
 		if (map != null)
 			map.shareStrings(set);
-		map = sessionProperties;
+		map = temp.sessionProperties;
 		if (map != null)
 			map.shareStrings(set);
-		MarkerSet markerSet = markers;
+		MarkerSet markerSet = temp.markers;
 		if (markerSet != null)
 			markerSet.shareStrings(set);
 	}
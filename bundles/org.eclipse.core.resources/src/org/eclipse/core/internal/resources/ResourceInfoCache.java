@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import org.eclipse.core.internal.watson.ElementTree;
+import org.eclipse.core.runtime.IPath;
+
+/**
+ * Remembers the resource infos looked up in an immutable element tree, so that
+ * repeated lookups of the same paths do not walk the tree again.
+ * <p>
+ * The contents of an immutable tree never change, so the remembered infos stay
+ * valid as long as the tree does. Only the infos of the most recently used tree
+ * are remembered; asking for another tree starts over. Lookups may happen from
+ * any thread without further synchronization.
+ * </p>
+ */
+public class ResourceInfoCache {
+	private static final class Entries {
+		final ConcurrentHashMap<IPath, Object> infos = new ConcurrentHashMap<>();
+		final ElementTree tree;
+
+		Entries(ElementTree tree) {
+			this.tree = tree;
+		}
+	}
+
+	private static final int MAX_ENTRIES = 8192;
+
+	/**
+	 * Marks the paths that are not in the tree.
+	 */
+	private static final Object MISSING = new Object();
+
+	private volatile Entries entries;
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+
+	/**
+	 * Forgets all remembered infos.
+	 */
+	public void flush() {
+		entries = null;
+	}
+
+	/**
+	 * Returns the info of the resource with the given path in the given
+	 * immutable tree, or <code>null</code> if there is no such resource. The
+	 * path must not be the root.
+	 */
+	public ResourceInfo get(ElementTree tree, IPath path) {
+		Entries current = entries;
+		if (current == null || current.tree != tree)
+			entries = current = new Entries(tree);
+		Object info = current.infos.get(path);
+		if (info != null) {
+			hits.increment();
+			return info == MISSING ? null : (ResourceInfo) info;
+		}
+		misses.increment();
+		ResourceInfo result = tree.includes(path) ? (ResourceInfo) tree.getElementData(path) : null;
+		if (current.infos.size() < MAX_ENTRIES)
+			current.infos.put(path, result == null ? MISSING : result);
+		return result;
+	}
+
+	/**
+	 * Returns the number of lookups answered from this cache.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the percentage of lookups answered from this cache.
+	 */
+	public int getHitRate() {
+		long hitCount = hits.sum();
+		long total = hitCount + misses.sum();
+		return total == 0 ? 0 : (int) (hitCount * 100 / total);
+	}
+
+	/**
+	 * Returns the number of lookups that had to walk the tree.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	@Override
+	public String toString() {
+		return "ResourceInfoCache(hits: " + getHits() + ", misses: " + getMisses() + ", hit rate: " + getHitRate() + "%)"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
+	}
+}
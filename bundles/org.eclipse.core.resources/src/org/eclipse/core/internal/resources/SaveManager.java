@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2016 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -20,12 +20,16 @@ package org.eclipse.core.internal.resources;
 import java.io.*;
 import java.io.File;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.*;
+import java.util.concurrent.ForkJoinTask;
 import java.util.zip.*;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
 import org.eclipse.core.internal.events.*;
 import org.eclipse.core.internal.localstore.*;
+import org.eclipse.core.internal.localstore.FileSystemResourceManager.DescriptionFile;
 import org.eclipse.core.internal.utils.*;
 import org.eclipse.core.internal.watson.*;
 import org.eclipse.core.resources.*;
@@ -56,6 +60,44 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		}
 	}
 
+	/**
+	 * The metadata of an open project, read ahead of restoring the workspace.
+	 * Reading does not access the workspace tree, so the metadata of all
+	 * projects is read concurrently, and then applied to the tree one project
+	 * after another.
+	 */
+	private final class StagedProject {
+		DescriptionFile description;
+		byte[] markers;
+		final Project project;
+		byte[] syncInfo;
+
+		StagedProject(Project project, DescriptionFile description) {
+			this.project = project;
+			this.description = description;
+		}
+
+		void read() {
+			LocalMetaArea metaArea = workspace.getMetaArea();
+			try {
+				IPath location = metaArea.getMarkersLocationFor(project);
+				markers = SafeFileInputStream.readAllBytes(location.toOSString(), metaArea.getBackupLocationFor(location).toOSString());
+				location = metaArea.getSyncInfoLocationFor(project);
+				syncInfo = SafeFileInputStream.readAllBytes(location.toOSString(), metaArea.getBackupLocationFor(location).toOSString());
+			} catch (IOException e) {
+				// the files are read again while restoring, which reports the failure
+				markers = syncInfo = null;
+			}
+			try {
+				if (description != null)
+					description.parse();
+			} catch (RuntimeException e) {
+				// the description is read again while restoring, which reports the failure
+				description = null;
+			}
+		}
+	}
+
 	protected static final String ROOT_SEQUENCE_NUMBER_KEY = Path.ROOT.toString() + LocalMetaArea.F_TREE;
 	protected static final String CLEAR_DELTA_PREFIX = "clearDelta_"; //$NON-NLS-1$
 	protected static final String DELTA_EXPIRATION_PREFIX = "deltaExpiration_"; //$NON-NLS-1$
@@ -66,6 +108,18 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 */
 	private static final long MIN_SNAPSHOT_DELAY = 1000 * 30L; //30 seconds
 
+	/**
+	 * The number of deltas appended to the snapshot file before it is
+	 * rewritten as a single delta against the last saved tree.
+	 */
+	private static final int MAX_SNAPSHOT_LAYERS = 32;
+
+	/**
+	 * The suffix of the file a compacted snapshot is written to before it
+	 * replaces the snapshot file.
+	 */
+	private static final String COMPACTED_SNAPSHOT_SUFFIX = ".compact"; //$NON-NLS-1$
+
 	/**
 	 * The number of empty operations that are equivalent to a single non-
 	 * trivial operation.
@@ -78,6 +132,18 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	protected static final String SAVE_NUMBER_PREFIX = "saveNumber_"; //$NON-NLS-1$
 	protected static final int SAVING = 2;
 	protected ElementTree lastSnap;
+
+	/**
+	 * The tree the deltas in the snapshot file are based on, that is, the
+	 * tree last written by a full save or read on startup.
+	 */
+	protected ElementTree snapBase;
+
+	/**
+	 * The number of deltas in the snapshot file.
+	 */
+	protected int snapLayers = 0;
+
 	protected MasterTable masterTable;
 
 	/**
@@ -118,6 +184,14 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 
 	protected final DelayedSnapshotJob snapshotJob;
 
+	/**
+	 * The number of tree layers the workspace has opened since the retained
+	 * trees were last collapsed.
+	 */
+	private int layerCount = 0;
+
+	protected final DelayedCollapseJob collapseJob;
+
 	protected volatile boolean snapshotRequested;
 	private IStatus snapshotRequestor;
 	protected Workspace workspace;
@@ -127,11 +201,18 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	private static final String DEBUG_PROJECT_SAVE = "Save on project "; //$NON-NLS-1$
 	private static final String DEBUG_SNAPSHOT = "Snapshot: "; //$NON-NLS-1$
 	private static final int TREE_BUFFER_SIZE = 1024 * 64;//64KB buffer
+	/**
+	 * The number of tree layers after which the retained trees are collapsed in
+	 * the background.
+	 */
+	private static final int COLLAPSE_LAYERS = 100;
+	private static final long COLLAPSE_DELAY = 1000;
 
 	public SaveManager(Workspace workspace) {
 		this.workspace = workspace;
 		this.masterTable = new MasterTable();
 		this.snapshotJob = new DelayedSnapshotJob(this);
+		this.collapseJob = new DelayedCollapseJob(this);
 		snapshotRequested = false;
 		snapshotRequestor = null;
 		saveParticipants = Collections.synchronizedMap(new HashMap<String, ISaveParticipant>(10));
@@ -263,21 +344,72 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	}
 
 	/**
-	 * Collects the set of ElementTrees we are still interested in,
-	 * and removes references to any other trees.
+	 * Collapses the retained trees in the background if the workspace has
+	 * opened enough tree layers since they were last collapsed. This should be
+	 * called at the end of every top level operation.
 	 */
-	protected void collapseTrees(Map<String, SaveContext> contexts) throws CoreException {
-		//collect trees we're interested in
+	public void collapseIfNeeded() {
+		if (isSaving || layerCount < COLLAPSE_LAYERS)
+			return;
+		if (collapseJob.getState() == Job.NONE)
+			collapseJob.schedule(COLLAPSE_DELAY);
+	}
 
+	/**
+	 * Records that the workspace has opened a new tree layer.
+	 */
+	public void treeLayerOpened() {
+		layerCount++;
+	}
+
+	/**
+	 * Collapses the retained trees in an operation of its own. Called by the
+	 * background job scheduled by <code>collapseIfNeeded</code>.
+	 */
+	protected void collapseTrees(IProgressMonitor monitor) throws CoreException {
+		ISchedulingRule rule = workspace.getRoot();
+		try {
+			workspace.prepareOperation(rule, monitor);
+			workspace.beginOperation(false);
+			// a save collapses the trees itself
+			if (!isSaving)
+				collapseTrees();
+		} finally {
+			workspace.endOperation(rule, false);
+		}
+	}
+
+	/**
+	 * Forgets the saved trees no participant is interested in any more, and
+	 * collapses the chains between the remaining trees.
+	 */
+	protected void collapseTrees(Map<String, SaveContext> contexts) throws CoreException {
 		//forget saved trees, if they are not used by registered participants
 		synchronized (savedStates) {
 			for (SaveContext context : contexts.values()) {
 				forgetSavedTree(context.getPluginId());
 			}
 		}
+		collapseTrees();
+	}
 
-		//trees for plugin saved states
+	/**
+	 * Collects the set of ElementTrees we are still interested in,
+	 * and removes references to any other trees.
+	 * <p>
+	 * Every layer opened since one of these trees was created remains in its
+	 * delta chain, so lookups in the tree and deltas computed from it become
+	 * slower as the workspace changes. Collapsing each tree onto the next
+	 * newer one keeps exactly one layer per tree, and leaves the layers in
+	 * between to the garbage collector.
+	 * </p>
+	 */
+	private void collapseTrees() throws CoreException {
+		layerCount = 0;
+		//collect trees we're interested in
 		ArrayList<ElementTree> trees = new ArrayList<>();
+
+		//trees for plugin saved states
 		synchronized (savedStates) {
 			for (SavedState state : savedStates.values()) {
 				if (state.oldTree != null) {
@@ -299,12 +431,21 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			}
 		}
 
+		//trees for resource change notifications and snapshots
+		workspace.getNotificationManager().collectRetainedTrees(trees);
+		if (lastSnap != null)
+			trees.add(lastSnap);
+		if (snapBase != null)
+			trees.add(snapBase);
+
 		//no need to collapse if there are no trees at this point
 		if (trees.isEmpty())
 			return;
 
 		//the complete tree
-		trees.add(workspace.getElementTree());
+		ElementTree current = workspace.getElementTree();
+		current.immutable();
+		trees.add(current);
 
 		//collapse the trees
 		//sort trees in topological order, and set the parent of each
@@ -316,8 +457,20 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		// We will be able to GC the layers at a later time.
 		if (sorted == null)
 			return;
+		// the chain of the oldest tree passes through all others, so it only
+		// has unused layers if it is deeper than the number of other trees
+		int retained = 0;
+		for (int i = 1; i < sorted.length; i++)
+			if (sorted[i] != sorted[i - 1])
+				retained++;
+		int depth = sorted[sorted.length - 1].getDeltaDepth();
+		if (depth <= retained)
+			return;
+		long start = System.currentTimeMillis();
 		for (int i = 1; i < sorted.length; i++)
 			sorted[i].collapseTo(sorted[i - 1]);
+		if (Policy.DEBUG_SAVE_TREE)
+			Policy.debug("Collapsed " + depth + " tree layers to " + sorted[sorted.length - 1].getDeltaDepth() + ": " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$
 	}
 
 	protected void commit(Map<String, SaveContext> contexts) throws CoreException {
@@ -488,10 +641,13 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		// otherwise ensuing snapshot deltas may be based on an incorrect tree (see bug 12575).
 		lastSnap = workspace.getElementTree();
 		lastSnap.immutable();
+		snapBase = lastSnap;
+		snapLayers = 0;
 		workspace.newWorkingTree();
 		operationCount = 0;
 		// Delete the snapshot files, if any.
 		IPath location = workspace.getMetaArea().getSnapshotLocationFor(workspace.getRoot());
+		getCompactedSnapshotFile(location).delete();
 		java.io.File target = location.toFile().getParentFile();
 		FilenameFilter filter = (dir, name) -> {
 			if (!name.endsWith(LocalMetaArea.F_SNAP))
@@ -702,20 +858,22 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				restoreTree(Policy.subMonitorFor(monitor, 10));
 				restoreSnapshots(Policy.subMonitorFor(monitor, 10));
 
+				// read the metadata of the projects concurrently, then apply it in order
+				Map<IProject, StagedProject> staged = stageProjects();
 				// tolerate failure for non-critical information
 				// if startup fails, the entire workspace is shot
 				try {
-					restoreMarkers(workspace.getRoot(), false, Policy.subMonitorFor(monitor, 10));
+					restoreMarkers(workspace.getRoot(), false, staged, Policy.subMonitorFor(monitor, 10));
 				} catch (CoreException e) {
 					problems.merge(e.getStatus());
 				}
 				try {
-					restoreSyncInfo(workspace.getRoot(), Policy.subMonitorFor(monitor, 10));
+					restoreSyncInfo(workspace.getRoot(), staged, Policy.subMonitorFor(monitor, 10));
 				} catch (CoreException e) {
 					problems.merge(e.getStatus());
 				}
 				// restore meta info last because it might close a project if its description is not readable
-				restoreMetaInfo(problems, Policy.subMonitorFor(monitor, 10));
+				restoreMetaInfo(problems, staged, Policy.subMonitorFor(monitor, 10));
 				IProject[] roots = workspace.getRoot().getProjects(IContainer.INCLUDE_HIDDEN);
 				for (IProject root : roots)
 					((Project) root).startup();
@@ -798,11 +956,43 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		return status;
 	}
 
+	/**
+	 * Reads the project descriptions, markers and sync info of the open
+	 * projects concurrently, ahead of applying them to the tree.
+	 */
+	private Map<IProject, StagedProject> stageProjects() {
+		long start = System.currentTimeMillis();
+		IProject[] projects = workspace.getRoot().getProjects(IContainer.INCLUDE_HIDDEN);
+		Map<IProject, StagedProject> staged = new HashMap<>(projects.length * 2 + 1);
+		List<ForkJoinTask<?>> tasks = new ArrayList<>(projects.length);
+		for (IProject project : projects) {
+			if (!project.isOpen())
+				continue;
+			DescriptionFile description = null;
+			try {
+				description = workspace.getFileSystemManager().openDescription(project, true);
+			} catch (CoreException e) {
+				// the description is read again while restoring, which reports the failure
+			}
+			StagedProject stage = new StagedProject((Project) project, description);
+			staged.put(project, stage);
+			tasks.add(ForkJoinTask.adapt(stage::read));
+		}
+		ForkJoinTask.invokeAll(tasks);
+		if (Policy.DEBUG_RESTORE)
+			Policy.debug("Restore workspace: read metadata of " + tasks.size() + " projects: " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$
+		return staged;
+	}
+
 	/**
 	 * Reads the markers which were originally saved
 	 * for the tree rooted by the given resource.
 	 */
 	protected void restoreMarkers(IResource resource, boolean generateDeltas, IProgressMonitor monitor) throws CoreException {
+		restoreMarkers(resource, generateDeltas, Collections.<IProject, StagedProject> emptyMap(), monitor);
+	}
+
+	private void restoreMarkers(IResource resource, boolean generateDeltas, Map<IProject, StagedProject> staged, IProgressMonitor monitor) throws CoreException {
 		Assert.isLegal(resource.getType() == IResource.ROOT || resource.getType() == IResource.PROJECT);
 		long start = System.currentTimeMillis();
 		MarkerManager markerManager = workspace.getMarkerManager();
@@ -818,9 +1008,14 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			return;
 		}
 		IProject[] projects = ((IWorkspaceRoot) resource).getProjects(IContainer.INCLUDE_HIDDEN);
-		for (IProject project : projects)
-			if (project.isAccessible())
-				markerManager.restore(project, generateDeltas, monitor);
+		for (IProject project : projects) {
+			if (project.isAccessible()) {
+				StagedProject stage = staged.get(project);
+				markerManager.restore(project, stage == null ? null : stage.markers, generateDeltas, monitor);
+				if (stage != null)
+					stage.markers = null;
+			}
+		}
 		if (Policy.DEBUG_RESTORE_MARKERS) {
 			Policy.debug("Restore Markers for workspace: " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
@@ -856,6 +1051,10 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 * which were open when it was last saved.
 	 */
 	protected void restoreMetaInfo(MultiStatus problems, IProgressMonitor monitor) {
+		restoreMetaInfo(problems, Collections.<IProject, StagedProject> emptyMap(), monitor);
+	}
+
+	private void restoreMetaInfo(MultiStatus problems, Map<IProject, StagedProject> staged, IProgressMonitor monitor) {
 		if (Policy.DEBUG_RESTORE_METAINFO)
 			Policy.debug("Restore workspace metainfo: starting..."); //$NON-NLS-1$
 		long start = System.currentTimeMillis();
@@ -863,7 +1062,8 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 		for (IProject root : roots) {
 			//fatal to throw exceptions during startup
 			try {
-				restoreMetaInfo((Project) root, monitor);
+				StagedProject stage = staged.get(root);
+				restoreMetaInfo((Project) root, stage == null ? null : stage.description, monitor);
 			} catch (CoreException e) {
 				String message = NLS.bind(Messages.resources_readMeta, root.getName());
 				problems.merge(new ResourceStatus(IResourceStatus.FAILED_READ_METADATA, root.getFullPath(), message, e));
@@ -878,11 +1078,21 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 * project description could not be restored.
 	 */
 	protected void restoreMetaInfo(Project project, IProgressMonitor monitor) throws CoreException {
+		restoreMetaInfo(project, null, monitor);
+	}
+
+	/**
+	 * Restores the contents of this project, using the given description file
+	 * if it has already been parsed.
+	 */
+	private void restoreMetaInfo(Project project, DescriptionFile staged, IProgressMonitor monitor) throws CoreException {
 		long start = System.currentTimeMillis();
 		ProjectDescription description = null;
 		CoreException failure = null;
 		try {
-			if (project.isOpen())
+			if (project.isOpen() && staged != null)
+				description = workspace.getFileSystemManager().read(staged);
+			else if (project.isOpen())
 				description = workspace.getFileSystemManager().read(project, true);
 			else
 				//for closed projects, just try to read the legacy .prj file,
@@ -947,6 +1157,9 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 				/* Read each of the snapshots and lay them on top of the current tree.*/
 				ElementTree complete = workspace.getElementTree();
 				complete.immutable();
+				// the number of deltas read is unknown, have the next snapshot compact them
+				snapBase = complete;
+				snapLayers = MAX_SNAPSHOT_LAYERS;
 				try (
 					DataInputStream input = new DataInputStream(new SafeChunkyInputStream(localFile));
 				) {
@@ -995,6 +1208,10 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 * for the tree rooted by the given resource.
 	 */
 	protected void restoreSyncInfo(IResource resource, IProgressMonitor monitor) throws CoreException {
+		restoreSyncInfo(resource, Collections.<IProject, StagedProject> emptyMap(), monitor);
+	}
+
+	private void restoreSyncInfo(IResource resource, Map<IProject, StagedProject> staged, IProgressMonitor monitor) throws CoreException {
 		Assert.isLegal(resource.getType() == IResource.ROOT || resource.getType() == IResource.PROJECT);
 		long start = System.currentTimeMillis();
 		Synchronizer synchronizer = (Synchronizer) workspace.getSynchronizer();
@@ -1010,9 +1227,14 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			return;
 		}
 		IProject[] projects = ((IWorkspaceRoot) resource).getProjects(IContainer.INCLUDE_HIDDEN);
-		for (IProject project : projects)
-			if (project.isAccessible())
-				synchronizer.restore(project, monitor);
+		for (IProject project : projects) {
+			if (project.isAccessible()) {
+				StagedProject stage = staged.get(project);
+				synchronizer.restore(project, stage == null ? null : stage.syncInfo, monitor);
+				if (stage != null)
+					stage.syncInfo = null;
+			}
+		}
 		if (Policy.DEBUG_RESTORE_SYNCINFO) {
 			Policy.debug("Restore SyncInfo for workspace: " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
 		}
@@ -1420,6 +1642,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			snapshotJob.run(Policy.monitorFor(monitor));
 		// cancel the snapshot job
 		snapshotJob.cancel();
+		collapseJob.cancel();
 	}
 
 	/**
@@ -1473,21 +1696,33 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			IPath snapPath = workspace.getMetaArea().getSnapshotLocationFor(workspace.getRoot());
 			ElementTreeWriter writer = new ElementTreeWriter(this);
 			java.io.File localFile = snapPath.toFile();
+			// Each snapshot appends the delta since the previous one. Once there are many
+			// deltas, they are folded into a single delta against the saved tree, so that
+			// crash recovery reads the net change rather than every intermediate layer.
+			boolean compact = snapBase != null && snapLayers >= MAX_SNAPSHOT_LAYERS;
+			java.io.File targetFile = compact ? getCompactedSnapshotFile(snapPath) : localFile;
 			try {
-				SafeChunkyOutputStream safeStream = new SafeChunkyOutputStream(localFile);
+				if (compact)
+					targetFile.delete();
+				SafeChunkyOutputStream safeStream = new SafeChunkyOutputStream(targetFile);
 				try (
 					DataOutputStream out = new DataOutputStream(safeStream);
 				) {
 					out.writeInt(ICoreConstants.WORKSPACE_TREE_VERSION_2);
 					writeWorkspaceFields(out, monitor);
-					writer.writeDelta(tree, lastSnap, Path.ROOT, ElementTreeWriter.D_INFINITE, out, ResourceComparator.getSaveComparator());
+					writer.writeDelta(tree, compact ? snapBase : lastSnap, Path.ROOT, ElementTreeWriter.D_INFINITE, out, ResourceComparator.getSaveComparator());
 					safeStream.succeed();
 					out.close();
 				}
+				if (compact)
+					Files.move(targetFile.toPath(), localFile.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
 			} catch (IOException e) {
 				message = NLS.bind(Messages.resources_writeWorkspaceMeta, localFile.getAbsolutePath());
 				throw new ResourceException(IResourceStatus.FAILED_WRITE_METADATA, Path.ROOT, message, e);
 			}
+			if (Policy.DEBUG_SAVE_TREE && compact)
+				Policy.debug("Compacted " + snapLayers + " snapshot deltas"); //$NON-NLS-1$ //$NON-NLS-2$
+			snapLayers = compact ? 1 : snapLayers + 1;
 			lastSnap = tree;
 		} finally {
 			monitor.done();
@@ -1496,6 +1731,10 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			Policy.debug("Snapshot Workspace Tree: " + (System.currentTimeMillis() - start) + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
 	}
 
+	private java.io.File getCompactedSnapshotFile(IPath snapPath) {
+		return new java.io.File(snapPath.toOSString() + COMPACTED_SNAPSHOT_SUFFIX);
+	}
+
 	/**
 	 * Sorts the given array of trees so that the following rules are true:
 	 * 	 - The first tree has no parent
@@ -1816,6 +2055,24 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 			visitAndSnap(project);
 	}
 
+	/**
+	 * Writes the last build duration of each of the given builders, in the
+	 * order they were saved.
+	 * Format:
+	 * byte - ICoreConstants.WORKSPACE_TREE_BUILD_DURATIONS
+	 * int - number of builders
+	 * for each builder:
+	 *    long - duration of the last build in milliseconds, or 0 if unknown
+	 */
+	private void writeBuildDurations(DataOutputStream output, List<BuilderPersistentInfo> builders, List<BuilderPersistentInfo> additionalBuilders) throws IOException {
+		output.writeByte(ICoreConstants.WORKSPACE_TREE_BUILD_DURATIONS);
+		output.writeInt(builders.size() + additionalBuilders.size());
+		for (BuilderPersistentInfo info : builders)
+			output.writeLong(info.getLastBuildDuration());
+		for (BuilderPersistentInfo info : additionalBuilders)
+			output.writeLong(info.getLastBuildDuration());
+	}
+
 	/**
 	 * Writes out persistent information about all builders for which a last built
 	 * tree is available. File format is:
@@ -1917,6 +2174,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 * <li> And since 3.7: </li>
 	 * <li> Builder info for all the builders of all the other project's buildConfigs </li>
 	 * <li> The names of the buildConfigs for each of the builders </li>
+	 * <li> Last build duration of all the builders above </li>
 	 * </ul>
 	 * This format is designed to work with WorkspaceTreeReader versions 2.
 	 *
@@ -1982,6 +2240,9 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 					output.writeUTF(string);
 				for (String string : additionalConfigNames)
 					output.writeUTF(string);
+
+				// Save the last build durations of the builders in the order they were saved
+				writeBuildDurations(output, builderInfos, additionalBuilderInfos);
 			} finally {
 				if (!wasImmutable)
 					workspace.newWorkingTree();
@@ -2002,6 +2263,7 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 	 * <li> Since 3.7: </li>
 	 * <li> Builder info for all the builders of all the other project's buildConfigs </li>
 	 * <li> Name of the project's buildConfigs </li>
+	 * <li> Last build duration of all the builders above </li>
 	 * </ul>
 	 * This format is designed to work with WorkspaceTreeReader versions 2.
 	 *
@@ -2053,6 +2315,9 @@ public class SaveManager implements IElementInfoFlattener, IManager, IStringPool
 					output.writeUTF(string);
 				for (String string : additionalConfigNames)
 					output.writeUTF(string);
+
+				// Save the last build durations of the builders in the order they were saved
+				writeBuildDurations(output, builderInfos, additionalBuilderInfos);
 			} finally {
 				if (!wasImmutable)
 					workspace.newWorkingTree();
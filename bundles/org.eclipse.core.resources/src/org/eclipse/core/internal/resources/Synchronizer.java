@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -141,19 +141,28 @@ public class Synchronizer implements ISynchronizer {
 	}
 
 	public void restore(IResource resource, IProgressMonitor monitor) throws CoreException {
+		restore(resource, null, monitor);
+	}
+
+	/**
+	 * Restores the sync info of the given resource. If the contents of its sync
+	 * info file have already been read, they are given as <code>saved</code>;
+	 * otherwise <code>saved</code> is <code>null</code> and the file is read here.
+	 */
+	public void restore(IResource resource, byte[] saved, IProgressMonitor monitor) throws CoreException {
 		// first restore from the last save and then apply any snapshots
-		restoreFromSave(resource);
+		restoreFromSave(resource, saved);
 		restoreFromSnap(resource);
 	}
 
-	protected void restoreFromSave(IResource resource) throws CoreException {
+	protected void restoreFromSave(IResource resource, byte[] saved) throws CoreException {
 		IPath sourceLocation = workspace.getMetaArea().getSyncInfoLocationFor(resource);
 		IPath tempLocation = workspace.getMetaArea().getBackupLocationFor(sourceLocation);
-		if (!sourceLocation.toFile().exists() && !tempLocation.toFile().exists())
+		if (saved == null && !sourceLocation.toFile().exists() && !tempLocation.toFile().exists())
 			return;
 		try {
 			try (
-				DataInputStream input = new DataInputStream(new SafeFileInputStream(sourceLocation.toOSString(), tempLocation.toOSString()));
+				DataInputStream input = new DataInputStream(saved != null ? new ByteArrayInputStream(saved) : new SafeFileInputStream(sourceLocation.toOSString(), tempLocation.toOSString()));
 			) {
 				SyncInfoReader reader = new SyncInfoReader(workspace, this);
 				reader.readSyncInfo(input);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -30,6 +30,14 @@ import org.eclipse.core.runtime.jobs.*;
  * This class also tracks operation state for each thread that is involved in an
  * operation. This includes prepared and running operation depth, auto-build
  * strategy and cancel state.
+ *
+ * The operation depths are only modified by the thread owning the {@link #lock},
+ * which therefore also guards them; this class does not synchronize on itself.
+ * The lock is held from checkIn to checkOut, so operations are serialized on it
+ * even when their scheduling rules do not conflict. Only workspace runnables,
+ * workspace jobs and builders release it while client code runs (see
+ * {@link #beginUnprotected()}). The lock is not split per project, because all
+ * projects share the workspace tree.
  */
 public class WorkManager implements IManager {
 	/**
@@ -64,7 +72,7 @@ public class WorkManager implements IManager {
 	/**
 	 * Indicates whether any operations have run that may require a build.
 	 */
-	private boolean hasBuildChanges = false;
+	private volatile boolean hasBuildChanges = false;
 	private IJobManager jobManager;
 	/**
 	 * The primary workspace lock. This lock must be held by any thread
@@ -73,18 +81,26 @@ public class WorkManager implements IManager {
 	private final ILock lock;
 
 	/**
-	 * The current depth of running nested operations.
+	 * The current depth of running nested operations. Guarded by {@link #lock}.
 	 */
 	private int nestedOperations = 0;
 
 	private NotifyRule notifyRule = new NotifyRule();
 
-	private boolean operationCanceled = false;
+	private volatile boolean operationCanceled = false;
 
 	/**
-	 * The current depth of prepared operations.
+	 * The current depth of prepared operations. Guarded by {@link #lock}.
 	 */
 	private int preparedOperations = 0;
+
+	/**
+	 * The number of operations the current thread has checked in and not yet
+	 * checked out. Only threads inside an operation can own the workspace lock,
+	 * which lets {@link #isLockAlreadyAcquired()} answer for all other threads
+	 * without touching the lock.
+	 */
+	private final ThreadLocal<int[]> threadOperations = ThreadLocal.withInitial(() -> new int[1]);
 	private Workspace workspace;
 
 	public WorkManager(Workspace workspace) {
@@ -121,6 +137,7 @@ public class WorkManager implements IManager {
 			jobManager.beginRule(rule, monitor);
 			lock.acquire();
 			incrementPreparedOperations();
+			threadOperations.get()[0]++;
 			success = true;
 		} finally {
 			//remember if we failed to check in, so we can avoid check out
@@ -152,7 +169,8 @@ public class WorkManager implements IManager {
 	/**
 	 * Inform that an operation has finished.
 	 */
-	public synchronized void checkOut(ISchedulingRule rule) {
+	public void checkOut(ISchedulingRule rule) {
+		threadOperations.get()[0]--;
 		decrementPreparedOperations();
 		rebalanceNestedOperations();
 		//reset state if this is the end of a top level operation
@@ -206,7 +224,7 @@ public class WorkManager implements IManager {
 	 * operation. Should NOT be called from outside a
 	 * prepareOperation/endOperation block.
 	 */
-	public synchronized int getPreparedOperationDepth() {
+	public int getPreparedOperationDepth() {
 		return preparedOperations;
 	}
 
@@ -243,6 +261,9 @@ public class WorkManager implements IManager {
 	 * thread, and false otherwise.
 	 */
 	public boolean isLockAlreadyAcquired() {
+		// threads outside of any operation cannot own the lock
+		if (threadOperations.get()[0] == 0)
+			return false;
 		boolean result = false;
 		try {
 			boolean success = lock.acquire(0L);
@@ -307,6 +328,7 @@ public class WorkManager implements IManager {
 	public void startup(IProgressMonitor monitor) {
 		jobManager.beginRule(workspace.getRoot(), monitor);
 		lock.acquire();
+		threadOperations.get()[0]++;
 	}
 
 	/**
@@ -315,6 +337,7 @@ public class WorkManager implements IManager {
 	* and ends applying the workspace rule to this thread.
 	*/
 	void postWorkspaceStartup() {
+		threadOperations.get()[0]--;
 		try {
 			lock.release();
 		} finally {
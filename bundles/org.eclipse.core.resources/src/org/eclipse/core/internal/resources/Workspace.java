@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -97,6 +97,10 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 	protected ContentDescriptionManager contentDescriptionManager;
 	/** indicates if the workspace crashed in a previous session */
 	protected boolean crashed = false;
+	/**
+	 * Delta trees shared by notifications and builds.
+	 */
+	protected final DeltaTreeCache deltaTreeCache = new DeltaTreeCache();
 	protected final IWorkspaceRoot defaultRoot = new WorkspaceRoot(Path.ROOT, this);
 	protected WorkspacePreferences description;
 	protected FileSystemResourceManager fileSystemManager;
@@ -124,6 +128,11 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 
 	protected RefreshManager refreshManager;
 
+	/**
+	 * Resource infos looked up in the current tree while it is immutable.
+	 */
+	protected final ResourceInfoCache resourceInfoCache = new ResourceInfoCache();
+
 	/**
 	 * Scheduling rule factory. This field is null if the factory has not been used
 	 * yet.  The accessor method should be used rather than accessing this field
@@ -1362,6 +1371,7 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 				throw new ResourceException(IResourceStatus.RESOURCE_EXISTS, resource.getFullPath(), message, null);
 			}
 		}
+		markerManager.resourceCreated(resource.getFullPath(), info);
 		return info;
 	}
 
@@ -1421,19 +1431,79 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		}
 	}
 
+	@Override
+	public IMarker[] createMarkers(List<? extends IResource> resources, List<String> types, List<? extends Map<String, ? extends Object>> attributes) throws CoreException {
+		Assert.isNotNull(resources);
+		Assert.isNotNull(types);
+		int count = resources.size();
+		Assert.isLegal(types.size() == count && (attributes == null || attributes.size() == count));
+		if (count == 0)
+			return new IMarker[0];
+		// group the new markers by resource, keeping their order
+		long now = System.currentTimeMillis();
+		Map<IResource, List<MarkerInfo>> byResource = new LinkedHashMap<>();
+		IResource[] hosts = resources.toArray(new IResource[count]);
+		MarkerInfo[] infos = new MarkerInfo[count];
+		Iterator<String> typeIterator = types.iterator();
+		Iterator<? extends Map<String, ? extends Object>> attributeIterator = attributes == null ? null : attributes.iterator();
+		for (int i = 0; i < count; i++) {
+			String type = typeIterator.next();
+			Map<String, ? extends Object> markerAttributes = attributeIterator == null ? null : attributeIterator.next();
+			Assert.isNotNull(hosts[i]);
+			Assert.isNotNull(type);
+			MarkerInfo info = new MarkerInfo();
+			info.setType(type);
+			info.setCreationTime(now);
+			if (markerAttributes != null)
+				info.setAttributes(markerAttributes, markerManager.isPersistentType(type));
+			infos[i] = info;
+			byResource.computeIfAbsent(hosts[i], r -> new ArrayList<>()).add(info);
+		}
+		ISchedulingRule[] rules = new ISchedulingRule[byResource.size()];
+		int ruleCount = 0;
+		for (IResource resource : byResource.keySet())
+			rules[ruleCount++] = getRuleFactory().markerRule(resource);
+		final ISchedulingRule rule = MultiRule.combine(rules);
+		try {
+			prepareOperation(rule, null);
+			for (IResource resource : byResource.keySet()) {
+				Resource target = (Resource) resource;
+				target.checkAccessible(target.getFlags(target.getResourceInfo(false, false)));
+			}
+			beginOperation(true);
+			for (Map.Entry<IResource, List<MarkerInfo>> entry : byResource.entrySet()) {
+				List<MarkerInfo> newMarkers = entry.getValue();
+				markerManager.add(entry.getKey(), newMarkers.toArray(new MarkerInfo[newMarkers.size()]));
+			}
+		} finally {
+			endOperation(rule, false);
+		}
+		IMarker[] result = new IMarker[count];
+		for (int i = 0; i < count; i++)
+			result[i] = new Marker(hosts[i], infos[i].getId());
+		return result;
+	}
+
 	@Override
 	public void deleteMarkers(IMarker[] markers) throws CoreException {
 		Assert.isNotNull(markers);
 		if (markers.length == 0)
 			return;
-		// clone to avoid outside changes
-		markers = markers.clone();
+		// group the markers by resource, keeping their order
+		Map<IResource, List<IMarker>> byResource = new LinkedHashMap<>();
+		for (IMarker marker : markers)
+			if (marker != null && marker.getResource() != null)
+				byResource.computeIfAbsent(marker.getResource(), r -> new ArrayList<>()).add(marker);
 		try {
 			prepareOperation(null, null);
 			beginOperation(true);
-			for (IMarker marker : markers)
-				if (marker != null && marker.getResource() != null)
-					markerManager.removeMarker(marker.getResource(), marker.getId());
+			for (Map.Entry<IResource, List<IMarker>> entry : byResource.entrySet()) {
+				List<IMarker> resourceMarkers = entry.getValue();
+				long[] ids = new long[resourceMarkers.size()];
+				for (int i = 0; i < ids.length; i++)
+					ids[i] = resourceMarkers.get(i).getId();
+				markerManager.removeMarkers(entry.getKey(), ids);
+			}
 		} finally {
 			endOperation(null, false);
 		}
@@ -1454,6 +1524,7 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 				tree.deleteElement(element.getFullPath());
 		} else
 			tree.deleteElement(path);
+		markerManager.resourceDeleted(path);
 	}
 
 	/**
@@ -1499,6 +1570,8 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 				broadcastPostChange();
 				// Request a snapshot if we are sufficiently out of date.
 				saveManager.snapshotIfNeeded(hasTreeChanges);
+				// Collapse the trees kept for deltas if their chains have grown.
+				saveManager.collapseIfNeeded();
 			} finally {
 				// make sure the tree is immutable if we are ending a top-level operation.
 				if (depthOne) {
@@ -1645,6 +1718,13 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		return result;
 	}
 
+	/**
+	 * Returns the cache of delta trees computed between element trees.
+	 */
+	public DeltaTreeCache getDeltaTreeCache() {
+		return deltaTreeCache;
+	}
+
 	@Override
 	public IWorkspaceDescription getDescription() {
 		WorkspaceDescription workingCopy = defaultWorkspaceDescription();
@@ -1727,6 +1807,13 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 		return refreshManager;
 	}
 
+	/**
+	 * Returns the cache of resource infos looked up in the current tree.
+	 */
+	public ResourceInfoCache getResourceInfoCache() {
+		return resourceInfoCache;
+	}
+
 	/**
 	 * Returns the resource info for the identified resource.
 	 * null is returned if no such resource can be found.
@@ -1743,12 +1830,16 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 				return info;
 			}
 			ResourceInfo result = null;
-			if (!tree.includes(path))
+			ElementTree current = tree;
+			// the contents of an immutable tree never change, so its lookups can be remembered
+			if (!mutable && current.isImmutable())
+				result = resourceInfoCache.get(current, path);
+			else if (!current.includes(path))
 				return null;
-			if (mutable)
-				result = (ResourceInfo) tree.openElementData(path);
+			else if (mutable)
+				result = (ResourceInfo) current.openElementData(path);
 			else
-				result = (ResourceInfo) tree.getElementData(path);
+				result = (ResourceInfo) current.getElementData(path);
 			if (result != null && (!phantom && result.isSet(M_PHANTOM)))
 				return null;
 			return result;
@@ -1938,7 +2029,9 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 
 	@Override
 	public boolean isTreeLocked() {
-		return treeLocked == Thread.currentThread();
+		Thread current = Thread.currentThread();
+		// concurrent listeners run while the notifying thread holds the lock
+		return treeLocked == current || (treeLocked != null && NotificationManager.isListenerThread());
 	}
 
 	/**
@@ -1946,6 +2039,8 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 	 */
 	protected void linkTrees(IPath path, ElementTree[] newTrees) {
 		tree = tree.mergeDeltaChain(path, newTrees);
+		markerManager.resetRollups();
+		markerManager.resetTypeIndex();
 	}
 
 	@Override
@@ -2139,6 +2234,8 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 	 */
 	public ElementTree newWorkingTree() {
 		tree = tree.newEmptyDelta();
+		if (saveManager != null)
+			saveManager.treeLayerOpened();
 		return tree;
 	}
 
@@ -2409,6 +2506,8 @@ public class Workspace extends PlatformObject implements IWorkspace, ICoreConsta
 			refreshManager = null;
 			charsetManager = null;
 			contentDescriptionManager = null;
+			deltaTreeCache.flush();
+			resourceInfoCache.flush();
 			if (!status.isOK())
 				throw new CoreException(status);
 		} finally {
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -77,6 +77,23 @@ public class WorkspaceTreeReader_2 extends WorkspaceTreeReader_1 {
 		}
 	}
 
+	/**
+	 * Reads the last build durations of the builders read so far, if the file
+	 * has them. The end of the file is detected by reading, not with
+	 * <code>available()</code>, because snapshots are read through a
+	 * <code>ZipInputStream</code> which reports available bytes at its end.
+	 */
+	protected void readBuildDurations(DataInputStream input) throws IOException {
+		if (input.read() != ICoreConstants.WORKSPACE_TREE_BUILD_DURATIONS)
+			return;
+		int count = input.readInt();
+		for (int i = 0; i < count; i++) {
+			long duration = input.readLong();
+			if (i < builderInfos.size())
+				builderInfos.get(i).setLastBuildDuration(duration);
+		}
+	}
+
 	/**
 	 * Read a workspace tree storing information about multiple projects.
 	 * Overrides {@link WorkspaceTreeReader_1#readTree(DataInputStream, IProgressMonitor)}
@@ -119,6 +136,8 @@ public class WorkspaceTreeReader_2 extends WorkspaceTreeReader_1 {
 
 				for (BuilderPersistentInfo builderPersistentInfo : builderInfos)
 					builderPersistentInfo.setConfigName(input.readUTF());
+
+				readBuildDurations(input);
 			}
 
 			// Set the builder infos on the projects
@@ -167,6 +186,8 @@ public class WorkspaceTreeReader_2 extends WorkspaceTreeReader_1 {
 
 				for (BuilderPersistentInfo builderPersistentInfo : builderInfos)
 					builderPersistentInfo.setConfigName(input.readUTF());
+
+				readBuildDurations(input);
 			}
 
 			// Set the builder info on the projects
@@ -0,0 +1,428 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources.refresh.linux;
+
+import static java.nio.file.StandardWatchEventKinds.*;
+
+import java.io.IOException;
+import java.nio.file.*;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+import org.eclipse.core.internal.utils.Messages;
+import org.eclipse.core.internal.utils.Policy;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.resources.refresh.IRefreshMonitor;
+import org.eclipse.core.resources.refresh.IRefreshResult;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.runtime.Path;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.osgi.util.NLS;
+import org.osgi.framework.Bundle;
+
+/**
+ * A monitor that works on Linux platforms. It registers an inotify watch
+ * (through the NIO <code>WatchService</code>) on every directory below the
+ * monitored roots, and reports changes at the smallest affected subtree.
+ * <p>
+ * Events that arrive in a burst are merged per directory: a directory with
+ * many changed children is refreshed as a whole, and requests that lie below
+ * another request are dropped. If the event queue overflows, the affected
+ * roots are refreshed completely, and the directories created while the
+ * events were lost are watched as well.
+ */
+class LinuxMonitor extends Job implements IRefreshMonitor {
+	/**
+	 * The delay between invocations of the monitor job.
+	 */
+	private static final long RESCHEDULE_DELAY = 200;
+	/**
+	 * The time to wait on the watch service for the first event.
+	 */
+	private static final long POLL_TIMEOUT = 1000;
+	/**
+	 * The quiet period after which a burst of events is considered complete.
+	 */
+	private static final long COALESCE_DELAY = 100;
+	/**
+	 * The maximum time spent collecting a single burst of events.
+	 */
+	private static final long MAX_BATCH_DURATION = 1000;
+	/**
+	 * The number of changed children above which a directory is refreshed
+	 * as a whole rather than child by child.
+	 */
+	private static final int MAX_CHANGES_PER_DIRECTORY = 32;
+	private static final String DEBUG_PREFIX = "LinuxRefreshMonitor: "; //$NON-NLS-1$
+
+	/**
+	 * Marker set used for directories that need to be refreshed as a whole.
+	 */
+	private static final Set<IResource> WHOLE_DIRECTORY = Collections.emptySet();
+
+	/**
+	 * Any errors that have occurred
+	 */
+	protected MultiStatus errors;
+	/**
+	 * Maps each watch key to the container whose directory it watches.
+	 * Guarded by <code>this</code>.
+	 */
+	private final Map<WatchKey, IContainer> keyToContainer = new HashMap<>();
+	/**
+	 * Maps each watch key to the monitored root it was registered for.
+	 * Guarded by <code>this</code>.
+	 */
+	private final Map<WatchKey, IResource> keyToRoot = new HashMap<>();
+	/**
+	 * Maps monitored roots to the watch keys registered on their behalf.
+	 * Guarded by <code>this</code>.
+	 */
+	private final Map<IResource, Set<WatchKey>> rootToKeys = new HashMap<>();
+	protected final IRefreshResult refreshResult;
+	/**
+	 * The watch service, or <code>null</code> if nothing is being monitored.
+	 * Guarded by <code>this</code>.
+	 */
+	private WatchService watchService;
+
+	/**
+	 * Creates a new monitor.
+	 * @param result A result that will receive refresh callbacks and error notifications
+	 */
+	public LinuxMonitor(IRefreshResult result) {
+		super(Messages.LM_jobName);
+		this.refreshResult = result;
+		setPriority(Job.DECORATE);
+		setSystem(true);
+	}
+
+	/**
+	 * Logs an exception
+	 */
+	protected synchronized void addException(String message, Throwable t) {
+		if (errors == null) {
+			String msg = Messages.WM_errors;
+			errors = new MultiStatus(ResourcesPlugin.PI_RESOURCES, 1, msg, null);
+		}
+		errors.add(new Status(IStatus.ERROR, ResourcesPlugin.PI_RESOURCES, 1, message, t));
+	}
+
+	/**
+	 * Records the change of the given child of a watched directory. A
+	 * <code>null</code> child means the directory must be refreshed as a whole.
+	 */
+	private void addChange(Map<IContainer, Set<IResource>> changes, IContainer directory, IResource child) {
+		Set<IResource> children = changes.get(directory);
+		if (children == WHOLE_DIRECTORY)
+			return;
+		if (child == null) {
+			changes.put(directory, WHOLE_DIRECTORY);
+			return;
+		}
+		if (children == null) {
+			children = new LinkedHashSet<>();
+			changes.put(directory, children);
+		}
+		children.add(child);
+		if (children.size() > MAX_CHANGES_PER_DIRECTORY)
+			changes.put(directory, WHOLE_DIRECTORY);
+	}
+
+	/**
+	 * Cancels the given keys and forgets about them. Must be called while
+	 * holding the monitor lock.
+	 */
+	private void cancelKeys(Collection<WatchKey> keys) {
+		for (WatchKey key : keys) {
+			key.cancel();
+			keyToContainer.remove(key);
+			keyToRoot.remove(key);
+		}
+	}
+
+	/**
+	 * Returns the container corresponding to the given directory, which is
+	 * located below the location of the given monitored root.
+	 */
+	private IContainer containerFor(IContainer root, java.nio.file.Path rootLocation, java.nio.file.Path directory) {
+		java.nio.file.Path relative = rootLocation.relativize(directory);
+		if (relative.toString().isEmpty())
+			return root;
+		return root.getFolder(new Path(relative.toString()));
+	}
+
+	/**
+	 * Converts the collected changes into the minimal set of refresh requests.
+	 */
+	private List<IResource> computeRefreshRequests(Map<IContainer, Set<IResource>> changes) {
+		List<IResource> candidates = new ArrayList<>();
+		for (Map.Entry<IContainer, Set<IResource>> entry : changes.entrySet()) {
+			if (entry.getValue() == WHOLE_DIRECTORY)
+				candidates.add(entry.getKey());
+			else
+				candidates.addAll(entry.getValue());
+		}
+		// shorter paths first, so that ancestors are seen before their descendants
+		Collections.sort(candidates, (r1, r2) -> r1.getFullPath().segmentCount() - r2.getFullPath().segmentCount());
+		List<IResource> result = new ArrayList<>(candidates.size());
+		outer: for (IResource candidate : candidates) {
+			IPath path = candidate.getFullPath();
+			for (IResource request : result) {
+				if (request.getFullPath().isPrefixOf(path))
+					continue outer;
+			}
+			result.add(candidate);
+		}
+		return result;
+	}
+
+	/**
+	 * Adds a resource to be monitored by this monitor. Returns <code>false</code>
+	 * if the tree below the resource could not be watched entirely, in which
+	 * case the caller should fall back to polling.
+	 */
+	public boolean monitor(IResource resource) {
+		IPath location = resource.getLocation();
+		if (location == null || !(resource instanceof IContainer)) {
+			// cannot monitor remotely managed containers
+			return false;
+		}
+		synchronized (this) {
+			if (rootToKeys.containsKey(resource))
+				return true;
+			Set<WatchKey> keys = new HashSet<>();
+			try {
+				if (watchService == null)
+					watchService = FileSystems.getDefault().newWatchService();
+				registerTree((IContainer) resource, location.toFile().toPath(), resource, keys);
+			} catch (IOException | RuntimeException e) {
+				// typically the inotify watch limit has been reached, let polling take over
+				cancelKeys(keys);
+				if (Policy.DEBUG_AUTO_REFRESH)
+					Policy.debug(DEBUG_PREFIX + " unable to watch: " + resource + ", " + e); //$NON-NLS-1$ //$NON-NLS-2$
+				return false;
+			}
+			rootToKeys.put(resource, keys);
+		}
+		//make sure the job is running
+		schedule(RESCHEDULE_DELAY);
+		if (Policy.DEBUG_AUTO_REFRESH)
+			Policy.debug(DEBUG_PREFIX + " added monitor for: " + resource); //$NON-NLS-1$
+		return true;
+	}
+
+	/**
+	 * Reads the pending events of the given key and records the affected
+	 * resources in the given change map.
+	 */
+	private void processEvents(WatchKey key, Map<IContainer, Set<IResource>> changes) {
+		IContainer directory;
+		IResource root;
+		synchronized (this) {
+			directory = keyToContainer.get(key);
+			root = keyToRoot.get(key);
+		}
+		List<WatchEvent<?>> events = key.pollEvents();
+		if (directory == null || root == null)
+			return;
+		java.nio.file.Path directoryLocation = (java.nio.file.Path) key.watchable();
+		for (WatchEvent<?> event : events) {
+			WatchEvent.Kind<?> kind = event.kind();
+			if (kind == OVERFLOW) {
+				// events have been lost, the whole root has to be refreshed and
+				// the directories created in the meantime have to be watched
+				if (Policy.DEBUG_AUTO_REFRESH)
+					Policy.debug(DEBUG_PREFIX + " event queue overflow for: " + root); //$NON-NLS-1$
+				IPath rootLocation = root.getLocation();
+				if (rootLocation != null)
+					watchTree(root, (IContainer) root, rootLocation.toFile().toPath());
+				addChange(changes, (IContainer) root, null);
+				continue;
+			}
+			String name = event.context().toString();
+			java.nio.file.Path childLocation = directoryLocation.resolve(name);
+			IResource child;
+			if (kind == ENTRY_CREATE && Files.isDirectory(childLocation, LinkOption.NOFOLLOW_LINKS)) {
+				IFolder folder = directory.getFolder(new Path(name));
+				watchTree(root, folder, childLocation);
+				child = folder;
+			} else {
+				child = directory.findMember(name);
+				if (child == null)
+					child = directory.getFile(new Path(name));
+			}
+			addChange(changes, directory, child);
+		}
+		if (!key.reset()) {
+			// the directory is gone, the delete event on its parent reports the change
+			synchronized (this) {
+				Set<WatchKey> keys = rootToKeys.get(root);
+				if (keys != null)
+					keys.remove(key);
+				cancelKeys(Collections.singleton(key));
+			}
+		}
+	}
+
+	/**
+	 * Asks the refresh manager to refresh the given resources, unless they
+	 * are already in sync because the change originated in the workspace.
+	 */
+	private void postRefreshRequests(List<IResource> requests) {
+		for (IResource resource : requests) {
+			int depth = resource.getType() == IResource.FILE ? IResource.DEPTH_ZERO : IResource.DEPTH_INFINITE;
+			//notifications occur even if the resource was changed within the workspace
+			if (!resource.isSynchronized(depth)) {
+				if (Policy.DEBUG_AUTO_REFRESH)
+					Policy.debug(DEBUG_PREFIX + " refresh requested for: " + resource); //$NON-NLS-1$
+				refreshResult.refresh(resource);
+			}
+		}
+	}
+
+	/**
+	 * Registers watches on the given directory and all directories below it.
+	 * Must be called while holding the monitor lock.
+	 */
+	private void registerTree(final IContainer container, final java.nio.file.Path start, final IResource root, final Set<WatchKey> keys) throws IOException {
+		final WatchService service = watchService;
+		Files.walkFileTree(start, new SimpleFileVisitor<java.nio.file.Path>() {
+			@Override
+			public FileVisitResult preVisitDirectory(java.nio.file.Path dir, BasicFileAttributes attrs) throws IOException {
+				WatchKey key = dir.register(service, ENTRY_CREATE, ENTRY_DELETE, ENTRY_MODIFY);
+				if (!keyToContainer.containsKey(key)) {
+					keyToContainer.put(key, containerFor(container, start, dir));
+					keyToRoot.put(key, root);
+					keys.add(key);
+				}
+				return FileVisitResult.CONTINUE;
+			}
+
+			@Override
+			public FileVisitResult visitFileFailed(java.nio.file.Path file, IOException exc) throws IOException {
+				if (file.equals(start))
+					throw exc;
+				// the file has been deleted or cannot be read, a refresh will pick that up
+				return FileVisitResult.CONTINUE;
+			}
+		});
+	}
+
+	@Override
+	protected IStatus run(IProgressMonitor monitor) {
+		long start = -System.currentTimeMillis();
+		WatchService service;
+		synchronized (this) {
+			service = watchService;
+		}
+		if (service == null)
+			return Status.OK_STATUS;
+		try {
+			WatchKey key = service.poll(POLL_TIMEOUT, TimeUnit.MILLISECONDS);
+			if (key != null) {
+				Map<IContainer, Set<IResource>> changes = new LinkedHashMap<>();
+				long batchEnd = System.currentTimeMillis() + MAX_BATCH_DURATION;
+				// collect a burst of events (e.g. a checkout) so that it is reported in one go
+				while (key != null && !monitor.isCanceled()) {
+					processEvents(key, changes);
+					if (System.currentTimeMillis() > batchEnd)
+						break;
+					key = service.poll(COALESCE_DELAY, TimeUnit.MILLISECONDS);
+				}
+				postRefreshRequests(computeRefreshRequests(changes));
+			}
+		} catch (InterruptedException e) {
+			// fall through and reschedule
+		} catch (ClosedWatchServiceException e) {
+			// all resources have been unmonitored
+			return Status.OK_STATUS;
+		} finally {
+			start += System.currentTimeMillis();
+			if (Policy.DEBUG_AUTO_REFRESH)
+				Policy.debug(DEBUG_PREFIX + "job finished in: " + start + "ms"); //$NON-NLS-1$ //$NON-NLS-2$
+		}
+		final Bundle bundle = Platform.getBundle(ResourcesPlugin.PI_RESOURCES);
+		//if the bundle is null then the framework has shutdown - just bail out completely (bug 98219)
+		if (bundle == null)
+			return Status.OK_STATUS;
+		//don't reschedule the job if the resources plugin has been shut down
+		if (bundle.getState() == Bundle.ACTIVE)
+			schedule(RESCHEDULE_DELAY);
+		MultiStatus result = errors;
+		errors = null;
+		//just log native refresh failures
+		if (result != null && !result.isOK())
+			ResourcesPlugin.getPlugin().getLog().log(result);
+		return Status.OK_STATUS;
+	}
+
+	@Override
+	public boolean shouldRun() {
+		synchronized (this) {
+			return !rootToKeys.isEmpty();
+		}
+	}
+
+	@Override
+	public void unmonitor(IResource resource) {
+		synchronized (this) {
+			if (resource == null) {
+				// resource == null means stop monitoring all resources
+				for (Set<WatchKey> keys : rootToKeys.values())
+					cancelKeys(keys);
+				rootToKeys.clear();
+			} else {
+				Set<WatchKey> keys = rootToKeys.remove(resource);
+				if (keys != null)
+					cancelKeys(keys);
+			}
+			if (!rootToKeys.isEmpty())
+				return;
+			//stop the job if there is nothing left to watch
+			if (watchService != null) {
+				try {
+					watchService.close();
+				} catch (IOException e) {
+					addException(NLS.bind(Messages.LM_errClose, e.getMessage()), e);
+				}
+				watchService = null;
+			}
+		}
+		cancel();
+	}
+
+	/**
+	 * Starts watching the directories at and below the given location, which
+	 * is located below a monitored root, that are not watched yet. If this
+	 * fails, the root is handed back to the polling monitor.
+	 */
+	private void watchTree(IResource root, IContainer container, java.nio.file.Path location) {
+		boolean failed = false;
+		synchronized (this) {
+			Set<WatchKey> keys = rootToKeys.get(root);
+			if (keys == null || watchService == null)
+				return;
+			try {
+				registerTree(container, location, root, keys);
+			} catch (NoSuchFileException e) {
+				// the directory is already gone again
+			} catch (IOException | RuntimeException e) {
+				addException(NLS.bind(Messages.LM_errWatch, location, e.getMessage()), e);
+				rootToKeys.remove(root);
+				cancelKeys(keys);
+				failed = true;
+			}
+		}
+		if (failed)
+			refreshResult.monitorFailed(this, root);
+	}
+}
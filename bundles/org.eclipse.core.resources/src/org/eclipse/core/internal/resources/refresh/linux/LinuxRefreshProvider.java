@@ -0,0 +1,47 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.resources.refresh.linux;
+
+import org.eclipse.core.resources.IResource;
+import org.eclipse.core.resources.refresh.*;
+import org.eclipse.core.runtime.IProgressMonitor;
+import org.eclipse.core.runtime.Platform;
+
+/**
+ * The <code>LinuxRefreshProvider</code> creates monitors that receive
+ * inotify based change notifications for local trees on Linux platforms.
+ * Resources that cannot be watched are left to the polling monitor.
+ *
+ * @see RefreshProvider
+ */
+public class LinuxRefreshProvider extends RefreshProvider {
+	private LinuxMonitor monitor;
+
+	/**
+	 * Creates a Linux monitor if the given resource is a local container.
+	 *
+	 * @see RefreshProvider#installMonitor(IResource,IRefreshResult, IProgressMonitor)
+	 */
+	@Override
+	public IRefreshMonitor installMonitor(IResource resource, IRefreshResult result, IProgressMonitor progressMonitor) {
+		if (!Platform.OS_LINUX.equals(Platform.getOS()))
+			return null;
+		if (resource.getLocation() == null || !resource.exists() || resource.getType() == IResource.FILE)
+			return null;
+		synchronized (this) {
+			if (monitor == null)
+				monitor = new LinuxMonitor(result);
+		}
+		if (monitor.monitor(resource))
+			return monitor;
+		return null;
+	}
+}
@@ -0,0 +1,193 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.internal.utils;
+
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import org.eclipse.core.runtime.Assert;
+
+/**
+ * A cache that can be used from any thread without further synchronization.
+ * Like {@link Cache}, it holds up to maximumCapacity * (1 + threshold) entries.
+ * When that limit is exceeded, the least recently used entries are removed
+ * until no more than maximumCapacity entries remain.
+ * <p>
+ * Lookups never block: each entry remembers when it was last used, and the
+ * entries are only ordered when some of them have to be removed. Entries
+ * are immutable, so updating the value cached for a key replaces its entry.
+ * </p>
+ */
+public class ConcurrentCache<K, V> {
+	public static final class Entry<K, V> {
+		final V cached;
+		final K key;
+		volatile long lastAccess;
+		final long timestamp;
+
+		Entry(K key, V cached, long timestamp, long lastAccess) {
+			this.key = key;
+			this.cached = cached;
+			this.timestamp = timestamp;
+			this.lastAccess = lastAccess;
+		}
+
+		public V getCached() {
+			return cached;
+		}
+
+		public K getKey() {
+			return key;
+		}
+
+		public long getTimestamp() {
+			return timestamp;
+		}
+
+		@Override
+		public String toString() {
+			return key + " -> " + cached + " [" + timestamp + ']'; //$NON-NLS-1$ //$NON-NLS-2$
+		}
+	}
+
+	/**
+	 * Orders the entries by the last time they were used.
+	 */
+	private final AtomicLong clock = new AtomicLong();
+	private final ConcurrentHashMap<K, Entry<K, V>> entries;
+	private final ReentrantLock evictionLock = new ReentrantLock();
+	private final LongAdder evictions = new LongAdder();
+	private final LongAdder hits = new LongAdder();
+	private final int maximumCapacity;
+	private final LongAdder misses = new LongAdder();
+	private final double threshold;
+
+	public ConcurrentCache(int maximumCapacity, double threshold) {
+		Assert.isTrue(threshold >= 0 && threshold <= 1, "threshold should be between 0 and 1"); //$NON-NLS-1$
+		Assert.isTrue(maximumCapacity > 0, "maximum capacity must be greater than zero"); //$NON-NLS-1$
+		entries = new ConcurrentHashMap<>(maximumCapacity);
+		this.maximumCapacity = maximumCapacity;
+		this.threshold = threshold;
+	}
+
+	/**
+	 * Caches the given value for the given key, replacing the entry previously
+	 * cached for that key, if any.
+	 */
+	public Entry<K, V> addEntry(K key, V toCache, long timestamp) {
+		Entry<K, V> newEntry = new Entry<>(key, toCache, timestamp, clock.incrementAndGet());
+		entries.put(key, newEntry);
+		// if we have reached our limit, ensure we are under the maximum capacity
+		// by discarding older entries
+		packEntries();
+		return newEntry;
+	}
+
+	public void discardAll() {
+		entries.clear();
+	}
+
+	/**
+	 * Returns the entry cached for the given key, or <code>null</code> if none,
+	 * and marks it as the most recently used one.
+	 */
+	public Entry<K, V> getEntry(K key) {
+		Entry<K, V> existing = entries.get(key);
+		if (existing == null) {
+			misses.increment();
+			return null;
+		}
+		hits.increment();
+		existing.lastAccess = clock.incrementAndGet();
+		return existing;
+	}
+
+	/**
+	 * Returns a snapshot of the cached entries, the least recently used first.
+	 */
+	public List<Entry<K, V>> getEntries() {
+		List<Entry<K, V>> result = new ArrayList<>(entries.values());
+		// entries may be used while sorting, so sort on a copy of their access stamps
+		Map<Entry<K, V>, Long> lastAccesses = new HashMap<>(result.size() * 2);
+		for (Entry<K, V> entry : result)
+			lastAccesses.put(entry, Long.valueOf(entry.lastAccess));
+		result.sort(Comparator.comparing(lastAccesses::get));
+		return result;
+	}
+
+	/**
+	 * Returns the number of entries removed to stay under the maximum capacity.
+	 */
+	public long getEvictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * Returns the number of lookups that found an entry.
+	 */
+	public long getHits() {
+		return hits.sum();
+	}
+
+	/**
+	 * Returns the percentage of lookups that found an entry.
+	 */
+	public int getHitRate() {
+		long hitCount = hits.sum();
+		long total = hitCount + misses.sum();
+		return total == 0 ? 0 : (int) (hitCount * 100 / total);
+	}
+
+	/**
+	 * Returns the number of lookups that found no entry.
+	 */
+	public long getMisses() {
+		return misses.sum();
+	}
+
+	/**
+	 * Returns the entry cached for the given key, or <code>null</code> if none,
+	 * without marking it as used or counting the lookup.
+	 */
+	public Entry<K, V> peekEntry(K key) {
+		return entries.get(key);
+	}
+
+	private void packEntries() {
+		// a single thread discards the older entries while the others go on; it checks
+		// again after unlocking, since the others may have added entries in the meantime
+		while (entries.size() - maximumCapacity > maximumCapacity * threshold && evictionLock.tryLock()) {
+			try {
+				int extraEntries = entries.size() - maximumCapacity;
+				for (Entry<K, V> entry : getEntries()) {
+					if (extraEntries-- <= 0)
+						break;
+					// entries replaced concurrently are kept
+					if (entries.remove(entry.key, entry))
+						evictions.increment();
+				}
+			} finally {
+				evictionLock.unlock();
+			}
+		}
+	}
+
+	public int size() {
+		return entries.size();
+	}
+
+	@Override
+	public String toString() {
+		return "ConcurrentCache(size: " + size() + ", hits: " + getHits() + ", misses: " + getMisses() + ", evictions: " + getEvictions() + ", hit rate: " + getHitRate() + "%)"; //$NON-NLS-1$ //$NON-NLS-2$ //$NON-NLS-3$ //$NON-NLS-4$ //$NON-NLS-5$ //$NON-NLS-6$
+	}
+}
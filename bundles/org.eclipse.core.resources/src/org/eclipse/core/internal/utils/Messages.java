@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2005, 2016 IBM Corporation and others.
+ * Copyright (c) 2005, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -164,6 +164,7 @@ public class Messages extends NLS {
 	public static String resources_charsetUpdating;
 	public static String resources_closing_0;
 	public static String resources_closing_1;
+	public static String resources_collapsingTrees;
 	public static String resources_copyDestNotSub;
 	public static String resources_copying;
 	public static String resources_copying_0;
@@ -326,6 +327,11 @@ public class Messages extends NLS {
 	public static String WM_nativeErr;
 	public static String WM_mutexAbandoned;
 
+	// auto-refresh linux
+	public static String LM_errClose;
+	public static String LM_errWatch;
+	public static String LM_jobName;
+
 	public static String updateUnknownNatureMarkers;
 
 	static {
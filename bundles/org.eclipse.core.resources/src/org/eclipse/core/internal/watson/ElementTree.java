@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -356,6 +356,17 @@ public class ElementTree {
 		return tree;
 	}
 
+	/**
+	 * Returns the number of layers below this tree in its delta chain, that is
+	 * the number of parent trees a lookup in this tree may have to consult.
+	 */
+	public int getDeltaDepth() {
+		int depth = 0;
+		for (DeltaDataTree parent = tree.getParent(); parent != null; parent = parent.getParent())
+			depth++;
+		return depth;
+	}
+
 	/**
 	 * Returns the element data for the given element identifier.
 	 * The given element must be present in this tree.
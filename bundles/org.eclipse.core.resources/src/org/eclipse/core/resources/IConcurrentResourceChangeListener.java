@@ -0,0 +1,36 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.resources;
+
+/**
+ * A resource change listener that only reads the resource delta it is
+ * given, and may therefore be notified of {@link IResourceChangeEvent#POST_CHANGE}
+ * events concurrently with other such listeners.
+ * <p>
+ * Concurrent listeners may be notified in a thread other than the one that
+ * performed the workspace operation. The operation still waits for all
+ * listeners before it completes, so listeners see the same workspace state
+ * as sequentially notified listeners do. Events of other types are always
+ * delivered in the thread of the operation.
+ * </p>
+ * <p>
+ * Implementations must not modify the workspace, and must be prepared to
+ * run in parallel with other listeners.
+ * </p>
+ * <p>
+ * Clients may implement this interface.
+ * </p>
+ * @see IWorkspace#addResourceChangeListener(IResourceChangeListener, int)
+ * @since 3.13
+ */
+public interface IConcurrentResourceChangeListener extends IResourceChangeListener {
+	// marker interface
+}
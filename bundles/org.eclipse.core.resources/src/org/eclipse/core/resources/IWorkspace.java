@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2015 IBM Corporation and others.
+ *  Copyright (c) 2000, 2018 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -14,6 +14,7 @@ package org.eclipse.core.resources;
 
 import java.io.InputStream;
 import java.net.URI;
+import java.util.List;
 import java.util.Map;
 import org.eclipse.core.resources.team.FileModificationValidationContext;
 import org.eclipse.core.runtime.*;
@@ -553,6 +554,45 @@ public interface IWorkspace extends IAdaptable {
 	 */
 	public IStatus copy(IResource[] resources, IPath destination, int updateFlags, IProgressMonitor monitor) throws CoreException;
 
+	/**
+	 * Creates markers with the given types and attributes on the given
+	 * resources, and returns their handles. The lists must have the same size;
+	 * the marker at index <code>i</code> is created on the resource at index
+	 * <code>i</code> of <code>resources</code>, with the type and the
+	 * attributes at that index of <code>types</code> and
+	 * <code>attributes</code>. The attributes of a marker may be
+	 * <code>null</code> for a marker without attributes. Marker type ids
+	 * should be the id of an extension installed in the
+	 * <code>org.eclipse.core.resources.markers</code> extension point.
+	 * <p>
+	 * This is equivalent to creating each marker with
+	 * {@link IResource#createMarker(String)} and setting its attributes with
+	 * {@link IMarker#setAttributes(Map)}, except that all markers are created
+	 * in one operation, and each marker is reported once as added, with its
+	 * attributes, in the marker deltas of its resource.
+	 * </p>
+	 * <p>
+	 * This method changes resources; these changes will be reported in a
+	 * subsequent resource change event.
+	 * </p>
+	 *
+	 * @param resources the resources to create the markers on
+	 * @param types the types of the markers to create
+	 * @param attributes the initial attributes of the markers, or <code>null</code>
+	 * @return the handles of the new markers, in the order of the given resources
+	 * @exception CoreException if this method fails. Reasons include:
+	 * <ul>
+	 * <li> One of the resources does not exist.</li>
+	 * <li> One of the resources is a project that is not open.</li>
+	 * <li>Resource changes are disallowed during certain types of resource
+	 * change event notification. See <code>IResourceChangeEvent</code> for
+	 * more details.</li>
+	 * </ul>
+	 * @see IResourceRuleFactory#markerRule(IResource)
+	 * @since 3.13
+	 */
+	public IMarker[] createMarkers(List<? extends IResource> resources, List<String> types, List<? extends Map<String, ? extends Object>> attributes) throws CoreException;
+
 	/**
 	 * Deletes the given resources.
 	 * <p>
@@ -639,7 +679,8 @@ public interface IWorkspace extends IAdaptable {
 
 	/**
 	 * Removes the given markers from the resources with which they are
-	 * associated. Markers that do not exist are ignored.
+	 * associated. Markers that do not exist are ignored. The markers of each
+	 * resource are removed together.
 	 * <p>
 	 * This method changes resources; these changes will be reported in a
 	 * subsequent resource change event.
@@ -371,6 +371,55 @@ public class FileStoreTest extends LocalStoreTest {
 		temp.delete(EFS.NONE, null);
 	}
 
+	public void testChildInfos() throws CoreException {
+		IFileStore temp = createDir(getTempStore(), true);
+		createFile(temp.getChild("file.txt"), getRandomString());
+		createDir(temp.getChild("folder"), true);
+
+		IFileInfo[] infos = temp.childInfos(EFS.NONE, getMonitor());
+		assertEquals("1.0", 2, infos.length);
+		for (int i = 0; i < infos.length; i++) {
+			IFileInfo expected = temp.getChild(infos[i].getName()).fetchInfo();
+			assertTrue("1.1." + i, infos[i].exists());
+			assertEquals("1.2." + i, expected.isDirectory(), infos[i].isDirectory());
+			assertEquals("1.3." + i, expected.getLength(), infos[i].getLength());
+			assertEquals("1.4." + i, expected.getLastModified(), infos[i].getLastModified());
+		}
+
+		// a missing directory has no children
+		assertEquals("2.0", 0, temp.getChild("missing").childInfos(EFS.NONE, getMonitor()).length);
+	}
+
+	public void testFetchFileTree() throws CoreException {
+		IFileStore temp = getTempStore();
+		IFileStore folder = createDir(temp.getChild("folder"), true);
+		IFileStore file = folder.getChild("file.txt");
+		createFile(file, getRandomString());
+		createDir(folder.getChild("sub"), true);
+
+		IFileTree tree = temp.getFileSystem().fetchFileTree(temp, getMonitor());
+		assertNotNull("1.0", tree);
+		assertEquals("1.1", temp, tree.getTreeRoot());
+
+		IFileStore[] children = tree.getChildStores(folder);
+		assertEquals("2.0", 2, children.length);
+		for (int i = 0; i < children.length; i++) {
+			IFileInfo expected = children[i].fetchInfo();
+			IFileInfo actual = tree.getFileInfo(children[i]);
+			assertEquals("2.1." + i, expected.getName(), actual.getName());
+			assertEquals("2.2." + i, expected.isDirectory(), actual.isDirectory());
+			assertEquals("2.3." + i, expected.getLength(), actual.getLength());
+			assertEquals("2.4." + i, expected.getLastModified(), actual.getLastModified());
+			assertEquals("2.5." + i, expected.getAttribute(EFS.ATTRIBUTE_READ_ONLY), actual.getAttribute(EFS.ATTRIBUTE_READ_ONLY));
+		}
+
+		// files missing from the tree do not exist
+		assertTrue("3.0", !tree.getFileInfo(folder.getChild("missing")).exists());
+		assertEquals("3.1", 0, tree.getChildInfos(file).length);
+		// stores outside the tree have no children
+		assertEquals("3.2", 0, tree.getChildInfos(getTempStore()).length);
+	}
+
 	public void testMove() throws Throwable {
 		/* build scenario */
 		IFileStore tempC = createDir(getWorkspace().getRoot().getLocation().append("temp").toString(), true);
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2012 IBM Corporation and others.
+ *  Copyright (c) 2000, 2018 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -37,6 +37,7 @@ public class AllTests extends TestCase {
 		suite.addTest(BuildContextTest.suite());
 		suite.addTest(ParallelBuildChainTest.suite());
 		suite.addTest(ComputeProjectOrderTest.suite());
+		suite.addTest(GraphProcessorTest.suite());
 		return suite;
 	}
 }
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2017 IBM Corporation and others.
+ *  Copyright (c) 2000, 2018 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -13,13 +13,15 @@ package org.eclipse.core.tests.internal.builders;
 
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
-import java.util.HashMap;
-import java.util.Map;
+import java.util.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import org.eclipse.core.internal.events.ResourceDeltaFactory;
+import org.eclipse.core.internal.resources.DelayedCollapseJob;
+import org.eclipse.core.internal.resources.Workspace;
+import org.eclipse.core.internal.watson.ElementTree;
 import org.eclipse.core.resources.*;
-import org.eclipse.core.runtime.CoreException;
-import org.eclipse.core.runtime.IStatus;
+import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.Job;
 import org.eclipse.core.tests.harness.TestBarrier;
 import org.eclipse.core.tests.harness.TestJob;
@@ -1234,6 +1236,58 @@ public class BuilderTest extends AbstractBuilderTest {
 	 * Tests that turning autobuild on will invoke a build in the next
 	 * operation.
 	 */
+	/**
+	 * Returns a description of the changes between the given trees.
+	 */
+	private List<String> describeDelta(ElementTree oldTree, ElementTree newTree) throws CoreException {
+		final List<String> result = new ArrayList<>();
+		ResourceDeltaFactory.computeDelta((Workspace) getWorkspace(), oldTree, newTree, Path.ROOT, -1).accept(delta -> {
+			result.add(delta.getFullPath() + " " + delta.getKind() + " " + delta.getFlags());
+			return true;
+		});
+		return result;
+	}
+
+	/**
+	 * Tests that the tree a builder keeps for its next delta is collapsed in the
+	 * background once the workspace has opened many layers on top of it, and
+	 * that the delta computed from it does not change.
+	 */
+	public void testRetainedTreeCollapse() throws CoreException, InterruptedException {
+		IProject project = getWorkspace().getRoot().getProject("PROJECT");
+		ensureExistsInWorkspace(project, true);
+		setAutoBuilding(false);
+		addBuilder(project, SortBuilder.BUILDER_NAME);
+		project.build(IncrementalProjectBuilder.FULL_BUILD, getMonitor());
+		Workspace workspace = (Workspace) getWorkspace();
+		ElementTree builderTree = workspace.getBuildManager().createBuildersPersistentInfo(project).get(0).getLastBuiltTree();
+		assertNotNull("1.0", builderTree);
+
+		// every top level operation opens at least one tree layer; holding the
+		// workspace rule keeps the collapse job from running in the meantime
+		ElementTree current;
+		int depth;
+		List<String> delta;
+		Job.getJobManager().beginRule(workspace.getRoot(), getMonitor());
+		try {
+			for (int i = 0; i < 150; i++)
+				project.getFile("file" + i).create(getRandomContents(), true, getMonitor());
+			current = workspace.getElementTree();
+			depth = builderTree.getDeltaDepth();
+			assertTrue("2.0", depth > 100);
+			delta = describeDelta(builderTree, current);
+		} finally {
+			Job.getJobManager().endRule(workspace.getRoot());
+		}
+
+		for (Job job : Job.getJobManager().find(null))
+			if (job instanceof DelayedCollapseJob)
+				job.join();
+		assertSame("3.0", builderTree, workspace.getBuildManager().createBuildersPersistentInfo(project).get(0).getLastBuiltTree());
+		assertTrue("3.1", builderTree.getDeltaDepth() < depth);
+		assertEquals("3.2", delta, describeDelta(builderTree, current));
+	}
+
 	public void testTurnOnAutobuild() throws CoreException {
 		// Create some resource handles
 		IProject project = getWorkspace().getRoot().getProject("PROJECT");
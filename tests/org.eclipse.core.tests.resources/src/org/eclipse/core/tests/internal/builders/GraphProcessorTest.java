@@ -0,0 +1,126 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.builders;
+
+import static org.junit.Assert.*;
+
+import java.util.*;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import junit.framework.JUnit4TestAdapter;
+import org.eclipse.core.internal.events.GraphProcessor;
+import org.eclipse.core.internal.resources.ComputeProjectOrder.Digraph;
+import org.eclipse.core.runtime.jobs.Job;
+import org.eclipse.core.runtime.jobs.JobGroup;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.junit.runners.JUnit4;
+
+/**
+ * Tests the order in which {@link GraphProcessor} starts the vertexes of a graph.
+ */
+@RunWith(JUnit4.class)
+public class GraphProcessorTest {
+	public static junit.framework.Test suite() {
+		return new JUnit4TestAdapter(GraphProcessorTest.class);
+	}
+
+	private static Digraph<String> createGraph(String[] vertexes, String[][] edges) {
+		Digraph<String> graph = new Digraph<>(String.class);
+		for (String vertex : vertexes)
+			graph.addVertex(vertex);
+		for (String[] edge : edges)
+			graph.addEdge(edge[0], edge[1]);
+		graph.freeze();
+		return graph;
+	}
+
+	private static void process(GraphProcessor<String> processor) throws InterruptedException {
+		processor.processGraphWithParallelJobs();
+		Job.getJobManager().join(processor, null);
+	}
+
+	/**
+	 * With a single thread, the vertex with the most expensive path to the end
+	 * of the graph must always be started first.
+	 */
+	@Test
+	public void testCriticalPathFirst() throws InterruptedException {
+		Digraph<String> graph = createGraph(new String[] {"a", "b", "c", "d"}, new String[][] {{"c", "d"}});
+		Map<String, Long> costs = new HashMap<>();
+		costs.put("a", 5L);
+		costs.put("b", 1L);
+		costs.put("c", 3L);
+		costs.put("d", 10L);
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		GraphProcessor<String> processor = new GraphProcessor<>(graph, String.class, (vertex, p) -> order.add(vertex), costs::get, new JobGroup("testCriticalPathFirst", 1, 0));
+		process(processor);
+		assertEquals(Arrays.asList("c", "d", "a", "b"), order);
+	}
+
+	/**
+	 * Vertexes of unknown cost count as 1, so longer chains still come first.
+	 */
+	@Test
+	public void testUnknownCosts() throws InterruptedException {
+		Digraph<String> graph = createGraph(new String[] {"a", "b", "c", "d"}, new String[][] {{"b", "c"}, {"c", "d"}});
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		GraphProcessor<String> processor = new GraphProcessor<>(graph, String.class, (vertex, p) -> order.add(vertex), vertex -> 0, new JobGroup("testUnknownCosts", 1, 0));
+		process(processor);
+		assertEquals(Arrays.asList("b", "c", "d", "a"), order);
+	}
+
+	/**
+	 * Every vertex of a cycle must be processed exactly once.
+	 */
+	@Test
+	public void testCycle() throws InterruptedException {
+		Digraph<String> graph = createGraph(new String[] {"a", "b", "c", "d"}, new String[][] {{"a", "b"}, {"b", "c"}, {"c", "a"}, {"c", "d"}});
+		List<String> order = Collections.synchronizedList(new ArrayList<>());
+		GraphProcessor<String> processor = new GraphProcessor<>(graph, String.class, (vertex, p) -> order.add(vertex), vertex -> 1, new JobGroup("testCycle", 1, 0));
+		process(processor);
+		assertEquals(4, order.size());
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d")), new HashSet<>(order));
+		assertEquals("d", order.get(3));
+	}
+
+	/**
+	 * No more jobs than the job group allows may be scheduled, so that the
+	 * remaining vertexes stay queued by priority.
+	 */
+	@Test
+	public void testMaxThreads() throws InterruptedException {
+		Digraph<String> graph = createGraph(new String[] {"a", "b", "c", "d", "e"}, new String[0][]);
+		CountDownLatch started = new CountDownLatch(2);
+		CountDownLatch release = new CountDownLatch(1);
+		Set<String> processed = Collections.synchronizedSet(new HashSet<>());
+		BiConsumer<String, GraphProcessor<String>> blockingProcessor = (vertex, p) -> {
+			started.countDown();
+			try {
+				release.await(30, TimeUnit.SECONDS);
+			} catch (InterruptedException e) {
+				// finish the vertex
+			}
+			processed.add(vertex);
+		};
+		GraphProcessor<String> processor = new GraphProcessor<>(graph, String.class, blockingProcessor, vertex -> 1, new JobGroup("testMaxThreads", 2, 0));
+		processor.processGraphWithParallelJobs();
+		try {
+			assertTrue(started.await(30, TimeUnit.SECONDS));
+			assertEquals(2, Job.getJobManager().find(processor).length);
+		} finally {
+			release.countDown();
+		}
+		Job.getJobManager().join(processor, null);
+		assertEquals(new HashSet<>(Arrays.asList("a", "b", "c", "d", "e")), processed);
+	}
+}
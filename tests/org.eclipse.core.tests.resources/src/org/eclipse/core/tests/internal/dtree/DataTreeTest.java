@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -536,6 +536,29 @@ public class DataTreeTest extends TestCase {
 
 		return;
 	}
+
+	/**
+	 * Tests lookups in a node with enough children to be indexed by name.
+	 */
+	public void testIncludesManyChildren() {
+		IPath folderKey = rootKey.append("folder");
+		tree.createChild(rootKey, "folder");
+		for (int i = 0; i < 200; i++)
+			tree.createChild(folderKey, "file" + i);
+
+		for (int i = 0; i < 200; i++)
+			assertTrue("1." + i, tree.includes(folderKey.append("file" + i)));
+		assertTrue("2", !tree.includes(folderKey.append("file200")));
+		assertTrue("3", !tree.includes(folderKey.append("bogus")));
+
+		/* the index must follow changes to the children */
+		tree.deleteChild(folderKey, "file100");
+		tree.createChild(folderKey, "file200");
+		assertTrue("4", !tree.includes(folderKey.append("file100")));
+		assertTrue("5", tree.includes(folderKey.append("file200")));
+		assertTrue("6", tree.includes(folderKey.append("file199")));
+		assertEquals("7", 200, tree.getChildCount(folderKey));
+	}
 	/*
 	 * @see Assert#assertTrue(boolean)
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -171,6 +171,62 @@ public class DeltaDataTreeTest extends DataTreeTest {
 		tree2.makeComplete();
 	}
 
+	private void assertEqualComparisons(String message, DeltaDataTree expected, DeltaDataTree actual, IPath key) {
+		NodeComparison expectedComparison = (NodeComparison) expected.getData(key);
+		NodeComparison actualComparison = (NodeComparison) actual.getData(key);
+		assertEquals(message + key, expectedComparison.getComparison(), actualComparison.getComparison());
+		assertEquals(message + key, expectedComparison.getUserComparison(), actualComparison.getUserComparison());
+		assertSame(message + key, expectedComparison.getOldData(), actualComparison.getOldData());
+		assertSame(message + key, expectedComparison.getNewData(), actualComparison.getNewData());
+		IPath[] expectedChildren = expected.getChildren(key);
+		IPath[] actualChildren = actual.getChildren(key);
+		assertEquals(message + key, expectedChildren.length, actualChildren.length);
+		for (int i = 0; i < expectedChildren.length; i++) {
+			assertEquals(message + key, expectedChildren[i], actualChildren[i]);
+			assertEqualComparisons(message, expected, actual, expectedChildren[i]);
+		}
+	}
+
+	private DeltaDataTree createWideTree() {
+		DeltaDataTree wide = new DeltaDataTree();
+		for (int i = 0; i < 20; i++) {
+			wide.createChild(Path.ROOT, "project" + i, "Data for project" + i);
+			for (int j = 0; j < 10; j++)
+				wide.createChild(Path.ROOT.append("project" + i), "file" + j, "Data for file" + j);
+		}
+		wide.immutable();
+		return wide;
+	}
+
+	/**
+	 * Tests that comparing the subtrees of wide trees in parallel gives the
+	 * same delta as comparing them sequentially.
+	 */
+	public void testParallelCompare() {
+		IComparator comparator = DefaultElementComparator.getComparator();
+		DeltaDataTree base = createWideTree();
+		DeltaDataTree changed = base.newEmptyDeltaTree();
+		for (int i = 0; i < 20; i += 3) {
+			IPath project = Path.ROOT.append("project" + i);
+			changed.setData(project.append("file1"), "Changed data");
+			changed.deleteChild(project, "file2");
+			changed.createChild(project, "added", "Data for added");
+		}
+		changed.deleteChild(Path.ROOT, "project19");
+		changed.createChild(Path.ROOT, "project20", "Data for project20");
+		changed.immutable();
+
+		assertEqualComparisons("1.0", changed.compareWith(base, comparator), changed.compareWith(base, comparator, true), Path.ROOT);
+		assertEqualComparisons("2.0", base.compareWith(changed, comparator), base.compareWith(changed, comparator, true), Path.ROOT);
+		// trees without common ancestry
+		DeltaDataTree unrelated = createWideTree();
+		assertEqualComparisons("3.0", unrelated.compareWith(changed, comparator), unrelated.compareWith(changed, comparator, true), Path.ROOT);
+		// comparisons starting at a project
+		IPath project = Path.ROOT.append("project0");
+		assertEqualComparisons("4.0", changed.compareWith(base, comparator, project), changed.compareWith(base, comparator, project, true), Path.ROOT);
+		assertEqualComparisons("4.1", unrelated.compareWith(changed, comparator, project), unrelated.compareWith(changed, comparator, project, true), Path.ROOT);
+	}
+
 	/**
 	 * Test for problem when two complete nodes exist, and then
 	 * the deleting only masks the first one.
@@ -26,6 +26,7 @@ public class AllTests extends TestCase {
 		TestSuite suite = new TestSuite(AllTests.class.getName());
 
 		suite.addTest(BuildProjectFromMultipleJobsTest.suite());
+		suite.addTest(DeltaTreeCacheTest.suite());
 
 		return suite;
 	}
@@ -0,0 +1,88 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.events;
+
+import junit.framework.*;
+import org.eclipse.core.internal.dtree.*;
+import org.eclipse.core.internal.events.DeltaTreeCache;
+import org.eclipse.core.internal.watson.ElementTree;
+import org.eclipse.core.internal.watson.IElementComparator;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Tests the sharing of delta trees by {@link DeltaTreeCache}.
+ */
+public class DeltaTreeCacheTest extends TestCase {
+	private static final IComparator COMPARATOR = (oldInfo, newInfo) -> {
+		if (oldInfo == null)
+			return newInfo == null ? NodeComparison.K_CHANGED : NodeComparison.K_ADDED;
+		if (newInfo == null)
+			return NodeComparison.K_REMOVED;
+		return oldInfo.equals(newInfo) ? IElementComparator.K_NO_CHANGE : NodeComparison.K_CHANGED;
+	};
+
+	private static final IPath PROJECT = new Path("/project");
+
+	private ElementTree newTree;
+	private ElementTree oldTree;
+
+	public static Test suite() {
+		return new TestSuite(DeltaTreeCacheTest.class);
+	}
+
+	public DeltaTreeCacheTest(String name) {
+		super(name);
+	}
+
+	@Override
+	protected void setUp() throws Exception {
+		oldTree = new ElementTree();
+		oldTree.createElement(PROJECT, "project");
+		oldTree.createElement(PROJECT.append("a"), "a");
+		oldTree.createElement(PROJECT.append("b"), "b");
+		oldTree.immutable();
+		newTree = oldTree.newEmptyDelta();
+		newTree.setElementData(PROJECT.append("a"), "changed");
+		newTree.deleteElement(PROJECT.append("b"));
+		newTree.createElement(PROJECT.append("c"), "c");
+	}
+
+	public void testComparison() {
+		DeltaTreeCache cache = new DeltaTreeCache();
+		DeltaDataTree delta = cache.getComparison(oldTree, newTree, COMPARATOR, Path.ROOT);
+		assertTrue("1.0", newTree.isImmutable());
+		assertSame("1.1", delta, cache.getComparison(oldTree, newTree, COMPARATOR, Path.ROOT));
+		assertEquals("1.2", 3, delta.getChildren(PROJECT).length);
+		assertEquals("1.3", NodeComparison.K_CHANGED, ((NodeComparison) delta.getData(PROJECT.append("a"))).getUserComparison());
+		assertEquals("1.4", NodeComparison.K_REMOVED, ((NodeComparison) delta.getData(PROJECT.append("b"))).getUserComparison());
+		assertEquals("1.5", NodeComparison.K_ADDED, ((NodeComparison) delta.getData(PROJECT.append("c"))).getUserComparison());
+
+		// other roots and trees are distinct comparisons
+		DeltaDataTree projectDelta = cache.getComparison(oldTree, newTree, COMPARATOR, PROJECT);
+		assertNotSame("2.0", delta, projectDelta);
+		assertSame("2.1", projectDelta, cache.getComparison(oldTree, newTree, COMPARATOR, new Path("/project")));
+		assertNotSame("2.2", delta, cache.getComparison(newTree, oldTree, COMPARATOR, Path.ROOT));
+
+		cache.flush();
+		assertNotSame("3.0", delta, cache.getComparison(oldTree, newTree, COMPARATOR, Path.ROOT));
+	}
+
+	public void testForwardDelta() {
+		DeltaTreeCache cache = new DeltaTreeCache();
+		DeltaDataTree delta = cache.getForwardDelta(oldTree, newTree, COMPARATOR);
+		assertSame("1.0", delta, cache.getForwardDelta(oldTree, newTree, COMPARATOR));
+		assertNotNull("1.1", delta.findNodeAt(PROJECT.append("c")));
+		assertNull("1.2", delta.findNodeAt(new Path("/other")));
+		// forward deltas and comparisons are never confused
+		assertNotSame("2.0", delta, cache.getComparison(oldTree, newTree, COMPARATOR, Path.ROOT));
+	}
+}
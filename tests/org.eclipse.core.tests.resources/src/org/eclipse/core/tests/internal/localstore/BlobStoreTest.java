@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,6 +11,7 @@
 package org.eclipse.core.tests.internal.localstore;
 
 import java.io.InputStream;
+import java.util.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.filesystem.*;
@@ -99,6 +100,64 @@ public class BlobStoreTest extends LocalStoreTest {
 		return root;
 	}
 
+	public void testContentAddressedBlobs() throws CoreException {
+		IFileStore root = createStore();
+		BlobStore store = new BlobStore(root, 64, true, true);
+		String content = "nothing important........tnatropmi gnihton";
+
+		/* identical contents are stored once */
+		IFileStore target = root.getChild("target");
+		createFile(target, content);
+		UniversalUniqueIdentifier uuid1 = store.addBlob(target, false);
+		UniversalUniqueIdentifier uuid2 = store.addBlob(target, true);
+		assertEquals("1.0", uuid1, uuid2);
+		assertTrue("1.1", BlobStore.isContentAddressed(uuid1));
+		assertTrue("1.2", !target.fetchInfo().exists());
+		assertTrue("1.3", compareContent(getContents(content), store.getBlob(uuid1)));
+
+		/* different contents get different blobs */
+		createFile(target, content + "!");
+		UniversalUniqueIdentifier uuid3 = store.addBlob(target, true);
+		assertTrue("2.0", !uuid1.equals(uuid3));
+
+		/* shared blobs are not deleted while their references are unknown or in use */
+		Set<UniversalUniqueIdentifier> toRemove = new HashSet<>(Arrays.asList(uuid1, uuid3));
+		store.deleteBlobs(toRemove);
+		assertEquals("3.0", 2, toRemove.size());
+		assertTrue("3.1", store.fileFor(uuid1).fetchInfo().exists());
+		Map<UniversalUniqueIdentifier, Integer> references = new HashMap<>();
+		store.setReferences(references);
+		store.addReference(uuid1);
+		store.addReference(uuid1);
+		store.removeReference(uuid1);
+		store.deleteBlobs(toRemove);
+		assertTrue("3.2", toRemove.isEmpty());
+		assertTrue("3.3", store.fileFor(uuid1).fetchInfo().exists());
+		assertTrue("3.4", !store.fileFor(uuid3).fetchInfo().exists());
+
+		/* the last reference is gone */
+		store.removeReference(uuid1);
+		toRemove.add(uuid1);
+		store.deleteBlobs(toRemove);
+		assertTrue("4.0", !store.fileFor(uuid1).fetchInfo().exists());
+	}
+
+	public void testDeleteTemporaryFiles() throws CoreException {
+		IFileStore root = createStore();
+		BlobStore store = new BlobStore(root, 64, true, false);
+		IFileStore target = root.getChild("target");
+		createFile(target, "nothing important");
+		UniversalUniqueIdentifier uuid = store.addBlob(target, false);
+
+		/* a blob whose writing was interrupted */
+		IFileStore temp = root.getChild(new UniversalUniqueIdentifier().toString() + ".tmp");
+		createFile(temp, "half written");
+		store.deleteTemporaryFiles();
+		assertTrue("1.0", !temp.fetchInfo().exists());
+		assertTrue("1.1", target.fetchInfo().exists());
+		assertTrue("1.2", store.fileFor(uuid).fetchInfo().exists());
+	}
+
 	public void testDeleteBlob() {
 		/* initialize common objects */
 		IFileStore root = createStore();
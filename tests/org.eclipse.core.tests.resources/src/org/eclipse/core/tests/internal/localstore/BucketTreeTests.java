@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2004, 2015 IBM Corporation and others.
+ *  Copyright (c) 2004, 2018 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -85,7 +85,7 @@ public class BucketTreeTests extends ResourceTest {
 			return value;
 		}
 
-		public void set(IPath path, String key, String value) {
+		public void set(IPath path, String key, String value) throws CoreException {
 			String pathAsString = path.toString();
 			@SuppressWarnings("unchecked")
 			Map<String, String> existing = (Map<String, String>) getEntryValue(pathAsString);
@@ -145,11 +145,11 @@ public class BucketTreeTests extends ResourceTest {
 			for (int i = 0; i < paths.length; i++) {
 				try {
 					tree.loadBucketFor(paths[i]);
+					bucket.set(paths[i], "path", paths[i].toString());
+					bucket.set(paths[i], "segments", Integer.toString(paths[i].segmentCount()));
 				} catch (CoreException e) {
 					fail("0.1." + i, e);
 				}
-				bucket.set(paths[i], "path", paths[i].toString());
-				bucket.set(paths[i], "segments", Integer.toString(paths[i].segmentCount()));
 			}
 			try {
 				bucket.save();
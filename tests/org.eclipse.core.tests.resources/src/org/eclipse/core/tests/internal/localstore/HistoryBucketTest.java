@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2015 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -10,6 +10,7 @@
  *******************************************************************************/
 package org.eclipse.core.tests.internal.localstore;
 
+import java.io.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.internal.localstore.Bucket.Entry;
@@ -32,7 +33,7 @@ public class HistoryBucketTest extends ResourceTest {
 	 * Ensures that if another entry having exactly the same UUID is added,
 	 * the original one is not replaced.
 	 */
-	public void testDuplicates() {
+	public void testDuplicates() throws CoreException {
 		IPath baseLocation = getRandomLocation();
 		try {
 			HistoryBucket index1 = new HistoryBucket();
@@ -60,7 +61,7 @@ public class HistoryBucketTest extends ResourceTest {
 		}
 	}
 
-	public void testPersistence() {
+	public void testPersistence() throws CoreException {
 		IPath baseLocation = getRandomLocation();
 		try {
 			HistoryBucket index1 = new HistoryBucket();
@@ -139,10 +140,113 @@ public class HistoryBucketTest extends ResourceTest {
 		}
 	}
 
+	public void testManyEntries() throws CoreException {
+		IPath baseLocation = getRandomLocation();
+		try {
+			HistoryBucket index1 = new HistoryBucket();
+			IPath location = baseLocation.append("location");
+			try {
+				index1.load("foo", location.toFile());
+			} catch (CoreException e) {
+				fail("1.0", e);
+			}
+			int count = 100;
+			UniversalUniqueIdentifier[] uuids = new UniversalUniqueIdentifier[count];
+			for (int i = 0; i < count; i++) {
+				uuids[i] = new UniversalUniqueIdentifier();
+				index1.addBlob(new Path("/foo/file" + i), uuids[i], i);
+			}
+			index1.addBlob(new Path("/foo"), uuids[0], 0);
+			try {
+				index1.save();
+			} catch (CoreException e) {
+				fail("2.0", e);
+			}
+			HistoryBucket index2 = new HistoryBucket();
+			try {
+				index2.load("foo", location.toFile());
+			} catch (CoreException e) {
+				fail("3.0", e);
+			}
+			assertEquals("3.1", count + 1, index2.getEntryCount());
+			for (int i = 0; i < count; i++) {
+				HistoryBucket.HistoryEntry entry = index2.getEntry(new Path("/foo/file" + i));
+				assertNotNull("3.2." + i, entry);
+				assertEquals("3.3." + i, uuids[i], entry.getUUID(0));
+				assertEquals("3.4." + i, i, entry.getTimestamp(0));
+			}
+			assertNotNull("4.0", index2.getEntry(new Path("/foo")));
+			assertNull("4.1", index2.getEntry(new Path("/foo/file")));
+			assertNull("4.2", index2.getEntry(new Path("/bar/file0")));
+			assertNull("4.3", index2.getEntry(new Path("/foobar/file0")));
+		} finally {
+			ensureDoesNotExistInFileSystem(baseLocation.toFile());
+		}
+	}
+
+	/**
+	 * Ensures that index files in the stream format of version 2 are still
+	 * read, and converted when saved.
+	 */
+	public void testStreamFormat() throws CoreException {
+		IPath baseLocation = getRandomLocation();
+		try {
+			IPath location = baseLocation.append("location");
+			File indexFile = location.append("history.index").toFile();
+			location.toFile().mkdirs();
+			UniversalUniqueIdentifier uuid1 = new UniversalUniqueIdentifier();
+			try (DataOutputStream output = new DataOutputStream(new FileOutputStream(indexFile))) {
+				output.writeByte(2);
+				output.writeInt(1);
+				output.writeUTF("/bar");
+				output.writeShort(1);
+				output.write(uuid1.toBytes());
+				output.writeLong(42);
+			} catch (IOException e) {
+				fail("1.0", e);
+			}
+			HistoryBucket index1 = new HistoryBucket();
+			try {
+				index1.load("foo", location.toFile());
+			} catch (CoreException e) {
+				fail("2.0", e);
+			}
+			IPath path1 = new Path("/foo/bar");
+			HistoryBucket.HistoryEntry entry = index1.getEntry(path1);
+			assertNotNull("2.1", entry);
+			assertEquals("2.2", uuid1, entry.getUUID(0));
+			assertEquals("2.3", 42, entry.getTimestamp(0));
+			IPath path2 = new Path("/foo/baz");
+			UniversalUniqueIdentifier uuid2 = new UniversalUniqueIdentifier();
+			index1.addBlob(path2, uuid2, 43);
+			try {
+				index1.save();
+			} catch (CoreException e) {
+				fail("3.0", e);
+			}
+			try (InputStream input = new FileInputStream(indexFile)) {
+				assertEquals("3.1", HistoryBucket.VERSION, input.read());
+			} catch (IOException e) {
+				fail("3.2", e);
+			}
+			HistoryBucket index2 = new HistoryBucket();
+			try {
+				index2.load("foo", location.toFile());
+			} catch (CoreException e) {
+				fail("4.0", e);
+			}
+			assertEquals("4.1", 2, index2.getEntryCount());
+			assertEquals("4.2", uuid1, index2.getEntry(path1).getUUID(0));
+			assertEquals("4.3", uuid2, index2.getEntry(path2).getUUID(0));
+		} finally {
+			ensureDoesNotExistInFileSystem(baseLocation.toFile());
+		}
+	}
+
 	/**
 	 * This test does not cause any data to be written.
 	 */
-	public void testSort() {
+	public void testSort() throws CoreException {
 		HistoryBucket index = new HistoryBucket();
 		IPath path = new Path("/foo");
 		assertNull("1.0", index.getEntry(path));
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2015 IBM Corporation and others.
+ *  Copyright (c) 2000, 2018 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -73,6 +73,26 @@ public class SafeFileInputOutputStreamTest extends ResourceTest {
 		super.tearDown();
 	}
 
+	public void testReadAllBytes() throws IOException {
+		File target = new File(temp, "target");
+		Workspace.clear(target); // make sure there was nothing here before
+		File tempFile = new File(temp, "target.backup");
+		assertNull("1.0", SafeFileInputStream.readAllBytes(target.getAbsolutePath(), tempFile.getAbsolutePath()));
+
+		// the target is read if it exists
+		String contents = getRandomString();
+		SafeFileOutputStream safeStream = createSafeStream(target.getAbsolutePath(), tempFile.getAbsolutePath(), "2.0");
+		transferStreams(getContents(contents), safeStream, target.getAbsolutePath(), null);
+		byte[] bytes = SafeFileInputStream.readAllBytes(target.getAbsolutePath(), tempFile.getAbsolutePath());
+		assertTrue("2.1", compareContent(new ByteArrayInputStream(bytes), getContents(contents)));
+
+		// otherwise the temporary file is read
+		assertTrue("3.0", target.renameTo(tempFile));
+		bytes = SafeFileInputStream.readAllBytes(target.getAbsolutePath(), tempFile.getAbsolutePath());
+		assertTrue("3.1", compareContent(new ByteArrayInputStream(bytes), getContents(contents)));
+		Workspace.clear(tempFile);
+	}
+
 	public void testSafeFileInputStream() {
 		File target = new File(temp, "target");
 		Workspace.clear(target); // make sure there was nothing here before
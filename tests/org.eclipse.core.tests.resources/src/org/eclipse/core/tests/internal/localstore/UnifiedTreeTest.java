@@ -13,7 +13,7 @@ package org.eclipse.core.tests.internal.localstore;
 
 import java.io.*;
 import java.net.URI;
-import java.util.Hashtable;
+import java.util.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.filesystem.EFS;
@@ -248,6 +248,37 @@ public class UnifiedTreeTest extends LocalStoreTest {
 		assertTrue("2.0", set.isEmpty());
 	}
 
+	/**
+	 * Makes sure that fetching directory listings concurrently visits the same
+	 * nodes in the same order as the sequential traversal.
+	 */
+	public void testParallelListingVisitsSameNodes() throws Throwable {
+		IProject project = projects[0];
+		IFolder folder = project.getFolder("root");
+		folder.create(true, true, null);
+		final Hashtable<String, String> set = new Hashtable<>();
+		createResourcesInWorkspace(folder, set);
+		createResourcesInFileSystem(((Resource) folder).getStore(), set);
+
+		final List<String> sequential = new ArrayList<>();
+		UnifiedTree tree = new UnifiedTree(folder);
+		tree.accept(node -> {
+			sequential.add(node.getResource().getFullPath() + ":" + node.existsInFileSystem() + ":" + node.existsInWorkspace());
+			return true;
+		});
+
+		final List<String> parallel = new ArrayList<>();
+		tree = new UnifiedTree(folder);
+		tree.setParallelListing(true);
+		tree.accept(node -> {
+			parallel.add(node.getResource().getFullPath() + ":" + node.existsInFileSystem() + ":" + node.existsInWorkspace());
+			return true;
+		});
+
+		assertEquals("1.0", sequential, parallel);
+		assertEquals("1.1", set.size() + 1, parallel.size());
+	}
+
 	/**
 	 * Regression test for 342968 - Resource layers asks IFileTree for info of linked resources
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,11 +11,12 @@
  *******************************************************************************/
 package org.eclipse.core.tests.internal.properties;
 
+import java.io.*;
+import java.util.Map;
 import java.util.Vector;
 import junit.framework.Test;
 import junit.framework.TestSuite;
-import org.eclipse.core.internal.properties.IPropertyManager;
-import org.eclipse.core.internal.properties.PropertyManager2;
+import org.eclipse.core.internal.properties.*;
 import org.eclipse.core.internal.resources.Workspace;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
@@ -503,6 +504,103 @@ public class PropertyManagerTest extends LocalStoreTest {
 		target.delete(false, monitor);
 	}
 
+	public void testBulkGetProperties() throws Throwable {
+		IPropertyManager manager = new PropertyManager2((Workspace) ResourcesPlugin.getWorkspace());
+		IFolder folder = projects[0].getFolder("folder");
+		folder.create(false, true, null);
+		IFile[] targets = new IFile[] {projects[0].getFile("target1"), folder.getFile("target2"), projects[0].getFile("target3"), projects[1].getFile("target4")};
+		QualifiedName propName = new QualifiedName("org.eclipse.core.tests", "prop");
+		for (int i = 0; i < targets.length; i++) {
+			targets[i].create(getRandomContents(), false, null);
+			if (i != 2)
+				manager.setProperty(targets[i], propName, "value" + i);
+		}
+
+		Map<IResource, Map<QualifiedName, String>> properties = manager.getProperties(targets);
+		assertEquals("1.0", targets.length, properties.size());
+		for (int i = 0; i < targets.length; i++)
+			assertEquals("1.1." + i, i == 2 ? null : "value" + i, properties.get(targets[i]).get(propName));
+
+		// changes must be visible through the cached buckets
+		manager.deleteProperties(targets[0], IResource.DEPTH_ZERO);
+		manager.setProperty(targets[2], propName, "changed");
+		properties = manager.getProperties(targets);
+		assertTrue("2.0", properties.get(targets[0]).isEmpty());
+		assertEquals("2.1", "value1", manager.getProperty(targets[1], propName));
+		assertEquals("2.2", "changed", properties.get(targets[2]).get(propName));
+		assertEquals("2.3", properties.get(targets[3]), manager.getProperties(targets[3]));
+
+		for (IFile target : targets)
+			manager.deleteProperties(target, IResource.DEPTH_INFINITE);
+		for (IFile target : targets)
+			target.delete(false, null);
+		folder.delete(false, null);
+	}
+
+	/**
+	 * Ensures that index files in the stream format of version 1, whose entries
+	 * share qualifiers, are still read and converted when saved.
+	 */
+	public void testStreamFormat() {
+		IPath baseLocation = getRandomLocation();
+		try {
+			IPath location = baseLocation.append("location");
+			File indexFile = location.append("properties.index").toFile();
+			location.toFile().mkdirs();
+			try (DataOutputStream output = new DataOutputStream(new FileOutputStream(indexFile))) {
+				output.writeByte(1);
+				output.writeInt(2);
+				output.writeUTF("/bar");
+				output.writeShort(1);
+				output.writeByte(PropertyBucket.QNAME);
+				output.writeUTF("qualifier");
+				output.writeUTF("name1");
+				output.writeUTF("value1");
+				// the second entry refers to the qualifier of the first one
+				output.writeUTF("/baz");
+				output.writeShort(1);
+				output.writeByte(PropertyBucket.INDEX);
+				output.writeInt(0);
+				output.writeUTF("name2");
+				output.writeUTF("value2");
+			} catch (IOException e) {
+				fail("1.0", e);
+			}
+			QualifiedName name1 = new QualifiedName("qualifier", "name1");
+			QualifiedName name2 = new QualifiedName("qualifier", "name2");
+			QualifiedName name3 = new QualifiedName("other", "name3");
+			IPath path1 = new Path("/foo/bar");
+			IPath path2 = new Path("/foo/baz");
+			PropertyBucket bucket1 = new PropertyBucket();
+			try {
+				bucket1.load("foo", location.toFile());
+				assertEquals("2.0", "value1", bucket1.getProperty(path1, name1));
+				assertEquals("2.1", "value2", bucket1.getProperty(path2, name2));
+				bucket1.setProperty(path2, name3, "value3");
+				bucket1.save();
+			} catch (CoreException e) {
+				fail("2.2", e);
+			}
+			try (InputStream input = new FileInputStream(indexFile)) {
+				assertEquals("3.0", 2, input.read());
+			} catch (IOException e) {
+				fail("3.1", e);
+			}
+			PropertyBucket bucket2 = new PropertyBucket();
+			try {
+				bucket2.load("foo", location.toFile());
+			} catch (CoreException e) {
+				fail("4.0", e);
+			}
+			assertEquals("4.1", 2, bucket2.getEntryCount());
+			assertEquals("4.2", "value1", bucket2.getProperty(path1, name1));
+			assertEquals("4.3", "value2", bucket2.getProperty(path2, name2));
+			assertEquals("4.4", "value3", bucket2.getProperty(path2, name3));
+		} finally {
+			ensureDoesNotExistInFileSystem(baseLocation.toFile());
+		}
+	}
+
 	public void testSimpleUpdate() {
 
 		// create common objects
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2012 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -26,6 +26,7 @@ public class AllTests extends TestCase {
 		suite.addTest(ModelObjectReaderWriterTest.suite());
 		suite.addTest(ProjectPreferencesTest.suite());
 		suite.addTest(ResourceInfoTest.suite());
+		suite.addTest(ResourceInfoCacheTest.suite());
 		suite.addTest(WorkspaceConcurrencyTest.suite());
 		suite.addTest(WorkspacePreferencesTest.suite());
 		suite.addTest(ProjectReferencesTest.suite());
@@ -0,0 +1,68 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.resources;
+
+import junit.framework.*;
+import org.eclipse.core.internal.resources.ResourceInfo;
+import org.eclipse.core.internal.resources.ResourceInfoCache;
+import org.eclipse.core.internal.watson.ElementTree;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.Path;
+
+/**
+ * Tests the lookups remembered by {@link ResourceInfoCache}.
+ */
+public class ResourceInfoCacheTest extends TestCase {
+	private static final IPath FILE = new Path("/project/.project");
+	private static final IPath MISSING = new Path("/project/.classpath");
+	private static final IPath PROJECT = new Path("/project");
+
+	public static Test suite() {
+		return new TestSuite(ResourceInfoCacheTest.class);
+	}
+
+	public ResourceInfoCacheTest(String name) {
+		super(name);
+	}
+
+	public void testLookups() {
+		ElementTree tree = new ElementTree();
+		ResourceInfo projectInfo = new ResourceInfo();
+		ResourceInfo fileInfo = new ResourceInfo();
+		tree.createElement(PROJECT, projectInfo);
+		tree.createElement(FILE, fileInfo);
+		tree.immutable();
+
+		ResourceInfoCache cache = new ResourceInfoCache();
+		assertSame("1.0", fileInfo, cache.get(tree, FILE));
+		assertSame("1.1", fileInfo, cache.get(tree, new Path("/project/.project")));
+		assertSame("1.2", projectInfo, cache.get(tree, PROJECT));
+		assertNull("1.3", cache.get(tree, MISSING));
+		assertNull("1.4", cache.get(tree, MISSING));
+		assertEquals("1.5", 2, cache.getHits());
+		assertEquals("1.6", 3, cache.getMisses());
+		assertEquals("1.7", 40, cache.getHitRate());
+
+		// a newer tree is looked up again
+		ElementTree newTree = tree.newEmptyDelta();
+		ResourceInfo newInfo = new ResourceInfo();
+		newTree.createElement(MISSING, newInfo);
+		newTree.deleteElement(FILE);
+		newTree.immutable();
+		assertSame("2.0", newInfo, cache.get(newTree, MISSING));
+		assertNull("2.1", cache.get(newTree, FILE));
+		assertEquals("2.2", 5, cache.getMisses());
+
+		cache.flush();
+		assertSame("3.0", newInfo, cache.get(newTree, MISSING));
+		assertEquals("3.1", 6, cache.getMisses());
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -15,7 +15,7 @@ import java.io.*;
 import java.util.Map;
 import junit.framework.Test;
 import junit.framework.TestSuite;
-import org.eclipse.core.internal.resources.ResourceInfo;
+import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.runtime.QualifiedName;
 import org.eclipse.core.tests.resources.ResourceTest;
 
@@ -98,6 +98,40 @@ public class ResourceInfoTest extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Markers and session properties changed on an info must not show up in
+	 * its copies, since the element tree shallow copies infos on write.
+	 */
+	public void testCloneIsolation() {
+		QualifiedName name = new QualifiedName("org.eclipse.core.tests", "myTest");
+		ResourceInfo info = new ResourceInfo();
+		MarkerSet markers = new MarkerSet(1);
+		MarkerInfo marker = new MarkerInfo();
+		marker.setId(1);
+		markers.add(marker);
+		info.setMarkers(markers);
+		info.setSessionProperty(name, "original");
+
+		ResourceInfo copy = (ResourceInfo) info.clone();
+		info.setMarkers(null);
+		info.setSessionProperty(name, "changed");
+		assertSame("1.0", markers, copy.getMarkers(false));
+		assertEquals("1.1", "original", copy.getSessionProperty(name));
+		assertNull("1.2", info.getMarkers(false));
+		assertEquals("1.3", "changed", info.getSessionProperty(name));
+
+		copy = (ResourceInfo) info.clone();
+		info.setSessionProperty(name, null);
+		assertEquals("2.0", "changed", copy.getSessionProperty(name));
+		assertNull("2.1", info.getSessionProperty(name));
+
+		info.setSessionProperty(name, "again");
+		copy = (ResourceInfo) info.clone();
+		info.clearSessionProperties();
+		assertEquals("3.0", "again", copy.getSessionProperty(name));
+		assertTrue("3.1", info.getSessionProperties().isEmpty());
+	}
+
 	public void testSerialization() {
 		ByteArrayInputStream input = null;
 		ByteArrayOutputStream output = null;
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2017 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -12,6 +12,8 @@ package org.eclipse.core.tests.internal.resources;
 
 import junit.framework.Test;
 import junit.framework.TestSuite;
+import org.eclipse.core.internal.resources.WorkManager;
+import org.eclipse.core.internal.resources.Workspace;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
 import org.eclipse.core.runtime.jobs.ISchedulingRule;
@@ -58,6 +60,35 @@ public class WorkspaceConcurrencyTest extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Tests that only the thread owning the workspace lock is told that it has
+	 * acquired the lock. The lock is owned during resource change notification.
+	 */
+	public void testIsLockAlreadyAcquired() {
+		final WorkManager workManager = ((Workspace) getWorkspace()).getWorkManager();
+		assertTrue("1.0", !workManager.isLockAlreadyAcquired());
+		final boolean[] acquired = new boolean[2];
+		IResourceChangeListener listener = event -> {
+			acquired[0] = workManager.isLockAlreadyAcquired();
+			Thread other = new Thread(() -> acquired[1] = workManager.isLockAlreadyAcquired());
+			other.start();
+			try {
+				other.join();
+			} catch (InterruptedException e) {
+				//ignore
+			}
+		};
+		getWorkspace().addResourceChangeListener(listener, IResourceChangeEvent.POST_CHANGE);
+		try {
+			ensureExistsInWorkspace(getWorkspace().getRoot().getProject("testIsLockAlreadyAcquired"), true);
+		} finally {
+			getWorkspace().removeResourceChangeListener(listener);
+		}
+		assertTrue("2.0", acquired[0]);
+		assertTrue("2.1", !acquired[1]);
+		assertTrue("3.0", !workManager.isLockAlreadyAcquired());
+	}
+
 	/**
 	 * Tests that it is possible to cancel a workspace operation when it is blocked
 	 * by activity in another thread. This is a regression test for bug 56118.
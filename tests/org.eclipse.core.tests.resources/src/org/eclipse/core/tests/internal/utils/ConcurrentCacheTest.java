@@ -0,0 +1,115 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.internal.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+import junit.framework.*;
+import org.eclipse.core.internal.utils.ConcurrentCache;
+
+public class ConcurrentCacheTest extends TestCase {
+	public static Test suite() {
+		return new TestSuite(ConcurrentCacheTest.class);
+	}
+
+	public void testBasic() {
+		ConcurrentCache<String, String> cache = new ConcurrentCache<>(2, 0);
+		cache.addEntry("foo", "foo", 1);
+		ConcurrentCache.Entry<String, String> foo = cache.getEntry("foo");
+		assertNotNull("1.0", foo);
+		assertEquals("1.1", "foo", foo.getCached());
+		assertEquals("1.2", 1, foo.getTimestamp());
+		assertNull("1.3", cache.getEntry("bar"));
+		assertEquals("2.0", 1, cache.getHits());
+		assertEquals("2.1", 1, cache.getMisses());
+		assertEquals("2.2", 50, cache.getHitRate());
+		// peeking is not counted
+		assertSame("3.0", foo, cache.peekEntry("foo"));
+		assertEquals("3.1", 1, cache.getHits());
+
+		// updating replaces the entry
+		cache.addEntry("foo", "bar", 2);
+		assertEquals("4.0", 1, cache.size());
+		assertEquals("4.1", "bar", cache.getEntry("foo").getCached());
+		assertEquals("4.2", 2, cache.getEntry("foo").getTimestamp());
+	}
+
+	public void testCacheLimit() {
+		ConcurrentCache<String, String> cache = new ConcurrentCache<>(3, 0.33);
+		cache.addEntry("foo", "foo", 0);
+		cache.addEntry("bar", "bar", 0);
+		cache.addEntry("zoo", "zoo", 0);
+		cache.addEntry("fred", "fred", 0);
+		cache.addEntry("zar", "zar", 0);
+		assertEquals("3.0", 3, cache.size());
+		assertEquals("3.1", 2, cache.getEvictions());
+		assertNull("3.2", cache.peekEntry("foo"));
+		assertNull("3.3", cache.peekEntry("bar"));
+		// force zoo to be the most recently used
+		assertNotNull("3.4", cache.getEntry("zoo"));
+		cache.addEntry("foo", "foo", 0);
+		assertEquals("4.0", 3, cache.size());
+		assertNull("4.1", cache.peekEntry("fred"));
+		assertNotNull("4.2", cache.peekEntry("zoo"));
+		assertNotNull("4.3", cache.peekEntry("zar"));
+		assertNotNull("4.4", cache.peekEntry("foo"));
+	}
+
+	public void testConcurrentAccess() throws InterruptedException {
+		final ConcurrentCache<Integer, Integer> cache = new ConcurrentCache<>(100, 0.1);
+		List<Thread> threads = new ArrayList<>();
+		List<Throwable> failures = new ArrayList<>();
+		for (int t = 0; t < 8; t++) {
+			Thread thread = new Thread(() -> {
+				for (int i = 0; i < 10000; i++) {
+					Integer key = Integer.valueOf(i % 300);
+					ConcurrentCache.Entry<Integer, Integer> entry = cache.getEntry(key);
+					if (entry == null)
+						cache.addEntry(key, key, i);
+					else if (!key.equals(entry.getCached()))
+						synchronized (failures) {
+							failures.add(new AssertionFailedError(entry.toString()));
+						}
+				}
+			});
+			threads.add(thread);
+			thread.start();
+		}
+		for (Thread thread : threads)
+			thread.join();
+		assertTrue("1.0", failures.isEmpty());
+		assertTrue("1.1", cache.size() <= 110);
+		assertEquals("1.2", 80000, cache.getHits() + cache.getMisses());
+	}
+
+	public void testDiscardAll() {
+		ConcurrentCache<String, String> cache = new ConcurrentCache<>(2, 0);
+		cache.addEntry("foo", "foo", 0);
+		cache.addEntry("bar", "bar", 0);
+		cache.discardAll();
+		assertEquals("1.0", 0, cache.size());
+		assertNull("1.1", cache.getEntry("foo"));
+	}
+
+	public void testEntries() {
+		ConcurrentCache<String, String> cache = new ConcurrentCache<>(3, 0);
+		cache.addEntry("foo", "foo", 0);
+		cache.addEntry("bar", "bar", 0);
+		cache.addEntry("zoo", "zoo", 0);
+		cache.getEntry("foo");
+		List<ConcurrentCache.Entry<String, String>> entries = cache.getEntries();
+		assertEquals("1.0", 3, entries.size());
+		// least recently used first
+		assertEquals("1.1", "bar", entries.get(0).getKey());
+		assertEquals("1.2", "zoo", entries.get(1).getKey());
+		assertEquals("1.3", "foo", entries.get(2).getKey());
+	}
+}
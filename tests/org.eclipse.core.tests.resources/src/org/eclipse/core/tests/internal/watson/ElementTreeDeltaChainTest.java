@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -16,7 +16,7 @@ import org.eclipse.core.internal.watson.ElementTree;
 import org.eclipse.core.runtime.IPath;
 
 /**
- * Tests the ElementTree.mergeDeltaChain() method.
+ * Tests the ElementTree.mergeDeltaChain() and ElementTree.collapseTo() methods.
  */
 public class ElementTreeDeltaChainTest extends WatsonTest implements IPathConstants {
 	protected ElementTree fTree;
@@ -49,6 +49,38 @@ public class ElementTreeDeltaChainTest extends WatsonTest implements IPathConsta
 		//ElementTree tests don't use the CoreTest infrastructure
 	}
 
+	/**
+	 * Collapses an old tree onto a much newer one, and makes sure that its
+	 * contents are kept while its delta chain becomes one layer deep.
+	 */
+	public void testCollapseTo() {
+		fTree.immutable();
+		ElementTree oldTree = fTree;
+		ElementTree middleTree = null;
+		ElementTree newTree = oldTree;
+		for (int i = 0; i < 10; i++) {
+			newTree = newTree.newEmptyDelta();
+			newTree.createElement(solution.append("layer" + i), "layer" + i);
+			if (i == 4)
+				middleTree = newTree;
+		}
+		newTree.immutable();
+		assertEquals("1.0", 10, oldTree.getDeltaDepth());
+		assertEquals("1.1", 5, middleTree.getDeltaDepth());
+		assertEquals("1.2", 0, newTree.getDeltaDepth());
+
+		oldTree.collapseTo(newTree);
+		assertEquals("2.0", 1, oldTree.getDeltaDepth());
+		assertSame("2.1", newTree, oldTree.getParent());
+		TestUtil.assertHasPaths(oldTree, TestUtil.getTreePaths());
+		assertTrue("2.2", !oldTree.includes(solution.append("layer0")));
+		assertTrue("2.3", newTree.includes(solution.append("layer9")));
+		// trees that were not collapsed are unaffected
+		assertEquals("3.0", 5, middleTree.getDeltaDepth());
+		assertTrue("3.1", middleTree.includes(solution.append("layer4")));
+		assertTrue("3.2", !middleTree.includes(solution.append("layer5")));
+	}
+
 	/**
 	 * Tries some bogus merges and makes sure an exception is thrown.
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2004, 2017 IBM Corporation and others.
+ *  Copyright (c) 2004, 2018 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -25,6 +25,7 @@ import org.eclipse.core.runtime.jobs.*;
 import org.eclipse.core.runtime.preferences.IEclipsePreferences;
 import org.eclipse.core.runtime.preferences.InstanceScope;
 import org.osgi.service.prefs.BackingStoreException;
+import org.osgi.service.prefs.Preferences;
 
 public class CharsetTest extends ResourceTest {
 
@@ -1455,6 +1456,49 @@ public class CharsetTest extends ResourceTest {
 
 	}
 
+	/**
+	 * Ensures resources inherit the charset of their closest ancestor, also
+	 * after the encoding preferences change behind the charset manager's back.
+	 */
+	public void testCharsetInheritance() throws CoreException {
+		IProject project = null;
+		try {
+			IWorkspace workspace = getWorkspace();
+			project = workspace.getRoot().getProject("MyProject");
+			IFolder folder = project.getFolder("folder");
+			IFolder subFolder = folder.getFolder("subfolder");
+			IFile file = subFolder.getFile("file.txt");
+			IFile otherFile = project.getFile("file.txt");
+			ensureExistsInWorkspace(new IResource[] {file, otherFile}, true);
+			project.setDefaultCharset("FOO", getMonitor());
+			folder.setDefaultCharset("BAR", getMonitor());
+			assertCharsetIs("1.0", "FOO", new IResource[] {project, otherFile}, true);
+			assertCharsetIs("1.1", "BAR", new IResource[] {folder, subFolder, file}, true);
+
+			subFolder.setDefaultCharset("ZOO", getMonitor());
+			assertCharsetIs("2.0", "BAR", new IResource[] {folder}, true);
+			assertCharsetIs("2.1", "ZOO", new IResource[] {subFolder, file}, true);
+
+			// non-existing resources inherit as well
+			IFile newFile = subFolder.getFolder("newfolder").getFile("newfile.txt");
+			assertCharsetIs("3.0", "ZOO", new IResource[] {newFile}, false);
+
+			// changes made directly to the preferences are seen too
+			Preferences node = new ProjectScope(project).getNode(ResourcesPlugin.PI_RESOURCES).node(ResourcesPlugin.PREF_ENCODING);
+			node.remove(subFolder.getProjectRelativePath().toString());
+			assertCharsetIs("4.0", "BAR", new IResource[] {subFolder, file, newFile}, false);
+			node.put(folder.getProjectRelativePath().toString(), "ZOO");
+			assertCharsetIs("4.1", "ZOO", new IResource[] {folder, subFolder, file}, true);
+			assertCharsetIs("4.2", "FOO", new IResource[] {otherFile}, true);
+		} finally {
+			try {
+				clearAllEncodings(project);
+			} catch (CoreException e) {
+				fail("99.9", e);
+			}
+		}
+	}
+
 	/**
 	 * Moves a project and ensures the charsets are preserved.
 	 */
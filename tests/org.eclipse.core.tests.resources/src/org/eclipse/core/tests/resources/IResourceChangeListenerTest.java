@@ -13,6 +13,7 @@ package org.eclipse.core.tests.resources;
 
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.util.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.internal.resources.Workspace;
@@ -456,6 +457,45 @@ public class IResourceChangeListenerTest extends ResourceTest {
 		}
 	}
 
+	/*
+	 * Register two concurrent listeners for POST_CHANGE events. Ensure that both
+	 * are notified before the operation completes, and that neither is able to
+	 * modify the workspace tree.
+	 */
+	public void testConcurrentListeners() {
+		final Map<IConcurrentResourceChangeListener, Boolean> failed = Collections.synchronizedMap(new HashMap<>());
+		final List<IResourceDelta> deltas = Collections.synchronizedList(new ArrayList<>());
+		class ConcurrentListener implements IConcurrentResourceChangeListener {
+			@Override
+			public void resourceChanged(IResourceChangeEvent event) {
+				deltas.add(event.getDelta());
+				try {
+					getWorkspace().run((IWorkspaceRunnable) monitor -> event.getDelta().getResource().touch(monitor), getMonitor());
+					failed.put(this, Boolean.FALSE);
+				} catch (CoreException e) {
+					//should fail
+					failed.put(this, Boolean.TRUE);
+				}
+			}
+		}
+		IConcurrentResourceChangeListener listener1 = new ConcurrentListener();
+		IConcurrentResourceChangeListener listener2 = new ConcurrentListener();
+		getWorkspace().addResourceChangeListener(listener1, IResourceChangeEvent.POST_CHANGE);
+		getWorkspace().addResourceChangeListener(listener2, IResourceChangeEvent.POST_CHANGE);
+		try {
+			file1.setContents(getRandomContents(), true, true, getMonitor());
+			assertEquals("1.0", 2, deltas.size());
+			assertSame("1.1", deltas.get(0), deltas.get(1));
+			assertEquals("1.2", Boolean.TRUE, failed.get(listener1));
+			assertEquals("1.3", Boolean.TRUE, failed.get(listener2));
+		} catch (CoreException e) {
+			fail("2.0", e);
+		} finally {
+			getWorkspace().removeResourceChangeListener(listener1);
+			getWorkspace().removeResourceChangeListener(listener2);
+		}
+	}
+
 	public void testBuildKind() {
 		SimpleListener preBuild = new SimpleListener();
 		SimpleListener postBuild = new SimpleListener();
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2017 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -11,7 +11,7 @@
  *******************************************************************************/
 package org.eclipse.core.tests.resources;
 
-import java.util.Arrays;
+import java.util.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.internal.resources.*;
@@ -154,4 +154,51 @@ public class MarkerSetTest extends ResourceTest {
 		// all gone?
 		assertEquals("3.0", 0, set.size());
 	}
+
+	public void testAttributeMap() {
+		MarkerAttributeMap<Object> map = new MarkerAttributeMap<>(6);
+		map.put(IMarker.MESSAGE, "message");
+		map.put(IMarker.LINE_NUMBER, Integer.valueOf(1234));
+		map.put(IMarker.CHAR_START, Integer.valueOf(-5));
+		map.put(IMarker.SEVERITY, Integer.valueOf(IMarker.SEVERITY_ERROR));
+		map.put("custom", Integer.valueOf(7));
+		assertEquals("1.0", 5, map.size());
+		assertEquals("1.1", Integer.valueOf(1234), map.get(IMarker.LINE_NUMBER));
+		assertEquals("1.2", Integer.valueOf(-5), map.get(new String(IMarker.CHAR_START)));
+		assertEquals("1.3", Integer.valueOf(7), map.get("custom"));
+		assertTrue("1.4", map.containsKey(IMarker.SEVERITY));
+		assertFalse("1.5", map.containsKey(IMarker.CHAR_END));
+		assertTrue("1.6", map.containsValue(Integer.valueOf(1234)));
+
+		Map<String, Object> expected = new HashMap<>();
+		expected.put(IMarker.MESSAGE, "message");
+		expected.put(IMarker.LINE_NUMBER, Integer.valueOf(1234));
+		expected.put(IMarker.CHAR_START, Integer.valueOf(-5));
+		expected.put(IMarker.SEVERITY, Integer.valueOf(IMarker.SEVERITY_ERROR));
+		expected.put("custom", Integer.valueOf(7));
+		assertEquals("2.0", expected.keySet(), map.keySet());
+		assertEquals("2.1", expected.entrySet(), map.entrySet());
+		assertTrue("2.2", map.equals(expected));
+		assertEquals("2.3", map, new MarkerAttributeMap<>(map));
+
+		// well known attributes may still hold values of other types
+		assertEquals("3.0", Integer.valueOf(1234), map.put(IMarker.LINE_NUMBER, "unknown"));
+		assertEquals("3.1", "unknown", map.get(IMarker.LINE_NUMBER));
+		assertEquals("3.2", "unknown", map.put(IMarker.LINE_NUMBER, Integer.valueOf(12)));
+		assertEquals("3.3", Integer.valueOf(12), map.get(IMarker.LINE_NUMBER));
+		assertEquals("3.4", 5, map.size());
+
+		assertEquals("4.0", Integer.valueOf(-5), map.remove(IMarker.CHAR_START));
+		assertNull("4.1", map.get(IMarker.CHAR_START));
+		assertNull("4.2", map.put(IMarker.CHAR_START, Integer.valueOf(3)));
+		map.trimToSize();
+		assertEquals("4.3", 5, map.size());
+		assertEquals("4.4", "message", map.get(IMarker.MESSAGE));
+		assertNull("4.5", map.put(IMarker.LOCATION, "location"));
+		assertEquals("4.6", 6, map.size());
+
+		map.clear();
+		assertTrue("5.0", map.isEmpty());
+		assertNull("5.1", map.get(IMarker.SEVERITY));
+	}
 }
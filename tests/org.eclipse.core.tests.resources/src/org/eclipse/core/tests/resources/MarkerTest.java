@@ -1,5 +1,5 @@
 /*******************************************************************************
- *  Copyright (c) 2000, 2017 IBM Corporation and others.
+ *  Copyright (c) 2000, 2018 IBM Corporation and others.
  *  All rights reserved. This program and the accompanying materials
  *  are made available under the terms of the Eclipse Public License v1.0
  *  which accompanies this distribution, and is available at
@@ -496,6 +496,55 @@ public class MarkerTest extends ResourceTest {
 		getWorkspace().removeResourceChangeListener(listener);
 	}
 
+	/**
+	 * Tests API method IWorkspace#createMarkers and the grouped
+	 * IWorkspace#deleteMarkers.
+	 */
+	public void testCreateMarkers() throws CoreException {
+		MarkersChangeListener listener = new MarkersChangeListener();
+		getWorkspace().addResourceChangeListener(listener);
+		try {
+			IResource first = resources[resources.length - 1];
+			IResource second = resources[resources.length - 2];
+			Map<String, Object> attributes = new HashMap<>();
+			attributes.put(IMarker.SEVERITY, Integer.valueOf(IMarker.SEVERITY_ERROR));
+			attributes.put(IMarker.MESSAGE, "message");
+
+			listener.reset();
+			IMarker[] markers = getWorkspace().createMarkers(Arrays.asList(first, second, first), Arrays.asList(IMarker.PROBLEM, IMarker.TASK, IMarker.PROBLEM), Arrays.asList(attributes, null, attributes));
+			assertEquals("1.0", 3, markers.length);
+			assertExists("1.1", markers);
+			assertEquals("1.2", first, markers[0].getResource());
+			assertEquals("1.3", second, markers[1].getResource());
+			assertEquals("1.4", IMarker.SEVERITY_ERROR, markers[2].getAttribute(IMarker.SEVERITY, -1));
+			assertEquals("1.5", "message", markers[0].getAttribute(IMarker.MESSAGE));
+			assertNull("1.6", markers[1].getAttribute(IMarker.MESSAGE));
+			assertEquals("1.7", IMarker.TASK, markers[1].getType());
+			assertEquals("1.8", 2, listener.numAffectedResources());
+			assertTrue("1.9", listener.checkChanges(first, new IMarker[] {markers[0], markers[2]}, null, null));
+			assertTrue("1.10", listener.checkChanges(second, new IMarker[] {markers[1]}, null, null));
+
+			listener.reset();
+			getWorkspace().deleteMarkers(new IMarker[] {markers[2], markers[1], markers[0], markers[2]});
+			assertDoesNotExist("2.0", markers);
+			assertEquals("2.1", 2, listener.numAffectedResources());
+			assertTrue("2.2", listener.checkChanges(first, null, new IMarker[] {markers[0], markers[2]}, null));
+			assertTrue("2.3", listener.checkChanges(second, null, new IMarker[] {markers[1]}, null));
+
+			// markers on a resource which doesn't exist
+			IResource missing = getWorkspace().getRoot().getFile(new Path("non/existant/resource"));
+			try {
+				getWorkspace().createMarkers(Arrays.asList(first, missing), Arrays.asList(IMarker.PROBLEM, IMarker.PROBLEM), null);
+				fail("3.0");
+			} catch (CoreException e) {
+				// expected
+			}
+			assertEquals("3.1", 0, first.findMarkers(null, false, IResource.DEPTH_ZERO).length);
+		} finally {
+			getWorkspace().removeResourceChangeListener(listener);
+		}
+	}
+
 	public void testCreationTime() {
 
 		for (int i = 0; i < resources.length; i++) {
@@ -754,6 +803,74 @@ public class MarkerTest extends ResourceTest {
 		}
 	}
 
+	/**
+	 * Tests that deep IResource#findMarkers queries follow markers through
+	 * resource moves and deletions.
+	 */
+	public void testFindMarkersAfterChanges() throws CoreException {
+		final IWorkspaceRoot root = getWorkspace().getRoot();
+		IProject project = root.getProject("testFindMarkersAfterChanges");
+		IFolder folder = project.getFolder("folder");
+		IFile file = folder.getFile("file.txt");
+		IFile other = project.getFile("other.txt");
+		ensureExistsInWorkspace(new IResource[] {project, folder, file, other}, true);
+
+		IMarker problem = file.createMarker(IMarker.PROBLEM);
+		IMarker task = other.createMarker(IMarker.TASK);
+		assertEquals("1.0", new IMarker[] {problem}, root.findMarkers(IMarker.PROBLEM, false, IResource.DEPTH_INFINITE));
+		assertEquals("1.1", new IMarker[] {problem, task}, root.findMarkers(IMarker.MARKER, true, IResource.DEPTH_INFINITE));
+		assertEquals("1.2", new IMarker[] {problem, task}, project.findMarkers(null, false, IResource.DEPTH_INFINITE));
+		assertEquals("1.3", new IMarker[0], project.findMarkers(IMarker.MARKER, false, IResource.DEPTH_INFINITE));
+		assertEquals("1.4", new IMarker[] {problem}, folder.findMarkers(IMarker.MARKER, true, IResource.DEPTH_INFINITE));
+
+		IFolder destination = project.getFolder("moved");
+		folder.move(destination.getFullPath(), true, getMonitor());
+		IMarker[] found = root.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE);
+		assertEquals("2.0", 1, found.length);
+		assertEquals("2.1", destination.getFile("file.txt"), found[0].getResource());
+		assertEquals("2.2", new IMarker[0], folder.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		found[0].delete();
+		assertEquals("3.0", new IMarker[0], root.findMarkers(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		other.delete(true, getMonitor());
+		assertEquals("3.1", new IMarker[0], root.findMarkers(IMarker.TASK, true, IResource.DEPTH_INFINITE));
+		ensureExistsInWorkspace(other, true);
+		assertEquals("3.2", new IMarker[0], project.findMarkers(null, false, IResource.DEPTH_INFINITE));
+	}
+
+	/**
+	 * Tests that deleting a folder only drops the markers below that folder
+	 * from deep IResource#findMarkers and findMaxProblemSeverity queries.
+	 */
+	public void testFindMarkersAfterFolderDeletion() throws CoreException {
+		final IWorkspaceRoot root = getWorkspace().getRoot();
+		IProject project = root.getProject("testFindMarkersAfterFolderDeletion");
+		IFolder folder = project.getFolder("folder");
+		IFile deep = folder.getFolder("sub").getFile("file.txt");
+		IFolder sibling = project.getFolder("folder.sibling");
+		IFile siblingFile = sibling.getFile("file.txt");
+		IFile other = project.getFile("other.txt");
+		ensureExistsInWorkspace(new IResource[] {project, folder, deep, sibling, siblingFile, other}, true);
+
+		IMarker error = deep.createMarker(IMarker.PROBLEM);
+		error.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		IMarker warning = siblingFile.createMarker(IMarker.PROBLEM);
+		warning.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+		IMarker task = other.createMarker(IMarker.TASK);
+		assertEquals("1.0", new IMarker[] {error, warning}, project.findMarkers(IMarker.PROBLEM, false, IResource.DEPTH_INFINITE));
+		assertEquals("1.1", IMarker.SEVERITY_ERROR, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		folder.delete(true, getMonitor());
+		assertEquals("2.0", new IMarker[] {warning}, project.findMarkers(IMarker.PROBLEM, false, IResource.DEPTH_INFINITE));
+		assertEquals("2.1", new IMarker[] {warning, task}, root.findMarkers(IMarker.MARKER, true, IResource.DEPTH_INFINITE));
+		assertEquals("2.2", IMarker.SEVERITY_WARNING, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		// a new folder at the same place starts without markers
+		ensureExistsInWorkspace(deep, true);
+		assertEquals("3.0", new IMarker[0], folder.findMarkers(null, false, IResource.DEPTH_INFINITE));
+		assertEquals("3.1", -1, folder.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+	}
+
 	/**
 	 * Tests public API method IResource#findMaxProblemSeverity
 	 */
@@ -801,6 +918,49 @@ public class MarkerTest extends ResourceTest {
 
 	}
 
+	/**
+	 * Tests that deep IResource#findMaxProblemSeverity queries follow changes
+	 * to markers and resources in the subtree.
+	 */
+	public void testFindMaxProblemSeverityAfterChanges() throws CoreException {
+		final IWorkspaceRoot root = getWorkspace().getRoot();
+		IProject project = root.getProject("testFindMaxProblemSeverityAfterChanges");
+		IFolder folder = project.getFolder("top");
+		IFolder sub = folder.getFolder("sub");
+		IFile subFile = sub.getFile("b.txt");
+		ensureExistsInWorkspace(new IResource[] {project, folder, sub, subFile}, true);
+
+		assertEquals("1.0", -1, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		IMarker marker = subFile.createMarker(IMarker.PROBLEM);
+		assertEquals("2.0", -1, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		// the first change reports a marker delta, the second one does not
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_WARNING);
+		assertEquals("3.0", IMarker.SEVERITY_WARNING, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		marker.setAttribute(IMarker.SEVERITY, IMarker.SEVERITY_ERROR);
+		assertEquals("3.1", IMarker.SEVERITY_ERROR, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("3.2", IMarker.SEVERITY_ERROR, folder.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		IFolder copy = project.getFolder("copy");
+		folder.copy(copy.getFullPath(), true, getMonitor());
+		// copied resources may or may not keep their markers, the rollup must agree with the copy
+		int expected = copy.getFile(new Path("sub/b.txt")).findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_ZERO);
+		assertEquals("4.0", expected, copy.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		marker.delete();
+		assertEquals("5.0", -1, folder.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("5.1", expected, project.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+
+		createProblem(subFile, IMarker.SEVERITY_INFO);
+		assertEquals("6.0", IMarker.SEVERITY_INFO, folder.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		sub.delete(true, getMonitor());
+		assertEquals("6.1", -1, folder.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		ensureExistsInWorkspace(new IResource[] {sub, subFile}, true);
+		assertEquals("6.2", -1, folder.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+		assertEquals("6.3", -1, sub.findMaxProblemSeverity(IMarker.PROBLEM, true, IResource.DEPTH_INFINITE));
+	}
+
 	/**
 	 * Tests public API method IMarker#isSubTypeOf
 	 */
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2000, 2015 IBM Corporation and others.
+ * Copyright (c) 2000, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -13,16 +13,19 @@
  *******************************************************************************/
 package org.eclipse.core.tests.resources;
 
-import java.io.InputStream;
+import java.io.*;
 import java.net.URI;
+import java.util.*;
+import java.util.zip.*;
 import junit.framework.Test;
 import junit.framework.TestSuite;
 import org.eclipse.core.filesystem.EFS;
 import org.eclipse.core.filesystem.IFileStore;
-import org.eclipse.core.internal.resources.Project;
-import org.eclipse.core.internal.resources.ProjectDescription;
+import org.eclipse.core.internal.events.BuilderPersistentInfo;
+import org.eclipse.core.internal.resources.*;
 import org.eclipse.core.resources.*;
 import org.eclipse.core.runtime.*;
+import org.eclipse.core.tests.internal.builders.TimerBuilder;
 
 /**
  * Tests API for save/load refresh snapshots introduced in 3.6M6 (bug 301563):
@@ -82,6 +85,32 @@ public class ProjectSnapshotTest extends ResourceTest {
 		return org.eclipse.core.filesystem.URIUtil.toURI(projPath);
 	}
 
+	/**
+	 * Removes the trailing build durations of a project without builders from
+	 * the given snapshot, so that it has the format written before they were
+	 * introduced.
+	 */
+	private void removeBuildDurations(URI snapshotLocation) throws IOException {
+		java.io.File snapshotFile = new java.io.File(snapshotLocation);
+		ByteArrayOutputStream tree = new ByteArrayOutputStream();
+		String entryName;
+		try (ZipInputStream input = new ZipInputStream(new FileInputStream(snapshotFile))) {
+			entryName = input.getNextEntry().getName();
+			byte[] buffer = new byte[8192];
+			int read;
+			while ((read = input.read(buffer)) >= 0)
+				tree.write(buffer, 0, read);
+		}
+		byte[] contents = tree.toByteArray();
+		byte[] durations = new byte[] {ICoreConstants.WORKSPACE_TREE_BUILD_DURATIONS, 0, 0, 0, 0};
+		assertTrue("removeBuildDurations", Arrays.equals(durations, Arrays.copyOfRange(contents, contents.length - durations.length, contents.length)));
+		try (ZipOutputStream output = new ZipOutputStream(new FileOutputStream(snapshotFile))) {
+			output.putNextEntry(new ZipEntry(entryName));
+			output.write(contents, 0, contents.length - durations.length);
+			output.closeEntry();
+		}
+	}
+
 	/*
 	 * Trying to save a null Snapshot throws CoreException.
 	 */
@@ -128,6 +157,74 @@ public class ProjectSnapshotTest extends ResourceTest {
 		assertTrue("1.4", subfile.exists());
 	}
 
+	/*
+	 * Snapshots saved before the build durations were persisted must
+	 * still load. They are read through a ZipInputStream, which reports
+	 * available bytes at its end.
+	 */
+	public void testLoadWithoutBuildDurations() throws Throwable {
+		final IProject project = projects[0];
+		populateProject(project);
+		project.refreshLocal(IResource.DEPTH_INFINITE, null);
+		URI snapshotLocation = getSnapshotLocation(projects[1]);
+		project.saveSnapshot(IProject.SNAPSHOT_TREE, snapshotLocation, null);
+		removeBuildDurations(snapshotLocation);
+		project.close(null);
+		project.delete(true, false, null);
+		project.create(null);
+		project.loadSnapshot(IProject.SNAPSHOT_TREE, snapshotLocation, null);
+		project.open(IResource.NONE, null);
+		IFolder folder = project.getFolder("folder");
+		assertTrue("1.0", project.getFile("file").exists());
+		assertTrue("1.1", folder.exists());
+		assertTrue("1.2", folder.getFolder("subfolder").exists());
+		assertTrue("1.3", folder.getFile("subfile").exists());
+	}
+
+	/*
+	 * The duration of the last build of each builder is saved with the
+	 * snapshot and restored with the builder state.
+	 */
+	public void testLoadBuildDurations() throws Throwable {
+		final IProject project = projects[0];
+		IWorkspaceDescription workspaceDescription = getWorkspace().getDescription();
+		boolean autoBuilding = workspaceDescription.isAutoBuilding();
+		workspaceDescription.setAutoBuilding(false);
+		getWorkspace().setDescription(workspaceDescription);
+		try {
+			IProjectDescription description = project.getDescription();
+			ICommand command = description.newCommand();
+			command.setBuilderName(TimerBuilder.BUILDER_NAME);
+			Map<String, String> arguments = new HashMap<>();
+			arguments.put(TimerBuilder.DURATION_ARG, "100");
+			arguments.put(TimerBuilder.RULE_TYPE_ARG, TimerBuilder.RuleType.CURRENT_PROJECT.toString());
+			command.setArguments(arguments);
+			description.setBuildSpec(new ICommand[] {command});
+			project.setDescription(description, null);
+			project.build(IncrementalProjectBuilder.FULL_BUILD, null);
+			List<BuilderPersistentInfo> infos = ((Workspace) getWorkspace()).getBuildManager().createBuildersPersistentInfo(project);
+			assertEquals("1.0", 1, infos.size());
+			long duration = infos.get(0).getLastBuildDuration();
+			assertTrue("1.1", duration >= 100);
+
+			URI snapshotLocation = getSnapshotLocation(projects[1]);
+			project.saveSnapshot(IProject.SNAPSHOT_TREE, snapshotLocation, null);
+			project.close(null);
+			// keep the contents, so that the snapshot is loaded when the project is opened
+			project.delete(false, false, null);
+			project.create(null);
+			project.loadSnapshot(IProject.SNAPSHOT_TREE, snapshotLocation, null);
+			project.open(IResource.NONE, null);
+			infos = ((Workspace) getWorkspace()).getBuildManager().getBuildersPersistentInfo(project);
+			assertNotNull("2.0", infos);
+			assertEquals("2.1", 1, infos.size());
+			assertEquals("2.2", duration, infos.get(0).getLastBuildDuration());
+		} finally {
+			workspaceDescription.setAutoBuilding(autoBuilding);
+			getWorkspace().setDescription(workspaceDescription);
+		}
+	}
+
 	/*
 	 * Create project and populate with resources. Save snapshot.
 	 * Delete project (also delete resources on disk). Import project
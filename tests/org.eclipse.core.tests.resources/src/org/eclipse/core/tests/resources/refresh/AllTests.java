@@ -27,6 +27,7 @@ public class AllTests extends TestCase {
 	public static Test suite() {
 		TestSuite suite = new TestSuite(AllTests.class.getName());
 		suite.addTest(RefreshProviderTest.suite());
+		suite.addTest(LinuxRefreshProviderTest.suite());
 		return suite;
 	}
 }
@@ -0,0 +1,164 @@
+/*******************************************************************************
+ *  Copyright (c) 2018 IBM Corporation and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *     IBM - Initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.refresh;
+
+import java.util.*;
+import junit.framework.TestSuite;
+import org.eclipse.core.internal.resources.refresh.linux.LinuxRefreshProvider;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.resources.refresh.IRefreshMonitor;
+import org.eclipse.core.resources.refresh.IRefreshResult;
+import org.eclipse.core.runtime.*;
+import org.eclipse.core.tests.resources.ResourceTest;
+
+/**
+ * Tests the inotify based refresh provider on Linux.
+ */
+public class LinuxRefreshProviderTest extends ResourceTest {
+	/**
+	 * The maximum time to wait for a change to be picked up.
+	 */
+	private static final long TIMEOUT = 10000;
+
+	public static TestSuite suite() {
+		return new TestSuite(LinuxRefreshProviderTest.class);
+	}
+
+	public LinuxRefreshProviderTest() {
+		super();
+	}
+
+	public LinuxRefreshProviderTest(String name) {
+		super(name);
+	}
+
+	private boolean isLinux() {
+		return Platform.OS_LINUX.equals(Platform.getOS());
+	}
+
+	/**
+	 * Refresh results that records the resources it was asked to refresh.
+	 */
+	static class RecordingRefreshResult implements IRefreshResult {
+		final List<IResource> refreshed = Collections.synchronizedList(new ArrayList<IResource>());
+		volatile boolean failed;
+
+		@Override
+		public void monitorFailed(IRefreshMonitor monitor, IResource resource) {
+			failed = true;
+		}
+
+		@Override
+		public void refresh(IResource resource) {
+			refreshed.add(resource);
+		}
+	}
+
+	public void testFileNotMonitored() {
+		IProject project = getWorkspace().getRoot().getProject(getUniqueString());
+		IFile file = project.getFile("file.txt");
+		ensureExistsInWorkspace(file, true);
+		assertNull("1.0", new LinuxRefreshProvider().installMonitor(file, new RecordingRefreshResult(), getMonitor()));
+	}
+
+	public void testExternalChangesReported() throws Exception {
+		if (!isLinux())
+			return;
+		IProject project = getWorkspace().getRoot().getProject(getUniqueString());
+		IFolder folder = project.getFolder("a").getFolder("b");
+		ensureExistsInWorkspace(folder, true);
+		RecordingRefreshResult result = new RecordingRefreshResult();
+		IRefreshMonitor monitor = new LinuxRefreshProvider().installMonitor(project, result, getMonitor());
+		assertNotNull("1.0", monitor);
+		try {
+			IFile file = folder.getFile("external.txt");
+			createFileInFileSystem(file.getLocation());
+			long end = System.currentTimeMillis() + TIMEOUT;
+			while (!result.refreshed.contains(file) && System.currentTimeMillis() < end)
+				Thread.sleep(100);
+			assertTrue("2.0", result.refreshed.contains(file));
+			assertFalse("2.1", result.failed);
+		} finally {
+			monitor.unmonitor(null);
+		}
+	}
+
+	public void testNewDirectoryWatched() throws Exception {
+		if (!isLinux())
+			return;
+		IProject project = getWorkspace().getRoot().getProject(getUniqueString());
+		ensureExistsInWorkspace(project, true);
+		RecordingRefreshResult result = new RecordingRefreshResult();
+		IRefreshMonitor monitor = new LinuxRefreshProvider().installMonitor(project, result, getMonitor());
+		assertNotNull("1.0", monitor);
+		try {
+			IFolder folder = project.getFolder("created");
+			assertTrue("1.1", folder.getLocation().toFile().mkdir());
+			long end = System.currentTimeMillis() + TIMEOUT;
+			while (!result.refreshed.contains(folder) && System.currentTimeMillis() < end)
+				Thread.sleep(100);
+			assertTrue("2.0", result.refreshed.contains(folder));
+			folder.refreshLocal(IResource.DEPTH_INFINITE, getMonitor());
+			result.refreshed.clear();
+			// changes inside the new directory must be reported as well
+			IFile file = folder.getFile("inner.txt");
+			createFileInFileSystem(file.getLocation());
+			end = System.currentTimeMillis() + TIMEOUT;
+			while (!result.refreshed.contains(file) && System.currentTimeMillis() < end)
+				Thread.sleep(100);
+			assertTrue("3.0", result.refreshed.contains(file));
+		} finally {
+			monitor.unmonitor(null);
+		}
+	}
+
+	/**
+	 * Directories created while events are lost to an overflow of the event
+	 * queue must be watched once the overflow is reported.
+	 */
+	public void testOverflowRecovery() throws Exception {
+		if (!isLinux())
+			return;
+		IProject project = getWorkspace().getRoot().getProject(getUniqueString());
+		ensureExistsInWorkspace(project, true);
+		RecordingRefreshResult result = new RecordingRefreshResult();
+		IRefreshMonitor monitor = new LinuxRefreshProvider().installMonitor(project, result, getMonitor());
+		assertNotNull("1.0", monitor);
+		try {
+			IFolder folder = project.getFolder("during");
+			// the monitor reads the events while holding its lock, so holding it
+			// lets the events pile up until the watch key overflows
+			synchronized (monitor) {
+				java.io.File projectDirectory = project.getLocation().toFile();
+				for (int i = 0; i < 1000; i++)
+					assertTrue("1.1", new java.io.File(projectDirectory, "file" + i).createNewFile());
+				assertTrue("1.2", folder.getLocation().toFile().mkdir());
+			}
+			long end = System.currentTimeMillis() + TIMEOUT;
+			while (!result.refreshed.contains(project) && System.currentTimeMillis() < end)
+				Thread.sleep(100);
+			assertTrue("2.0", result.refreshed.contains(project));
+			project.refreshLocal(IResource.DEPTH_INFINITE, getMonitor());
+			assertTrue("2.1", folder.exists());
+			result.refreshed.clear();
+			// changes inside the directory created during the overflow must be reported
+			IFile file = folder.getFile("inner.txt");
+			createFileInFileSystem(file.getLocation());
+			end = System.currentTimeMillis() + TIMEOUT;
+			while (!result.refreshed.contains(file) && System.currentTimeMillis() < end)
+				Thread.sleep(100);
+			assertTrue("3.0", result.refreshed.contains(file));
+			assertFalse("3.1", result.failed);
+		} finally {
+			monitor.unmonitor(null);
+		}
+	}
+}
@@ -1,5 +1,5 @@
 /*******************************************************************************
- * Copyright (c) 2004, 2014 IBM Corporation and others.
+ * Copyright (c) 2004, 2018 IBM Corporation and others.
  * All rights reserved. This program and the accompanying materials
  * are made available under the terms of the Eclipse Public License v1.0
  * which accompanies this distribution, and is available at
@@ -17,10 +17,12 @@ public class AllTests extends TestCase {
 		TestSuite suite = new TestSuite(AllTests.class.getName());
 		suite.addTest(SampleSessionTest.suite());
 		suite.addTest(TestBug93473.suite());
+		suite.addTest(TestContentDescriptionCachePersistence.suite());
 		suite.addTest(TestSave.suite());
 		suite.addTest(Test1G1N9GZ.suite());
 		suite.addTest(TestCloseNoSave.suite());
 		suite.addTest(TestMultiSnap.suite());
+		suite.addTest(TestCompactedSnapshots.suite());
 		suite.addTest(TestSaveCreateProject.suite());
 		suite.addTest(TestSaveSnap.suite());
 		suite.addTest(TestSaveWithClosedProject.suite());
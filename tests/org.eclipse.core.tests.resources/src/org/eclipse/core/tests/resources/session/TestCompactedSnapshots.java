@@ -0,0 +1,93 @@
+/*******************************************************************************
+ *  Copyright (c) 2018 IBM Corporation and others.
+ *  All rights reserved. This program and the accompanying materials
+ *  are made available under the terms of the Eclipse Public License v1.0
+ *  which accompanies this distribution, and is available at
+ *  http://www.eclipse.org/legal/epl-v10.html
+ *
+ *  Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.session;
+
+import junit.framework.Test;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.tests.resources.AutomatedTests;
+import org.eclipse.core.tests.session.WorkspaceSessionTestSuite;
+
+/**
+ * Tests crash recovery from a snapshot log that has been compacted into a
+ * single delta against the saved tree, both during a session and after a
+ * previous crash.
+ */
+public class TestCompactedSnapshots extends WorkspaceSerializationTest {
+	/**
+	 * More snapshots than the log keeps before it is compacted.
+	 */
+	private static final int SNAPSHOTS = 40;
+
+	public TestCompactedSnapshots() {
+		super();
+	}
+
+	public TestCompactedSnapshots(String name) {
+		super(name);
+	}
+
+	private IFile getFile(int i) {
+		return getWorkspace().getRoot().getProject(PROJECT).getFolder(FOLDER).getFile(FILE + i);
+	}
+
+	/**
+	 * Each snapshot creates a file and deletes the previous one when it is
+	 * even, so only the odd files remain.
+	 */
+	private void assertSnapshotFiles(String message) {
+		for (int i = 0; i < SNAPSHOTS; i++) {
+			if (i % 2 == 0)
+				assertDoesNotExistInWorkspace(message + "." + i, getFile(i));
+			else
+				assertExistsInWorkspace(message + "." + i, getFile(i));
+		}
+	}
+
+	public void test1() throws Exception {
+		IProject project = getWorkspace().getRoot().getProject(PROJECT);
+		project.create(getMonitor());
+		project.open(getMonitor());
+		project.getFolder(FOLDER).create(true, true, getMonitor());
+
+		// the tree the snapshots are compacted against
+		workspace.save(true, getMonitor());
+
+		for (int i = 0; i < SNAPSHOTS; i++) {
+			getFile(i).create(getRandomContents(), true, getMonitor());
+			if (i % 2 == 1)
+				getFile(i - 1).delete(true, getMonitor());
+			workspace.save(false, getMonitor());
+		}
+
+		//exit without saving
+	}
+
+	public void test2() throws CoreException {
+		assertSnapshotFiles("1");
+
+		// the first snapshot after a crash compacts the recovered log
+		IFile file = getWorkspace().getRoot().getProject(PROJECT).getFile(FILE);
+		file.create(getRandomContents(), true, getMonitor());
+		workspace.save(false, getMonitor());
+
+		//exit without saving
+	}
+
+	public void test3() {
+		assertSnapshotFiles("1");
+		assertExistsInWorkspace("2.0", getWorkspace().getRoot().getProject(PROJECT).getFile(FILE));
+	}
+
+	public static Test suite() {
+		return new WorkspaceSessionTestSuite(AutomatedTests.PI_RESOURCES_TESTS, TestCompactedSnapshots.class);
+	}
+}
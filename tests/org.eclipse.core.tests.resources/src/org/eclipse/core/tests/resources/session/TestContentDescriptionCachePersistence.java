@@ -0,0 +1,104 @@
+/*******************************************************************************
+ * Copyright (c) 2018 IBM Corporation and others.
+ * All rights reserved. This program and the accompanying materials
+ * are made available under the terms of the Eclipse Public License v1.0
+ * which accompanies this distribution, and is available at
+ * http://www.eclipse.org/legal/epl-v10.html
+ *
+ * Contributors:
+ *     IBM Corporation - initial API and implementation
+ *******************************************************************************/
+package org.eclipse.core.tests.resources.session;
+
+import junit.framework.Test;
+import org.eclipse.core.internal.resources.ContentDescriptionManager;
+import org.eclipse.core.internal.resources.Workspace;
+import org.eclipse.core.internal.utils.ConcurrentCache;
+import org.eclipse.core.resources.*;
+import org.eclipse.core.runtime.CoreException;
+import org.eclipse.core.runtime.IPath;
+import org.eclipse.core.runtime.content.IContentDescription;
+import org.eclipse.core.tests.resources.ContentDescriptionManagerTest;
+import org.eclipse.core.tests.resources.WorkspaceSessionTest;
+import org.eclipse.core.tests.resources.content.MyContentDescriber;
+import org.eclipse.core.tests.session.WorkspaceSessionTestSuite;
+
+/**
+ * Tests that the content descriptions in the cache are preserved across sessions.
+ *
+ * Like {@link TestBug93473}, this test is sensitive to the platform state stamp.
+ */
+public class TestContentDescriptionCachePersistence extends WorkspaceSessionTest {
+	private static final String CONTENTS = "<?xml version=\"1.0\" encoding=\"ISO-8859-1\"?><org.eclipse.core.resources.tests.root/>";
+
+	public static Test suite() {
+		return new WorkspaceSessionTestSuite(PI_RESOURCES_TESTS, TestContentDescriptionCachePersistence.class);
+	}
+
+	public TestContentDescriptionCachePersistence(String name) {
+		super(name);
+	}
+
+	private ContentDescriptionManager getContentDescriptionManager() {
+		return ((Workspace) getWorkspace()).getContentDescriptionManager();
+	}
+
+	private IFile getFile() {
+		return getWorkspace().getRoot().getProject("proj1").getFile("foo.xml");
+	}
+
+	private IFile getCustomFile() {
+		return getWorkspace().getRoot().getProject("proj1").getFile("foo.myContent1");
+	}
+
+	public void test1stSession() {
+		IFile file = getFile();
+		IFile customFile = getCustomFile();
+		ensureExistsInWorkspace(file, CONTENTS);
+		ensureExistsInWorkspace(customFile, MyContentDescriber.SIGNATURE);
+		try {
+			// this may cause the cache flush job to be scheduled
+			file.getContentDescription();
+			ContentDescriptionManagerTest.waitForCacheFlush();
+			// the descriptions are filled by describers, so they are kept in the cache
+			file.getContentDescription();
+			customFile.getContentDescription();
+		} catch (CoreException e) {
+			fail("1.0", e);
+		}
+		assertEquals("2.0", ContentDescriptionManager.USED_CACHE, getContentDescriptionManager().getCacheState());
+		assertNotNull("2.1", getContentDescriptionManager().getCache().getEntry(file.getFullPath()));
+		assertNotNull("2.2", getContentDescriptionManager().getCache().getEntry(customFile.getFullPath()));
+
+		try {
+			getWorkspace().save(true, getMonitor());
+		} catch (CoreException e) {
+			fail("3.0", e);
+		}
+	}
+
+	public void test2ndSession() {
+		IFile file = getFile();
+		assertEquals("1.0", ContentDescriptionManager.USED_CACHE, getContentDescriptionManager().getCacheState());
+		// the description was read from the persisted cache, not from the file
+		ConcurrentCache.Entry<IPath, IContentDescription> entry = getContentDescriptionManager().getCache().getEntry(file.getFullPath());
+		assertNotNull("1.1", entry);
+		assertEquals("1.2", "ISO-8859-1", entry.getCached().getCharset());
+		try {
+			IContentDescription description = file.getContentDescription();
+			assertSame("2.0", entry.getCached(), description);
+			assertEquals("2.1", "ISO-8859-1", file.getCharset());
+		} catch (CoreException e) {
+			fail("2.2", e);
+		}
+		// descriptions with properties that are not persisted are described again
+		IFile customFile = getCustomFile();
+		assertNull("3.0", getContentDescriptionManager().getCache().getEntry(customFile.getFullPath()));
+		try {
+			IContentDescription description = customFile.getContentDescription();
+			assertEquals("3.1", MyContentDescriber.MY_OPTION_VALUES[0], description.getProperty(MyContentDescriber.MY_OPTIONS[0]));
+		} catch (CoreException e) {
+			fail("3.2", e);
+		}
+	}
+}